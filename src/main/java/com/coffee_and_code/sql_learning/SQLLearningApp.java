@@ -1,7 +1,10 @@
 package com.coffee_and_code.sql_learning;
 
+import com.coffee_and_code.sql_learning.ui.SplashScreen;
 import com.coffee_and_code.sql_learning.utils.IconGenerator;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
@@ -9,32 +12,65 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.coffee_and_code.sql_learning.service.DatabaseService;
+import com.coffee_and_code.sql_learning.service.StartupPipeline;
+import com.coffee_and_code.sql_learning.service.StartupTimings;
 import com.coffee_and_code.sql_learning.controller.MainController;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Main Application class for SQL Learning Desktop App
  */
 public class SQLLearningApp extends Application {
     private static final Logger logger = LoggerFactory.getLogger(SQLLearningApp.class);
+    // Set in main, so the startup report includes JavaFX toolkit startup
+    private static long launchStart = System.nanoTime();
     private DatabaseService databaseService;
 
     @Override
     public void start(Stage primaryStage) {
-        try {
-            // Initialize database service
-            databaseService = DatabaseService.getInstance();
-            databaseService.initializeDatabase();
+        StartupTimings timings = new StartupTimings(launchStart);
+        timings.record("JavaFX toolkit start", launchStart);
+        Image icon = loadIcon();
+
+        // Database, lessons and questions load in parallel while the splash is up
+        SplashScreen splash = new SplashScreen(icon);
+        splash.setStatus("Loading lessons and the sample database...");
+        splash.show();
+        StartupPipeline startup = StartupPipeline.start(timings);
+        databaseService = DatabaseService.getInstance();
+
+        // Build the main window only after the splash has been painted once,
+        // FXML loading keeps the FX thread busy for a while
+        new AnimationTimer() {
+            private int frames;
 
+            @Override
+            public void handle(long now) {
+                if (++frames == 2) {
+                    stop();
+                    Platform.runLater(() -> loadMainWindow(primaryStage, icon, splash, startup, timings));
+                }
+            }
+        }.start();
+    }
+
+    private void loadMainWindow(Stage primaryStage, Image icon, SplashScreen splash,
+                                StartupPipeline startup, StartupTimings timings) {
+        try {
             // Load FXML
+            long phaseStart = System.nanoTime();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main.fxml"));
             Scene scene = new Scene(loader.load());
-
-            // Get controller and set database service
             MainController controller = loader.getController();
-            controller.setDatabaseService(databaseService);
+            timings.record("FXML load", phaseStart);
 
             // Set up primary stage
             primaryStage.setTitle("SQL Learning Application - Professional Edition");
@@ -42,44 +78,56 @@ public class SQLLearningApp extends Application {
             primaryStage.setMinWidth(1200);
             primaryStage.setMinHeight(800);
             primaryStage.setMaximized(true);
-
-            // Set application icon (with fallback)
-            try {
-                InputStream iconStream = getClass().getResourceAsStream("/images/sql-icon.png");
-                Image icon;
-                if (iconStream != null) {
-                    icon = new Image(iconStream);
-                    logger.info("Application icon loaded successfully");
-                } else {
-                    // Use generated default icon
-                    icon = IconGenerator.createDefaultIcon();
-                    logger.warn("Using generated default icon");
-                }
+            if (icon != null) {
                 primaryStage.getIcons().add(icon);
-            } catch (Exception e) {
-                logger.warn("Could not load application icon: {}", e.getMessage());
-                // Try generated icon as fallback
-                try {
-                    primaryStage.getIcons().add(IconGenerator.createDefaultIcon());
-                } catch (Exception ex) {
-                    logger.warn("Could not create default icon either");
-                }
             }
 
             // Add CSS stylesheet (with error handling)
+            phaseStart = System.nanoTime();
             try {
                 String cssFile = getClass().getResource("/css/styles.css").toExternalForm();
                 scene.getStylesheets().add(cssFile);
+                // Stylesheets are parsed lazily, apply them now so the cost shows up in this phase
+                scene.getRoot().applyCss();
                 logger.info("CSS stylesheet loaded successfully");
             } catch (Exception e) {
                 logger.error("Could not load CSS stylesheet: {}", e.getMessage());
                 // Continue without custom styles
             }
+            timings.record("CSS load", phaseStart);
+
+            // The learning tab is visible first, so the window shows as soon as its content is ready
+            CompletableFuture<Void> windowShown = whenLoaded(startup.getLearningContent(), content -> {
+                long showStart = System.nanoTime();
+                controller.setLearningContentService(content);
+                // Show the main window before closing the splash so the application never has no window
+                primaryStage.show();
+                splash.close();
+                timings.record("Main window show", showStart);
+                logger.info("Main window shown {}ms after launch", (System.nanoTime() - launchStart) / 1_000_000);
+            });
+            CompletableFuture<Void> questionsShown = whenLoaded(startup.getPracticeQuestions(), questions -> {
+                long listStart = System.nanoTime();
+                controller.setPracticeService(questions);
+                timings.record("Question list population", listStart);
+            });
+            // The schema is read in the background, so the phase ends when the tree is populated
+            CompletableFuture<Void> schemaShown = new CompletableFuture<>();
+            whenLoaded(startup.getDatabase(), database -> {
+                long schemaStart = System.nanoTime();
+                controller.setDatabaseService(database).thenRun(() -> {
+                    timings.record("Schema tree population", schemaStart);
+                    schemaShown.complete(null);
+                });
+            });
 
-            primaryStage.show();
-            logger.info("SQL Learning Application started successfully");
+            CompletableFuture.allOf(windowShown, questionsShown, schemaShown).thenRun(() -> {
+                timings.finish();
+                logger.info("SQL Learning Application started successfully");
+                reportStartup(timings);
+            });
 
-        } catch (IOException | java.sql.SQLException e) {
+        } catch (IOException e) {
             logger.error("Failed to start application", e);
             // Show error dialog instead of just exiting
             showErrorAndExit("Application Startup Error",
@@ -87,6 +135,66 @@ public class SQLLearningApp extends Application {
         }
     }
 
+    /**
+     * Hand a loaded service to the UI on the FX thread, or give up on startup if it failed
+     */
+    private <T> CompletableFuture<Void> whenLoaded(CompletableFuture<T> stage, Consumer<T> onLoaded) {
+        CompletableFuture<Void> handedOver = new CompletableFuture<>();
+        stage.whenComplete((service, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                showErrorAndExit("Application Startup Error",
+                        "Failed to start the application: " + rootCause(error).getMessage());
+            } else {
+                onLoaded.accept(service);
+                handedOver.complete(null);
+            }
+        }));
+        return handedOver;
+    }
+
+    static Throwable rootCause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Log the phase breakdown and write it as JSON to the file named by -Dsqllearning.startup.json
+     */
+    static void reportStartup(StartupTimings timings) {
+        logger.info(timings.toReport());
+        String jsonFile = System.getProperty("sqllearning.startup.json");
+        if (jsonFile != null && !jsonFile.isBlank()) {
+            try {
+                Files.writeString(Paths.get(jsonFile), timings.toJson(), StandardCharsets.UTF_8);
+                logger.info("Startup timings written to {}", jsonFile);
+            } catch (IOException e) {
+                logger.warn("Could not write startup timings to {}: {}", jsonFile, e.getMessage());
+            }
+        }
+    }
+
+    private Image loadIcon() {
+        // Set application icon (with fallback)
+        try {
+            InputStream iconStream = getClass().getResourceAsStream("/images/sql-icon.png");
+            if (iconStream != null) {
+                logger.info("Application icon loaded successfully");
+                return new Image(iconStream);
+            }
+            // Use generated default icon
+            logger.warn("Using generated default icon");
+            return IconGenerator.createDefaultIcon();
+        } catch (Exception e) {
+            logger.warn("Could not load application icon: {}", e.getMessage());
+            // Try generated icon as fallback
+            try {
+                return IconGenerator.createDefaultIcon();
+            } catch (Exception ex) {
+                logger.warn("Could not create default icon either");
+                return null;
+            }
+        }
+    }
+
     @Override
     public void stop() {
         try {
@@ -115,6 +223,7 @@ public class SQLLearningApp extends Application {
     }
 
     public static void main(String[] args) {
+        launchStart = System.nanoTime();
         launch(SQLLearningApp.class, args);
     }
 }
\ No newline at end of file
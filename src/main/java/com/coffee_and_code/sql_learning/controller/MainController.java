@@ -1,9 +1,11 @@
 package com.coffee_and_code.sql_learning.controller;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -11,26 +13,50 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
+import javafx.util.Duration;
+import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.coffee_and_code.sql_learning.service.ColumnProfiler;
+import com.coffee_and_code.sql_learning.service.ConnectionPool;
 import com.coffee_and_code.sql_learning.service.DatabaseService;
 import com.coffee_and_code.sql_learning.service.LearningContentService;
 import com.coffee_and_code.sql_learning.service.PracticeService;
+import com.coffee_and_code.sql_learning.service.QueryExecutionScheduler;
+import com.coffee_and_code.sql_learning.service.QueryHandle;
+import com.coffee_and_code.sql_learning.service.RowPublisher;
+import com.coffee_and_code.sql_learning.service.SqlFormatter;
 import com.coffee_and_code.sql_learning.service.SqlSyntaxHighlighter;
+import com.coffee_and_code.sql_learning.ui.ColumnWindow;
+import com.coffee_and_code.sql_learning.ui.ResultRowList;
+import com.coffee_and_code.sql_learning.ui.ResultTableCell;
+import com.coffee_and_code.sql_learning.ui.ResultViewBuilder;
+import com.coffee_and_code.sql_learning.ui.SqlCompletion;
+import com.coffee_and_code.sql_learning.ui.StreamingResultLoader;
 import com.coffee_and_code.sql_learning.service.PracticeService.PracticeQuestion;
 
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Main controller for the SQL Learning Application
  */
 public class MainController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
+    private static final int STREAM_CHUNK_ROWS = 500;
+    private static final int STREAM_BUFFER_ROWS = 1000;
+    // Scheduler source of editor runs, a new run supersedes the previous one
+    private static final String EDITOR_SOURCE = "editor";
+    private static final int WIDE_RESULT_COLUMNS = Integer.getInteger("sqllearning.results.wideColumns", 40);
 
     // ===== MENU BAR COMPONENTS =====
     @FXML private MenuBar menuBar;
@@ -108,13 +134,19 @@ public class MainController implements Initializable {
     @FXML private Button formatCodeBtn;
     @FXML private Button clearCodeBtn;
     @FXML private Button executeBtn;
+    @FXML private Button cancelBtn;
     @FXML private Button validateBtn;
+    @FXML private CheckBox autoRollbackCheckBox;
     @FXML private TextArea sqlEditor;
+    @FXML private ScrollPane sqlEditorScrollPane;
 
     // Results
     @FXML private Label executionTimeLabel;
     @FXML private Button exportResultsBtn;
-    @FXML private TableView<ObservableList<Object>> resultsTable;
+    @FXML private Button profileResultsBtn;
+    @FXML private TableView<List<Object>> resultsTable;
+    @FXML private ScrollBar columnScrollBar;
+    @FXML private TextField resultFilterField;
 
     // Database Schema Browser
     @FXML private TreeView<String> schemaTreeView;
@@ -132,6 +164,7 @@ public class MainController implements Initializable {
     // ===== STATUS BAR =====
     @FXML private Label statusLabel;
     @FXML private Label connectionStatusLabel;
+    @FXML private Label queueStatusLabel;
     @FXML private Label userProgressStatusLabel;
     @FXML private Label timeLabel;
 
@@ -142,16 +175,37 @@ public class MainController implements Initializable {
     private DatabaseService databaseService;
     private LearningContentService learningContentService;
     private PracticeService practiceService;
+    private QueryExecutionScheduler executionScheduler;
 
     // ===== UI COMPONENTS =====
     private CodeArea sqlCodeArea;
     private SqlSyntaxHighlighter syntaxHighlighter;
+    private SqlCompletion sqlCompletion;
     private Timer clockTimer;
+    private Timeline executionTimer;
+    private final ExecutorService schemaExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schema-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService validateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-validate");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // ===== STATE VARIABLES =====
     private PracticeQuestion currentQuestion;
     private int currentQuestionIndex = 0;
-    private long queryStartTime;
+    private QueryExecutionScheduler.Submission currentSubmission;
+    private StreamingResultLoader currentResultStream;
+    private ResultRowList resultRows;
+    private List<String> resultColumnNames = Collections.emptyList();
+    private ColumnWindow columnWindow;
+    private ColumnProfiler currentProfiler;
+    private long resultViewGeneration;
+    private long schemaGeneration;
+    private String requestedViewKey;
     private int totalQueriesExecuted = 0;
     private int successfulQueries = 0;
 
@@ -159,14 +213,14 @@ public class MainController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         logger.info("Initializing MainController with modern UI");
 
-        // Initialize services
-        learningContentService = new LearningContentService();
-        practiceService = new PracticeService();
+        // Services are loaded in the background at startup and handed in through the setters below
         syntaxHighlighter = new SqlSyntaxHighlighter();
+        executionScheduler = new QueryExecutionScheduler();
+        executionScheduler.setQueueListener((queued, running) ->
+                Platform.runLater(() -> updateQueueStatus(queued, running)));
 
         // Setup all UI sections
         setupMenuBar();
-        setupLearningSection();
         setupPracticeSection();
         setupStatusBar();
         setupClock();
@@ -174,10 +228,40 @@ public class MainController implements Initializable {
         logger.info("MainController initialized successfully");
     }
 
-    public void setDatabaseService(DatabaseService databaseService) {
+    public void setLearningContentService(LearningContentService learningContentService) {
+        this.learningContentService = learningContentService;
+        setupLearningSection();
+    }
+
+    public void setPracticeService(PracticeService practiceService) {
+        this.practiceService = practiceService;
+        loadAllQuestions();
+
+        // Load first question
+        Platform.runLater(() -> {
+            List<PracticeQuestion> questions = practiceService.getAllQuestions();
+            if (!questions.isEmpty()) {
+                questionsList.getSelectionModel().selectFirst();
+                updatePracticeProgress();
+                updateStatistics();
+            }
+        });
+    }
+
+    /**
+     * Connect the UI to the database; the returned future completes once the schema tree is populated
+     */
+    public CompletableFuture<Void> setDatabaseService(DatabaseService databaseService) {
         this.databaseService = databaseService;
-        loadDatabaseSchema();
+        executeBtn.setDisable(false);
+        validateBtn.setDisable(false);
+        // A question opened before the database was ready still needs its tables
+        if (currentQuestion != null) {
+            bindQuestionFixture(currentQuestion);
+        }
+        CompletableFuture<Void> schemaShown = loadDatabaseSchema();
         updateConnectionStatus();
+        return schemaShown;
     }
 
     // ===== SETUP METHODS =====
@@ -273,8 +357,7 @@ public class MainController implements Initializable {
             }
         });
 
-        // Setup questions list
-        loadAllQuestions();
+        // Setup questions list, filled once the practice questions are loaded
         questionsList.getSelectionModel().selectedIndexProperty().addListener(
                 (observable, oldValue, newValue) -> {
                     if (newValue.intValue() >= 0) {
@@ -293,8 +376,12 @@ public class MainController implements Initializable {
         formatCodeBtn.setOnAction(e -> formatSql());
         clearCodeBtn.setOnAction(e -> clearEditor());
         executeBtn.setOnAction(e -> executeSql());
+        executeBtn.setDisable(true);
+        cancelBtn.setOnAction(e -> cancelExecution());
         validateBtn.setOnAction(e -> validateSql());
+        validateBtn.setDisable(true);
         exportResultsBtn.setOnAction(e -> exportResults());
+        profileResultsBtn.setOnAction(e -> showResultProfile());
 
         // Setup database schema browser
         setupDatabaseSchemaBrowser();
@@ -310,15 +397,6 @@ public class MainController implements Initializable {
         // Setup results table
         setupResultsTable();
 
-        // Load first question
-        Platform.runLater(() -> {
-            List<PracticeQuestion> questions = practiceService.getAllQuestions();
-            if (!questions.isEmpty()) {
-                questionsList.getSelectionModel().selectFirst();
-                updatePracticeProgress();
-                updateStatistics();
-            }
-        });
         showTablesBtn.setOnAction(e -> showTables());
         resetQuestionBtn.setOnAction(e -> resetQuestion());
     }
@@ -330,18 +408,18 @@ public class MainController implements Initializable {
             sqlCodeArea.setParagraphGraphicFactory(LineNumberFactory.get(sqlCodeArea));
             sqlCodeArea.setStyle("-fx-font-family: 'JetBrains Mono', 'Fira Code', 'Monaco', 'Consolas', monospace; -fx-font-size: 14px;");
 
-            // Apply syntax highlighting
-            sqlCodeArea.textProperty().addListener((obs, oldText, newText) -> {
-                syntaxHighlighter.applySyntaxHighlighting(sqlCodeArea);
-            });
-
-            // Replace TextArea with CodeArea in parent
-            if (sqlEditor.getParent() instanceof VBox) {
-                VBox parent = (VBox) sqlEditor.getParent();
-                int index = parent.getChildren().indexOf(sqlEditor);
-                parent.getChildren().remove(sqlEditor);
-                parent.getChildren().add(index, sqlCodeArea);
-                VBox.setVgrow(sqlCodeArea, javafx.scene.layout.Priority.ALWAYS);
+            // Highlight in the background once typing pauses, re-styling only the paragraphs that changed
+            syntaxHighlighter.attach(sqlCodeArea);
+            // Keyword, table and column completion, Ctrl+Space opens it explicitly
+            sqlCompletion = new SqlCompletion(sqlCodeArea);
+
+            // Replace the TextArea and its ScrollPane with the CodeArea, which scrolls itself
+            if (sqlEditorScrollPane.getParent() instanceof VBox) {
+                VBox parent = (VBox) sqlEditorScrollPane.getParent();
+                VirtualizedScrollPane<CodeArea> codeScrollPane = new VirtualizedScrollPane<>(sqlCodeArea);
+                int index = parent.getChildren().indexOf(sqlEditorScrollPane);
+                parent.getChildren().set(index, codeScrollPane);
+                VBox.setVgrow(codeScrollPane, javafx.scene.layout.Priority.ALWAYS);
             }
         }
     }
@@ -356,6 +434,14 @@ public class MainController implements Initializable {
 
     private void setupResultsTable() {
         resultsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        columnWindow = new ColumnWindow(resultsTable, columnScrollBar);
+
+        // Sorting and filtering build an index view off the FX thread instead of reordering items
+        resultsTable.setSortPolicy(table -> {
+            applyResultView();
+            return true;
+        });
+        resultFilterField.textProperty().addListener((obs, oldText, newText) -> applyResultView());
     }
 
     private void setupStatusBar() {
@@ -419,7 +505,7 @@ public class MainController implements Initializable {
 
     private void filterQuestionsByDifficulty() {
         RadioButton selected = (RadioButton) difficultyGroup.getSelectedToggle();
-        if (selected == null) return;
+        if (selected == null || practiceService == null) return;
 
         String difficulty = selected.getText().toLowerCase();
         List<PracticeQuestion> allQuestions = practiceService.getAllQuestions();
@@ -469,10 +555,14 @@ public class MainController implements Initializable {
         }
 
         // Clear previous results
-        resultsTable.getColumns().clear();
-        resultsTable.getItems().clear();
+        cancelResultStream();
+        clearResults();
         executionTimeLabel.setText("Execution time: 0ms");
 
+        if (databaseService != null) {
+            bindQuestionFixture(question);
+        }
+
         // Set example SQL if available
         if (question.getExampleSql() != null && !question.getExampleSql().isEmpty()) {
             if (sqlCodeArea != null) {
@@ -483,6 +573,32 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Point executions at the question's own tables, which are created in the background on first visit
+     */
+    private void bindQuestionFixture(PracticeQuestion question) {
+        boolean schemaChanges = question.hasFixture()
+                || !databaseService.getActiveSchema().equals(ConnectionPool.DEFAULT_SCHEMA);
+        if (question.hasFixture()) {
+            statusLabel.setText("Preparing tables for this question...");
+        }
+        databaseService.useQuestionFixture(question.getId(), question.getFixtureSql())
+                .whenComplete((schema, error) -> Platform.runLater(() -> {
+                    if (currentQuestion != question) {
+                        return;
+                    }
+                    if (error != null) {
+                        statusLabel.setText("Could not prepare the tables for this question");
+                        statusLabel.setStyle("-fx-text-fill: #dc2626;");
+                        // Executions fall back to the sample tables, show those
+                        loadDatabaseSchema();
+                    } else if (schemaChanges) {
+                        statusLabel.setText("Ready");
+                        loadDatabaseSchema();
+                    }
+                }));
+    }
+
     // Add this helper method to create properly formatted HTML:
     private String createQuestionHTML(String content) {
         return """
@@ -578,47 +694,169 @@ public class MainController implements Initializable {
             showWarning("Empty Query", "Please enter a SQL query to execute.");
             return;
         }
+        if (databaseService == null) {
+            statusLabel.setText("The database is still starting, please try again in a moment");
+            return;
+        }
+
+        // Queries stream into the table, everything else runs to completion. Inside an open
+        // transaction a query runs on the editor session too, so it sees the uncommitted rows.
+        StreamingResultLoader loader = databaseService.isQuery(sql) && !databaseService.isInTransaction()
+                ? new StreamingResultLoader(STREAM_BUFFER_ROWS) : null;
+        // Practice attempts keep the sample data intact unless the learner opts out
+        boolean rollback = autoRollbackCheckBox.isSelected();
+
+        QueryExecutionScheduler.Submission submission;
+        try {
+            // A new run from the editor replaces the one still running
+            submission = executionScheduler.submit(EDITOR_SOURCE, sql, handle -> loader != null
+                    ? streamFirstChunk(sql, handle, loader)
+                    : rollback ? databaseService.executeSandboxed(sql, handle)
+                    : databaseService.executeSql(sql, handle));
+        } catch (RejectedExecutionException e) {
+            statusLabel.setText("Too many queries are running, please wait");
+            statusLabel.setStyle("-fx-text-fill: #dc2626;");
+            return;
+        }
+
+        if (submission == currentSubmission) {
+            // Same editor text is already running, the scheduler collapsed the resubmission
+            statusLabel.setText("Query is already running...");
+            return;
+        }
 
+        cancelResultStream();
         statusLabel.setText("Executing...");
-        executeBtn.setDisable(true);
-        queryStartTime = System.currentTimeMillis();
+        cancelBtn.setDisable(false);
         totalQueriesExecuted++;
 
-        Task<DatabaseService.ExecutionResult> task = new Task<DatabaseService.ExecutionResult>() {
-            @Override
-            protected DatabaseService.ExecutionResult call() throws Exception {
-                return databaseService.executeSql(sql);
-            }
-        };
-
-        task.setOnSucceeded(e -> {
-            Platform.runLater(() -> {
-                DatabaseService.ExecutionResult result = task.getValue();
-                long executionTime = System.currentTimeMillis() - queryStartTime;
-                displayExecutionResult(result, executionTime);
-                executeBtn.setDisable(false);
-                statusLabel.setText(result.isSuccess() ? "Executed successfully" : "Execution failed");
+        currentSubmission = submission;
+        QueryHandle handle = submission.getHandle();
+        startExecutionTimer(handle);
 
-                if (result.isSuccess()) {
-                    successfulQueries++;
-                }
+        submission.getResult().whenComplete((result, error) -> Platform.runLater(() -> {
+            refreshSchemaAfter(sql);
+            if (submission != currentSubmission) {
+                // Superseded by a newer submission, its result is no longer relevant
                 updateStatistics();
-            });
-        });
+                return;
+            }
+            finishExecution(submission);
+            long executionTime = handle.getElapsedMillis();
 
-        task.setOnFailed(e -> {
-            Platform.runLater(() -> {
-                executeBtn.setDisable(false);
+            if (error != null) {
                 statusLabel.setText("Execution failed");
-                long executionTime = System.currentTimeMillis() - queryStartTime;
                 executionTimeLabel.setText(String.format("Execution time: %dms", executionTime));
-                logger.error("SQL execution task failed", task.getException());
-            });
-        });
+                logger.error("SQL execution task failed", error);
+                return;
+            }
 
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+            currentProfiler = null;
+            if (result.isSuccess() && !result.isCached() && loader != null) {
+                // Known before the first chunk is shown, so a kept sort or filter waits for every row
+                currentResultStream = loader;
+            }
+            displayExecutionResult(result, executionTime);
+            if (handle.isCancelled()) {
+                executionTimeLabel.setText(String.format("Execution time: %dms (cancelled)", executionTime));
+                statusLabel.setText("Execution cancelled");
+                updateStatistics();
+                return;
+            }
+            statusLabel.setText((result.isSuccess() ? "Executed successfully" : "Execution failed")
+                    + (databaseService.isInTransaction() ? ", transaction open until COMMIT or ROLLBACK" : ""));
+
+            if (result.isSuccess()) {
+                successfulQueries++;
+                if (result.isCached()) {
+                    currentProfiler = databaseService.profile(result.getQueryResult());
+                } else if (loader != null) {
+                    attachResultStream(loader);
+                    currentProfiler = loader.getProfiler();
+                }
+            }
+            updateStatistics();
+            updateConnectionStatus();
+        }));
+    }
+
+    /**
+     * Runs on the scheduler thread: start streaming and wait only for the first chunk
+     */
+    private DatabaseService.ExecutionResult streamFirstChunk(String sql, QueryHandle handle,
+                                                             StreamingResultLoader loader) {
+        DatabaseService.ExecutionResult cached = databaseService.lookupCachedResult(sql, handle);
+        if (cached != null) {
+            return cached;
+        }
+        RowPublisher publisher = databaseService.streamQuery(sql, handle, STREAM_CHUNK_ROWS);
+        loader.setProfiler(publisher.getProfiler());
+        // Chunks past the spill threshold move to disk instead of piling up on the heap
+        loader.setSpiller(databaseService.newStreamSpiller());
+        publisher.subscribe(loader);
+        return loader.awaitFirstChunk(databaseService, handle);
+    }
+
+    private void attachResultStream(StreamingResultLoader loader) {
+        currentResultStream = loader;
+        loader.attach(resultsTable, resultRows,
+                rows -> statusLabel.setText(loader.isLoadingAll()
+                        ? String.format("Loaded %d row(s), sorting and filtering once all rows are loaded...", rows)
+                        : String.format("Loaded %d row(s), scroll for more", rows)),
+                rows -> {
+                    if (currentResultStream == loader) {
+                        currentResultStream = null;
+                        statusLabel.setText(String.format("Query executed successfully. %d row(s) fetched.", rows));
+                        // A sort or filter requested while loading applies to every row now
+                        applyResultView();
+                    }
+                });
+    }
+
+    private void cancelResultStream() {
+        if (currentResultStream != null) {
+            currentResultStream.cancel();
+            currentResultStream = null;
+        }
+    }
+
+    private void cancelExecution() {
+        QueryExecutionScheduler.Submission submission = currentSubmission;
+        if (submission != null && submission.cancel()) {
+            statusLabel.setText("Cancelling...");
+            cancelBtn.setDisable(true);
+        }
+    }
+
+    private void updateQueueStatus(int queued, int running) {
+        if (queued == 0 && running == 0) {
+            queueStatusLabel.setText("Queue: idle");
+        } else {
+            queueStatusLabel.setText(String.format("Queue: %d running, %d waiting", running, queued));
+        }
+    }
+
+    /**
+     * Show the running time in the results toolbar while a query executes
+     */
+    private void startExecutionTimer(QueryHandle handle) {
+        if (executionTimer != null) {
+            executionTimer.stop();
+        }
+        executionTimer = new Timeline(new KeyFrame(Duration.millis(100), e ->
+                executionTimeLabel.setText(String.format("Execution time: %dms...", handle.getElapsedMillis()))));
+        executionTimer.setCycleCount(Animation.INDEFINITE);
+        executionTimer.play();
+    }
+
+    private void finishExecution(QueryExecutionScheduler.Submission submission) {
+        if (currentSubmission == submission) {
+            currentSubmission = null;
+            if (executionTimer != null) {
+                executionTimer.stop();
+            }
+            cancelBtn.setDisable(true);
+        }
     }
 
     @FXML
@@ -628,19 +866,35 @@ public class MainController implements Initializable {
             showWarning("Empty Query", "Please enter a SQL query to validate.");
             return;
         }
-
-        DatabaseService.ValidationResult result = databaseService.validateSql(sql);
-        if (result.isValid()) {
-            statusLabel.setText("✓ SQL syntax is valid");
-            statusLabel.setStyle("-fx-text-fill: #059669;");
-        } else {
-            statusLabel.setText("✗ " + result.getMessage());
-            statusLabel.setStyle("-fx-text-fill: #dc2626;");
+        if (databaseService == null) {
+            statusLabel.setText("The database is still starting, please try again in a moment");
+            return;
         }
+
+        // Validation waits for the question's fixture tables, which may still be created
+        statusLabel.setText("Validating...");
+        DatabaseService service = databaseService;
+        CompletableFuture.supplyAsync(() -> service.validateSql(sql), validateExecutor)
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        logger.error("SQL validation failed", error);
+                        statusLabel.setText("Validation failed");
+                        statusLabel.setStyle("-fx-text-fill: #dc2626;");
+                    } else if (result.isValid()) {
+                        statusLabel.setText("✓ SQL syntax is valid");
+                        statusLabel.setStyle("-fx-text-fill: #059669;");
+                    } else {
+                        statusLabel.setText("✗ " + result.getMessage());
+                        statusLabel.setStyle("-fx-text-fill: #dc2626;");
+                    }
+                }));
     }
 
     private void displayExecutionResult(DatabaseService.ExecutionResult result, long executionTime) {
-        executionTimeLabel.setText(String.format("Execution time: %dms", executionTime));
+        executionTimeLabel.setText(String.format(result.isCached() ? "Execution time: %dms (cached)"
+                : "Execution time: %dms", executionTime));
+        executionTimeLabel.setTooltip(result.getStatementResults().isEmpty()
+                ? null : new Tooltip(describeStatementTimings(result.getStatementResults())));
 
         if (result.isSuccess()) {
             statusLabel.setText(result.getMessage());
@@ -652,71 +906,206 @@ public class MainController implements Initializable {
         } else {
             statusLabel.setText(result.getMessage());
             statusLabel.setStyle("-fx-text-fill: #dc2626;");
-            resultsTable.getColumns().clear();
-            resultsTable.getItems().clear();
+            clearResults();
+        }
+    }
+
+    /**
+     * Per-statement timings of a script, slowest first
+     */
+    private String describeStatementTimings(List<DatabaseService.StatementResult> statementResults) {
+        List<DatabaseService.StatementResult> slowest = new ArrayList<>(statementResults);
+        slowest.sort(Comparator.comparingLong(DatabaseService.StatementResult::getElapsedNanos).reversed());
+        long batched = statementResults.stream().filter(DatabaseService.StatementResult::isBatched).count();
+
+        StringBuilder text = new StringBuilder(String.format("%d statement(s), %d sent in batches%n",
+                statementResults.size(), batched));
+        for (DatabaseService.StatementResult statementResult : slowest.subList(0, Math.min(15, slowest.size()))) {
+            text.append(String.format("%n#%d  %.2fms  %s%s", statementResult.getNumber(),
+                    statementResult.getElapsedMillis(),
+                    statementResult.isSuccess() ? "" : "FAILED  ", statementResult.getStatement()));
         }
+        if (slowest.size() > 15) {
+            text.append(String.format("%n... and %d more", slowest.size() - 15));
+        }
+        return text.toString();
     }
 
+    /**
+     * Show a result through a lazy row list. Columns are kept when the layout matches the previous result.
+     */
     private void displayQueryResult(DatabaseService.QueryResult queryResult) {
-        // Clear existing columns and data
-        resultsTable.getColumns().clear();
-        resultsTable.getItems().clear();
+        List<String> columnNames = queryResult.getColumnNames();
+        if (columnNames.size() > WIDE_RESULT_COLUMNS) {
+            // Only the columns in view are attached to the table
+            columnWindow.show(columnNames);
+            resultColumnNames = Collections.emptyList();
+        } else if (columnWindow.isActive() || !columnNames.equals(resultColumnNames)) {
+            columnWindow.deactivate();
+            List<TableColumn<List<Object>, ?>> columns = new ArrayList<>(columnNames.size());
+            for (int i = 0; i < columnNames.size(); i++) {
+                columns.add(ResultTableCell.createColumn(columnNames.get(i), i));
+            }
+            resultsTable.getColumns().setAll(columns);
+            resultColumnNames = columnNames;
+        }
 
-        if (queryResult.getColumnCount() == 0) {
+        resultRows = new ResultRowList(queryResult);
+        resultRows.getFormatter().prefetchRows(0);
+        resultsTable.setItems(resultRows);
+        requestedViewKey = null;
+        // Keep the current sort and filter when the layout was reused
+        applyResultView();
+    }
+
+    /**
+     * Recompute the sorted/filtered index view of the current result in the background.
+     * Only the latest request is applied.
+     */
+    private void applyResultView() {
+        ResultRowList rows = resultRows;
+        if (rows == null) {
             return;
         }
-
-        // Create columns
-        for (int i = 0; i < queryResult.getColumnCount(); i++) {
-            final int columnIndex = i;
-            TableColumn<ObservableList<Object>, Object> column = new TableColumn<>(
-                    queryResult.getColumnNames().get(i)
-            );
-            column.setCellValueFactory(param ->
-                    new javafx.beans.property.SimpleObjectProperty<>(
-                            param.getValue().get(columnIndex)
-                    )
-            );
-            resultsTable.getColumns().add(column);
+        TableColumn<List<Object>, ?> sortColumn = resultsTable.getSortOrder().isEmpty()
+                ? null : resultsTable.getSortOrder().get(0);
+        int column = sortColumn != null && sortColumn.getUserData() instanceof Integer
+                ? (Integer) sortColumn.getUserData() : -1;
+        boolean ascending = sortColumn == null || sortColumn.getSortType() == TableColumn.SortType.ASCENDING;
+        String filter = resultFilterField.getText();
+
+        StreamingResultLoader stream = currentResultStream;
+        if (stream != null && (column >= 0 || !filter.isBlank())) {
+            // Sorting the rows loaded so far would only sort a prefix, so fetch the rest first.
+            // The stream's completion applies the view.
+            stream.loadAll();
+            requestedViewKey = null;
+            statusLabel.setText(String.format("Loaded %d row(s), sorting and filtering once all rows are loaded...",
+                    rows.getLoadedRowCount()));
+            return;
         }
 
-        // Add data
-        for (List<Object> row : queryResult.getRows()) {
-            ObservableList<Object> observableRow = FXCollections.observableArrayList(row);
-            resultsTable.getItems().add(observableRow);
+        // The table calls the sort policy again when items change, skip requests that change nothing
+        String viewKey = column + ":" + ascending + ":" + rows.getLoadedRowCount() + ":" + filter;
+        if (viewKey.equals(requestedViewKey)) {
+            return;
         }
+        requestedViewKey = viewKey;
+        long generation = ++resultViewGeneration;
+        long startTime = System.nanoTime();
+
+        ResultViewBuilder.buildAsync(rows.snapshot(), column, ascending, filter)
+                .whenComplete((view, error) -> Platform.runLater(() -> {
+                    if (generation != resultViewGeneration || rows != resultRows) {
+                        return;
+                    }
+                    if (error != null) {
+                        logger.warn("Could not sort or filter the results", error);
+                        return;
+                    }
+                    if (view == null && !rows.hasView()) {
+                        return;
+                    }
+                    rows.setView(view);
+                    statusLabel.setText(String.format("Showing %d of %d row(s) (%dms)", rows.size(),
+                            rows.getLoadedRowCount(), (System.nanoTime() - startTime) / 1_000_000));
+                }));
+    }
+
+    private void clearResults() {
+        resultViewGeneration++;
+        currentProfiler = null;
+        columnWindow.deactivate();
+        resultsTable.getColumns().clear();
+        resultsTable.setItems(FXCollections.observableArrayList());
+        resultColumnNames = Collections.emptyList();
+        resultRows = null;
     }
 
     // ===== DATABASE SCHEMA METHODS =====
 
-    private void loadDatabaseSchema() {
-        if (databaseService == null) return;
+    /**
+     * Read the tables, columns and foreign keys in the background and show them when done.
+     * Metadata needs a pooled connection, which may be held by open result streams.
+     */
+    /**
+     * Read the schema off the FX thread; completes on the FX thread once the tree shows it,
+     * or once the load failed or was superseded by a newer one
+     */
+    private CompletableFuture<Void> loadDatabaseSchema() {
+        if (databaseService == null) return CompletableFuture.completedFuture(null);
+
+        long generation = ++schemaGeneration;
+        DatabaseService service = databaseService;
+        CompletableFuture<Void> shown = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> readSchema(service), schemaExecutor)
+                .whenComplete((schema, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        logger.error("Failed to load database schema", error);
+                    } else if (generation == schemaGeneration) {
+                        showSchema(schema);
+                    }
+                    shown.complete(null);
+                }));
+        return shown;
+    }
 
+    private static SchemaSnapshot readSchema(DatabaseService service) {
+        SchemaSnapshot snapshot = new SchemaSnapshot();
         try {
-            List<String> tables = databaseService.getTables();
-            TreeItem<String> root = schemaTreeView.getRoot();
-            root.getChildren().clear();
-
-            for (String tableName : tables) {
-                TreeItem<String> tableItem = new TreeItem<>("📊 " + tableName);
-
-                // Add columns as children
-                try {
-                    List<DatabaseService.ColumnInfo> columns = databaseService.getTableColumns(tableName);
-                    for (DatabaseService.ColumnInfo column : columns) {
-                        TreeItem<String> columnItem = new TreeItem<>(
-                                String.format("🔹 %s (%s)", column.getName(), column.getType())
-                        );
-                        tableItem.getChildren().add(columnItem);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Failed to load columns for table: " + tableName, e);
-                }
+            snapshot.tables.addAll(service.getTables());
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+        for (String tableName : snapshot.tables) {
+            try {
+                snapshot.columns.putIfAbsent(tableName, service.getTableColumns(tableName));
+                // Join path completion follows these
+                snapshot.foreignKeys.putIfAbsent(tableName, service.getForeignKeys(tableName));
+            } catch (Exception e) {
+                logger.warn("Failed to load columns for table: " + tableName, e);
+            }
+        }
+        return snapshot;
+    }
+
+    private void showSchema(SchemaSnapshot schema) {
+        TreeItem<String> root = schemaTreeView.getRoot();
+        root.getChildren().clear();
+        for (String tableName : schema.tables) {
+            TreeItem<String> tableItem = new TreeItem<>("📊 " + tableName);
 
-                root.getChildren().add(tableItem);
+            // Add columns as children
+            for (DatabaseService.ColumnInfo column : schema.columns.getOrDefault(tableName, Collections.emptyList())) {
+                TreeItem<String> columnItem = new TreeItem<>(
+                        String.format("🔹 %s (%s)", column.getName(), column.getType())
+                );
+                tableItem.getChildren().add(columnItem);
             }
-        } catch (Exception e) {
-            logger.error("Failed to load database schema", e);
+
+            root.getChildren().add(tableItem);
+        }
+        if (sqlCompletion != null) {
+            sqlCompletion.setSchema(schema.columns, schema.foreignKeys);
+        }
+    }
+
+    /**
+     * Tables with their columns and foreign keys, read off the FX thread
+     */
+    private static class SchemaSnapshot {
+        final List<String> tables = new ArrayList<>();
+        final Map<String, List<DatabaseService.ColumnInfo>> columns = new LinkedHashMap<>();
+        final Map<String, List<DatabaseService.ForeignKey>> foreignKeys = new HashMap<>();
+    }
+
+    /**
+     * Update completion for the tables executed SQL created, altered or dropped
+     */
+    private void refreshSchemaAfter(String sql) {
+        if (sqlCompletion != null && !sqlCompletion.refreshAfter(sql, databaseService)) {
+            // Schema-wide change, such as DROP ALL OBJECTS
+            loadDatabaseSchema();
         }
     }
 
@@ -832,9 +1221,15 @@ public class MainController implements Initializable {
         if (databaseService != null) {
             connectionStatusLabel.setText("Database: Connected");
             connectionStatusLabel.setStyle("-fx-text-fill: #059669;");
+            ConnectionPool.PoolMetrics poolMetrics = databaseService.getPoolMetrics();
+            if (poolMetrics != null) {
+                connectionStatusLabel.setTooltip(new Tooltip("Connection pool: " + poolMetrics
+                        + "\nStatement cache: " + databaseService.getStatementCacheMetrics()
+                        + "\nResult cache: " + databaseService.getResultCacheMetrics()));
+            }
         } else {
-            connectionStatusLabel.setText("Database: Disconnected");
-            connectionStatusLabel.setStyle("-fx-text-fill: #dc2626;");
+            connectionStatusLabel.setText("Database: Starting...");
+            connectionStatusLabel.setStyle("-fx-text-fill: #d97706;");
         }
     }
 
@@ -953,7 +1348,34 @@ public class MainController implements Initializable {
     }
 
     private void formatSql() {
-        statusLabel.setText("SQL formatter not implemented yet");
+        String sql = sqlCodeArea.getText();
+        if (sql.isBlank()) {
+            statusLabel.setText("Nothing to format");
+            return;
+        }
+        statusLabel.setText("Formatting...");
+        long start = System.nanoTime();
+        SqlFormatter.formatAsync(sql).whenComplete((formatted, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                logger.error("Formatting failed", error);
+                statusLabel.setText("Could not format the SQL");
+                return;
+            }
+            // Typing while the formatter ran wins over the formatted text
+            if (!sqlCodeArea.getText().equals(sql)) {
+                statusLabel.setText("The editor changed while formatting, format again");
+                return;
+            }
+            if (!formatted.equals(sql)) {
+                // One undo step that never merges with the typing around it
+                sqlCodeArea.getUndoManager().preventMerge();
+                sqlCodeArea.replaceText(formatted);
+                sqlCodeArea.getUndoManager().preventMerge();
+                sqlCodeArea.moveTo(0);
+                sqlCodeArea.requestFollowCaret();
+            }
+            statusLabel.setText(String.format("SQL formatted (%dms)", (System.nanoTime() - start) / 1_000_000));
+        }));
     }
 
     private void analyzeSql() {
@@ -1012,6 +1434,47 @@ public class MainController implements Initializable {
         statusLabel.setText("Print content feature not implemented yet");
     }
 
+    /**
+     * Show null counts, ranges, distinct estimates and frequent values of the current result
+     */
+    private void showResultProfile() {
+        ColumnProfiler profiler = currentProfiler;
+        if (profiler == null) {
+            showWarning("No Results", "Run a query first to profile its columns.");
+            return;
+        }
+        long rows = profiler.getRowsProfiled();
+        boolean partial = currentResultStream != null;
+        profiler.snapshot().thenAccept(profiles -> Platform.runLater(() -> showProfileDialog(profiles, rows, partial)));
+    }
+
+    private void showProfileDialog(List<ColumnProfiler.ColumnProfile> profiles, long rows, boolean partial) {
+        TableView<ColumnProfiler.ColumnProfile> table = new TableView<>(FXCollections.observableArrayList(profiles));
+        table.getColumns().add(profileColumn("Column", "name"));
+        table.getColumns().add(profileColumn("Type", "type"));
+        table.getColumns().add(profileColumn("Nulls", "nullCount"));
+        table.getColumns().add(profileColumn("Min", "min"));
+        table.getColumns().add(profileColumn("Max", "max"));
+        table.getColumns().add(profileColumn("Distinct (approx.)", "distinctCount"));
+        table.getColumns().add(profileColumn("Top values", "topValuesText"));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefSize(820, 320);
+
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Result Profile");
+        dialog.setHeaderText(String.format("%d row(s) profiled%s", rows,
+                partial ? " so far, scroll the results to load and profile more" : ""));
+        dialog.getDialogPane().setContent(table);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.showAndWait();
+    }
+
+    private <T> TableColumn<ColumnProfiler.ColumnProfile, T> profileColumn(String title, String property) {
+        TableColumn<ColumnProfiler.ColumnProfile, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(new PropertyValueFactory<>(property));
+        return column;
+    }
+
     private void exportResults() {
         statusLabel.setText("Export results feature not implemented yet");
     }
@@ -1186,8 +1649,8 @@ public class MainController implements Initializable {
             // Clear the SQL editor
             clearEditor();
             // Reset results
-            resultsTable.getColumns().clear();
-            resultsTable.getItems().clear();
+            cancelResultStream();
+            clearResults();
             executionTimeLabel.setText("Execution time: 0ms");
             statusLabel.setText("Question reset - ready to start");
         }
@@ -1199,6 +1662,18 @@ public class MainController implements Initializable {
         if (clockTimer != null) {
             clockTimer.cancel();
         }
+        cancelResultStream();
+        if (executionScheduler != null) {
+            executionScheduler.close();
+        }
+        if (syntaxHighlighter != null) {
+            syntaxHighlighter.shutdown();
+        }
+        if (sqlCompletion != null) {
+            sqlCompletion.shutdown();
+        }
+        schemaExecutor.shutdownNow();
+        validateExecutor.shutdownNow();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,406 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Single-pass profile of every column of a query result: null count, min/max,
+ * an approximate distinct count (HyperLogLog) and the most frequent values
+ * (Space-Saving). Chunks are folded in on a background thread as they are fetched,
+ * so no follow-up aggregate queries are needed.
+ */
+public class ColumnProfiler {
+    private static final int TOP_K = 5;
+    private static final int TOP_K_COUNTERS = 64;
+    private static final ExecutorService profileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "result-profile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the profile thread; tasks for one profiler run in submission order
+    private ColumnStats[] stats;
+    private List<String> columnNames = Collections.emptyList();
+    private final AtomicLong rowsQueued = new AtomicLong();
+
+    /**
+     * Queue a chunk of rows to be folded into the profile
+     */
+    public void accept(DatabaseService.QueryResult chunk) {
+        rowsQueued.addAndGet(chunk.getRowCount());
+        profileExecutor.execute(() -> fold(chunk));
+    }
+
+    /**
+     * Profiles of all chunks accepted so far
+     */
+    public CompletableFuture<List<ColumnProfile>> snapshot() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<ColumnProfile> profiles = new ArrayList<>();
+            if (stats != null) {
+                for (int c = 0; c < stats.length; c++) {
+                    profiles.add(stats[c].toProfile(columnNames.get(c)));
+                }
+            }
+            return profiles;
+        }, profileExecutor);
+    }
+
+    public long getRowsProfiled() { return rowsQueued.get(); }
+
+    private void fold(DatabaseService.QueryResult chunk) {
+        if (stats == null) {
+            columnNames = chunk.getColumnNames();
+            stats = new ColumnStats[chunk.getColumnCount()];
+            for (int c = 0; c < stats.length; c++) {
+                stats[c] = new ColumnStats(chunk.getColumnType(c));
+            }
+        }
+        for (int c = 0; c < stats.length; c++) {
+            stats[c].fold(chunk.getColumn(c), chunk.getRowCount());
+        }
+    }
+
+    /**
+     * Running statistics for one column
+     */
+    private static final class ColumnStats {
+        private final ColumnVector.ColumnType type;
+        private final HyperLogLog distinct = new HyperLogLog();
+        private final SpaceSaving topValues = new SpaceSaving(TOP_K_COUNTERS);
+        private long rows;
+        private long nulls;
+        private long minLong = Long.MAX_VALUE;
+        private long maxLong = Long.MIN_VALUE;
+        private double minDouble = Double.POSITIVE_INFINITY;
+        private double maxDouble = Double.NEGATIVE_INFINITY;
+        private Comparable<Object> minValue;
+        private Comparable<Object> maxValue;
+
+        private ColumnStats(ColumnVector.ColumnType type) {
+            this.type = type;
+        }
+
+        void fold(ColumnVector vector, int rowCount) {
+            rows += rowCount;
+            if (vector instanceof ColumnVector.StringVector) {
+                foldDictionary((ColumnVector.StringVector) vector, rowCount);
+                return;
+            }
+            // Pre-aggregate the chunk so top-k merges one count per distinct value
+            Map<Object, long[]> chunkCounts = new HashMap<>();
+            for (int row = 0; row < rowCount; row++) {
+                if (vector.isNull(row)) {
+                    nulls++;
+                    continue;
+                }
+                Object key;
+                switch (type) {
+                    case INT:
+                    case LONG:
+                    case DATE:
+                    case BOOLEAN: {
+                        long value = type == ColumnVector.ColumnType.LONG ? vector.getLong(row) : vector.getInt(row);
+                        minLong = Math.min(minLong, value);
+                        maxLong = Math.max(maxLong, value);
+                        distinct.add(mix(value));
+                        key = value;
+                        break;
+                    }
+                    case DOUBLE: {
+                        double value = vector.getDouble(row);
+                        minDouble = Math.min(minDouble, value);
+                        maxDouble = Math.max(maxDouble, value);
+                        distinct.add(mix(Double.doubleToLongBits(value)));
+                        key = value;
+                        break;
+                    }
+                    case DECIMAL: {
+                        BigDecimal value = ((BigDecimal) vector.getObject(row)).stripTrailingZeros();
+                        updateMinMax(value);
+                        distinct.add(mix(value.hashCode()));
+                        key = value;
+                        break;
+                    }
+                    case TIMESTAMP: {
+                        Timestamp value = (Timestamp) vector.getObject(row);
+                        updateMinMax(value);
+                        distinct.add(mix(value.getTime() * 1_000_000L + value.getNanos() % 1_000_000));
+                        key = value;
+                        break;
+                    }
+                    default: {
+                        String value = vector.getString(row);
+                        updateMinMax(value);
+                        distinct.add(hash(value));
+                        key = value;
+                        break;
+                    }
+                }
+                chunkCounts.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+            topValues.merge(chunkCounts);
+        }
+
+        /**
+         * Dictionary columns are profiled per distinct value of the chunk, not per row
+         */
+        private void foldDictionary(ColumnVector.StringVector vector, int rowCount) {
+            long[] codeCounts = new long[vector.getDictionarySize()];
+            for (int row = 0; row < rowCount; row++) {
+                int code = vector.getCode(row);
+                if (code < 0) {
+                    nulls++;
+                } else {
+                    codeCounts[code]++;
+                }
+            }
+            Map<Object, long[]> chunkCounts = new HashMap<>();
+            for (int code = 0; code < codeCounts.length; code++) {
+                if (codeCounts[code] > 0) {
+                    String value = vector.getDictionaryValue(code);
+                    updateMinMax(value);
+                    distinct.add(hash(value));
+                    chunkCounts.put(value, new long[]{codeCounts[code]});
+                }
+            }
+            topValues.merge(chunkCounts);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void updateMinMax(Comparable<?> value) {
+            Comparable<Object> comparable = (Comparable<Object>) value;
+            if (minValue == null || comparable.compareTo(minValue) < 0) {
+                minValue = comparable;
+            }
+            if (maxValue == null || comparable.compareTo(maxValue) > 0) {
+                maxValue = comparable;
+            }
+        }
+
+        ColumnProfile toProfile(String name) {
+            boolean hasValues = rows > nulls;
+            String min = null;
+            String max = null;
+            if (hasValues) {
+                switch (type) {
+                    case INT:
+                    case LONG:
+                        min = Long.toString(minLong);
+                        max = Long.toString(maxLong);
+                        break;
+                    case DATE:
+                        min = LocalDate.ofEpochDay(minLong).toString();
+                        max = LocalDate.ofEpochDay(maxLong).toString();
+                        break;
+                    case BOOLEAN:
+                        min = Boolean.toString(minLong != 0);
+                        max = Boolean.toString(maxLong != 0);
+                        break;
+                    case DOUBLE:
+                        min = Double.toString(minDouble);
+                        max = Double.toString(maxDouble);
+                        break;
+                    case DECIMAL:
+                        min = ((BigDecimal) (Object) minValue).toPlainString();
+                        max = ((BigDecimal) (Object) maxValue).toPlainString();
+                        break;
+                    default:
+                        min = String.valueOf(minValue);
+                        max = String.valueOf(maxValue);
+                        break;
+                }
+            }
+            long distinctCount = hasValues ? Math.min(distinct.estimate(), rows - nulls) : 0;
+            return new ColumnProfile(name, type, rows, nulls, min, max, distinctCount, topValues.top(TOP_K, type));
+        }
+    }
+
+    /**
+     * HyperLogLog with 2^12 registers (about 1.6% standard error)
+     */
+    private static final class HyperLogLog {
+        private static final int PRECISION = 12;
+        private static final int REGISTERS = 1 << PRECISION;
+        private final byte[] registers = new byte[REGISTERS];
+
+        void add(long hash) {
+            int index = (int) (hash >>> (64 - PRECISION));
+            long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+            byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+            if (rank > registers[index]) {
+                registers[index] = rank;
+            }
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+            double estimate = alpha * REGISTERS * REGISTERS / sum;
+            if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+                // Linear counting is more accurate for small cardinalities
+                estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+            }
+            return Math.round(estimate);
+        }
+    }
+
+    /**
+     * Space-Saving heavy hitters, merged one pre-aggregated chunk at a time.
+     * Counts are upper bounds: a value that was evicted earlier may have occurred
+     * up to floor more times than its counter shows, recorded as its error.
+     */
+    private static final class SpaceSaving {
+        private final int capacity;
+        private final Map<Object, long[]> counters = new HashMap<>();
+        private long floor;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void merge(Map<Object, long[]> chunkCounts) {
+            chunkCounts.forEach((value, count) -> {
+                long[] counter = counters.get(value);
+                if (counter != null) {
+                    counter[0] += count[0];
+                } else {
+                    counters.put(value, new long[]{count[0] + floor, floor});
+                }
+            });
+            if (counters.size() <= capacity) {
+                return;
+            }
+            // Keep the largest counters; anything dropped occurred at most the largest dropped count
+            List<Map.Entry<Object, long[]>> entries = new ArrayList<>(counters.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+            floor = Math.max(floor, entries.get(capacity).getValue()[0]);
+            for (Map.Entry<Object, long[]> entry : entries.subList(capacity, entries.size())) {
+                counters.remove(entry.getKey());
+            }
+        }
+
+        List<TopValue> top(int k, ColumnVector.ColumnType type) {
+            return counters.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                    .limit(k)
+                    .map(entry -> new TopValue(display(entry.getKey(), type), entry.getValue()[0], entry.getValue()[1]))
+                    .collect(Collectors.toList());
+        }
+
+        private static String display(Object value, ColumnVector.ColumnType type) {
+            if (type == ColumnVector.ColumnType.DATE) {
+                return LocalDate.ofEpochDay((Long) value).toString();
+            }
+            if (type == ColumnVector.ColumnType.BOOLEAN) {
+                return Boolean.toString((Long) value != 0);
+            }
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).toPlainString();
+            }
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * MurmurHash3 finalizer, spreads integer keys over all 64 bits
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 64-bit FNV-1a over the string's chars, finalized with mix
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // DTOs
+
+    public static class ColumnProfile {
+        private final String name;
+        private final ColumnVector.ColumnType type;
+        private final long rowCount;
+        private final long nullCount;
+        private final String min;
+        private final String max;
+        private final long distinctCount;
+        private final List<TopValue> topValues;
+
+        public ColumnProfile(String name, ColumnVector.ColumnType type, long rowCount, long nullCount,
+                             String min, String max, long distinctCount, List<TopValue> topValues) {
+            this.name = name;
+            this.type = type;
+            this.rowCount = rowCount;
+            this.nullCount = nullCount;
+            this.min = min;
+            this.max = max;
+            this.distinctCount = distinctCount;
+            this.topValues = topValues;
+        }
+
+        public String getName() { return name; }
+        public ColumnVector.ColumnType getType() { return type; }
+        public long getRowCount() { return rowCount; }
+        public long getNullCount() { return nullCount; }
+        public String getMin() { return min; }
+        public String getMax() { return max; }
+        public long getDistinctCount() { return distinctCount; }
+        public List<TopValue> getTopValues() { return topValues; }
+
+        public String getTopValuesText() {
+            return topValues.stream().map(TopValue::toString).collect(Collectors.joining(", "));
+        }
+    }
+
+    public static class TopValue {
+        private final String value;
+        private final long count;
+        private final long error;
+
+        public TopValue(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getValue() { return value; }
+        public long getCount() { return count; }
+        public long getError() { return error; }
+
+        @Override
+        public String toString() {
+            return value + " (" + (error > 0 ? "~" : "") + count + ")";
+        }
+    }
+}
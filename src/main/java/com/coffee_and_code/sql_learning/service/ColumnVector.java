@@ -0,0 +1,708 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One column of a query result stored as a primitive array plus a null bitmap.
+ * Vectors are filled with typed JDBC getters while the result set is read,
+ * so numeric, date and repeated string values are never boxed per cell.
+ */
+public abstract class ColumnVector {
+    private static final int INITIAL_CAPACITY = 64;
+
+    public enum ColumnType { INT, LONG, DOUBLE, DECIMAL, DATE, TIMESTAMP, BOOLEAN, STRING, OBJECT }
+
+    protected int size;
+    private long[] nulls = new long[0];
+
+    /**
+     * Pick the vector implementation for a result set column
+     */
+    public static ColumnVector forColumn(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new IntVector();
+            case Types.BIGINT:
+                return new LongVector();
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return new DoubleVector();
+            case Types.REAL:
+                return new DoubleVector(true);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DecimalVector(Math.max(metaData.getScale(column), 0));
+            case Types.DATE:
+                return new DateVector();
+            case Types.TIMESTAMP:
+                return new TimestampVector();
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return new BooleanVector();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return new StringVector();
+            default:
+                return new ObjectVector();
+        }
+    }
+
+    /**
+     * Copy parts of the same column into one vector, in order
+     */
+    static ColumnVector concat(List<ColumnVector> parts) {
+        ColumnVector first = parts.get(0);
+        ColumnVector merged;
+        switch (first.getType()) {
+            case INT: merged = new IntVector(); break;
+            case LONG: merged = new LongVector(); break;
+            case DOUBLE: merged = new DoubleVector(); break;
+            case DECIMAL: merged = new DecimalVector(((DecimalVector) first).getScale()); break;
+            case DATE: merged = new DateVector(); break;
+            case TIMESTAMP: merged = new TimestampVector(); break;
+            case BOOLEAN: merged = new BooleanVector(); break;
+            case STRING: merged = new StringVector(); break;
+            default: merged = new ObjectVector(); break;
+        }
+        for (ColumnVector part : parts) {
+            for (int row = 0; row < part.size(); row++) {
+                merged.appendValue(part.getObject(row));
+            }
+        }
+        if (merged instanceof StringVector) {
+            ((StringVector) merged).seal();
+        }
+        return merged;
+    }
+
+    public abstract ColumnType getType();
+
+    /**
+     * Read the current row's value of the given column and append it
+     */
+    public abstract void append(ResultSet rs, int column) throws SQLException;
+
+    /**
+     * Append a value that is already materialized, converting it to the vector's representation
+     */
+    public abstract void appendValue(Object value);
+
+    /**
+     * Boxed value in the same Java type the JDBC driver's getObject would return
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Approximate heap footprint of this vector in bytes
+     */
+    public abstract long estimatedBytes();
+
+    public int size() { return size; }
+
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return word < nulls.length && (nulls[word] & (1L << row)) != 0;
+    }
+
+    protected void markNull(int row) {
+        int word = row >>> 6;
+        if (word >= nulls.length) {
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+        }
+        nulls[word] |= 1L << row;
+    }
+
+    protected long nullBitmapBytes() {
+        return 16 + nulls.length * 8L;
+    }
+
+    protected static int grow(int capacity, int required) {
+        return Math.max(required, Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+    }
+
+    public int getInt(int row) {
+        throw new UnsupportedOperationException(getType() + " column has no int values");
+    }
+
+    public long getLong(int row) {
+        throw new UnsupportedOperationException(getType() + " column has no long values");
+    }
+
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException(getType() + " column has no double values");
+    }
+
+    public String getString(int row) {
+        Object value = getObject(row);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 32-bit integers
+     */
+    public static final class IntVector extends ColumnVector {
+        private int[] values = new int[0];
+
+        @Override public ColumnType getType() { return ColumnType.INT; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            int value = rs.getInt(column);
+            add(value, rs.wasNull());
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            add(value == null ? 0 : ((Number) value).intValue(), value == null);
+        }
+
+        private void add(int value, boolean isNull) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            if (isNull) {
+                markNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override public int getInt(int row) { return values[row]; }
+        @Override public long getLong(int row) { return values[row]; }
+        @Override public double getDouble(int row) { return values[row]; }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16 + values.length * 4L + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * 64-bit integers
+     */
+    public static final class LongVector extends ColumnVector {
+        private long[] values = new long[0];
+
+        @Override public ColumnType getType() { return ColumnType.LONG; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            long value = rs.getLong(column);
+            add(value, rs.wasNull());
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            add(value == null ? 0 : ((Number) value).longValue(), value == null);
+        }
+
+        private void add(long value, boolean isNull) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            if (isNull) {
+                markNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override public long getLong(int row) { return values[row]; }
+        @Override public double getDouble(int row) { return values[row]; }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16 + values.length * 8L + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Double precision floating point
+     */
+    public static final class DoubleVector extends ColumnVector {
+        private final boolean singlePrecision;
+        private double[] values = new double[0];
+
+        public DoubleVector() {
+            this(false);
+        }
+
+        /**
+         * @param singlePrecision REAL column, whose floats are widened by their decimal form
+         */
+        public DoubleVector(boolean singlePrecision) {
+            this.singlePrecision = singlePrecision;
+        }
+
+        @Override public ColumnType getType() { return ColumnType.DOUBLE; }
+
+        public boolean isSinglePrecision() { return singlePrecision; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            double value = singlePrecision ? widen(rs.getFloat(column)) : rs.getDouble(column);
+            add(value, rs.wasNull());
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value instanceof Float) {
+                add(widen((Float) value), false);
+            } else {
+                add(value == null ? 0 : ((Number) value).doubleValue(), value == null);
+            }
+        }
+
+        /**
+         * The double closest to the float's shortest decimal form, so 1.1f shows as 1.1
+         * rather than 1.100000023841858
+         */
+        static double widen(float value) {
+            return Float.isFinite(value) ? Double.parseDouble(Float.toString(value)) : value;
+        }
+
+        private void add(double value, boolean isNull) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            if (isNull) {
+                markNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override public double getDouble(int row) { return values[row]; }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16 + values.length * 8L + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Fixed-scale decimals stored as unscaled longs. Values with a different scale
+     * or more than 18 digits are kept exactly in a small overflow map.
+     */
+    public static final class DecimalVector extends ColumnVector {
+        private final int scale;
+        private long[] unscaled = new long[0];
+        private Map<Integer, BigDecimal> overflow;
+
+        public DecimalVector(int scale) {
+            this.scale = scale;
+        }
+
+        @Override public ColumnType getType() { return ColumnType.DECIMAL; }
+
+        public int getScale() { return scale; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            appendValue(rs.getBigDecimal(column));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (size == unscaled.length) {
+                unscaled = Arrays.copyOf(unscaled, grow(unscaled.length, size + 1));
+            }
+            if (value == null) {
+                markNull(size);
+            } else {
+                BigDecimal decimal = atScale(value instanceof BigDecimal
+                        ? (BigDecimal) value : new BigDecimal(value.toString()), scale);
+                BigInteger unscaledValue = decimal.unscaledValue();
+                if (decimal.scale() == scale && unscaledValue.bitLength() < 64) {
+                    unscaled[size] = unscaledValue.longValue();
+                } else {
+                    if (overflow == null) {
+                        overflow = new HashMap<>();
+                    }
+                    overflow.put(size, decimal);
+                }
+            }
+            size++;
+        }
+
+        /**
+         * The same value at the given scale if that needs no rounding, as computed
+         * expressions such as AVG often differ from the column scale, otherwise unchanged
+         */
+        static BigDecimal atScale(BigDecimal decimal, int scale) {
+            if (decimal.scale() == scale) {
+                return decimal;
+            }
+            try {
+                return decimal.setScale(scale);
+            } catch (ArithmeticException e) {
+                return decimal;
+            }
+        }
+
+        /**
+         * True if the value could not be stored as an unscaled long at the column scale
+         */
+        public boolean isOverflow(int row) {
+            return overflow != null && overflow.containsKey(row);
+        }
+
+        /**
+         * True if any value is kept in the overflow map
+         */
+        public boolean hasOverflow() {
+            return overflow != null && !overflow.isEmpty();
+        }
+
+        public long getUnscaled(int row) { return unscaled[row]; }
+
+        public BigDecimal getDecimal(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            if (isOverflow(row)) {
+                return overflow.get(row);
+            }
+            return BigDecimal.valueOf(unscaled[row], scale);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isOverflow(row) ? overflow.get(row).doubleValue() : unscaled[row] / Math.pow(10, scale);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getDecimal(row);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long overflowBytes = overflow == null ? 0 : overflow.size() * 96L;
+            return 16 + unscaled.length * 8L + overflowBytes + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Dates stored as days since the epoch
+     */
+    public static final class DateVector extends ColumnVector {
+        private int[] epochDays = new int[0];
+
+        @Override public ColumnType getType() { return ColumnType.DATE; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            LocalDate date = rs.getObject(column, LocalDate.class);
+            add(date);
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value instanceof java.sql.Date) {
+                add(((java.sql.Date) value).toLocalDate());
+            } else {
+                add((LocalDate) value);
+            }
+        }
+
+        private void add(LocalDate date) {
+            if (size == epochDays.length) {
+                epochDays = Arrays.copyOf(epochDays, grow(epochDays.length, size + 1));
+            }
+            if (date == null) {
+                markNull(size);
+            } else {
+                epochDays[size] = (int) date.toEpochDay();
+            }
+            size++;
+        }
+
+        @Override public int getInt(int row) { return epochDays[row]; }
+        @Override public long getLong(int row) { return epochDays[row]; }
+
+        public LocalDate getLocalDate(int row) {
+            return isNull(row) ? null : LocalDate.ofEpochDay(epochDays[row]);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDays[row]));
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16 + epochDays.length * 4L + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Timestamps stored as nanoseconds since the epoch. Values outside about
+     * 1677-2262 don't fit a long and are kept in a small overflow map.
+     */
+    public static final class TimestampVector extends ColumnVector {
+        private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+        private long[] epochNanos = new long[0];
+        private Map<Integer, Timestamp> overflow;
+
+        @Override public ColumnType getType() { return ColumnType.TIMESTAMP; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            appendValue(rs.getTimestamp(column));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (size == epochNanos.length) {
+                epochNanos = Arrays.copyOf(epochNanos, grow(epochNanos.length, size + 1));
+            }
+            if (value == null) {
+                markNull(size);
+            } else {
+                Timestamp timestamp = value instanceof LocalDateTime
+                        ? Timestamp.valueOf((LocalDateTime) value) : (Timestamp) value;
+                try {
+                    epochNanos[size] = toEpochNanos(timestamp);
+                } catch (ArithmeticException e) {
+                    if (overflow == null) {
+                        overflow = new HashMap<>();
+                    }
+                    overflow.put(size, timestamp);
+                }
+            }
+            size++;
+        }
+
+        static long toEpochNanos(Timestamp timestamp) {
+            long seconds = Math.floorDiv(timestamp.getTime(), 1000L);
+            return Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND), timestamp.getNanos());
+        }
+
+        static Timestamp fromEpochNanos(long nanos) {
+            Timestamp timestamp = new Timestamp(Math.floorDiv(nanos, NANOS_PER_SECOND) * 1000L);
+            timestamp.setNanos((int) Math.floorMod(nanos, NANOS_PER_SECOND));
+            return timestamp;
+        }
+
+        public boolean isOverflow(int row) {
+            return overflow != null && overflow.containsKey(row);
+        }
+
+        /**
+         * True if any value is kept in the overflow map
+         */
+        public boolean hasOverflow() {
+            return overflow != null && !overflow.isEmpty();
+        }
+
+        @Override public long getLong(int row) { return epochNanos[row]; }
+
+        @Override
+        public Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return isOverflow(row) ? overflow.get(row) : fromEpochNanos(epochNanos[row]);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long overflowBytes = overflow == null ? 0 : overflow.size() * 64L;
+            return 16 + epochNanos.length * 8L + overflowBytes + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Booleans packed into a bitmap
+     */
+    public static final class BooleanVector extends ColumnVector {
+        private long[] bits = new long[0];
+
+        @Override public ColumnType getType() { return ColumnType.BOOLEAN; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            boolean value = rs.getBoolean(column);
+            add(value, rs.wasNull());
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            add(Boolean.TRUE.equals(value), value == null);
+        }
+
+        private void add(boolean value, boolean isNull) {
+            int word = size >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, grow(bits.length, word + 1));
+            }
+            if (isNull) {
+                markNull(size);
+            } else if (value) {
+                bits[word] |= 1L << size;
+            }
+            size++;
+        }
+
+        public boolean getBoolean(int row) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override public int getInt(int row) { return getBoolean(row) ? 1 : 0; }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : getBoolean(row);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 16 + bits.length * 8L + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings: each row stores a code into the list of distinct values
+     */
+    public static final class StringVector extends ColumnVector {
+        private int[] codes = new int[0];
+        private String[] dictionary = new String[16];
+        private int dictionarySize;
+        private Map<String, Integer> lookup = new HashMap<>();
+        private long dictionaryBytes;
+
+        @Override public ColumnType getType() { return ColumnType.STRING; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            appendValue(rs.getString(column));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, size + 1));
+            }
+            if (value == null) {
+                markNull(size);
+                codes[size] = -1;
+            } else {
+                codes[size] = encode(value.toString());
+            }
+            size++;
+        }
+
+        private int encode(String value) {
+            Integer code = lookup.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+            }
+            dictionary[dictionarySize] = value;
+            lookup.put(value, dictionarySize);
+            dictionaryBytes += 56 + 2L * value.length();
+            return dictionarySize++;
+        }
+
+        /**
+         * Drop the build-time lookup table once no more rows will be appended
+         */
+        void seal() {
+            lookup = null;
+        }
+
+        public int getCode(int row) { return codes[row]; }
+        public int getDictionarySize() { return dictionarySize; }
+        public String getDictionaryValue(int code) { return dictionary[code]; }
+
+        @Override
+        public String getString(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return getString(row);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long lookupBytes = lookup == null ? 0 : lookup.size() * 48L;
+            return 16 + codes.length * 4L + dictionary.length * 8L + dictionaryBytes + lookupBytes
+                    + nullBitmapBytes();
+        }
+    }
+
+    /**
+     * Fallback for types without a primitive representation (timestamps, binary, arrays, ...)
+     */
+    public static final class ObjectVector extends ColumnVector {
+        private Object[] values = new Object[0];
+
+        @Override public ColumnType getType() { return ColumnType.OBJECT; }
+
+        @Override
+        public void append(ResultSet rs, int column) throws SQLException {
+            appendValue(rs.getObject(column));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            if (value == null) {
+                markNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            // Reference plus a rough per-object cost
+            return 16 + values.length * 8L + size * 32L + nullBitmapBytes();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What can be completed at the caret: the word typed so far, whether a table name
+ * or the columns of a qualified table are expected, and the tables and aliases the
+ * caret's statement refers to. Every table the statement names is in scope,
+ * subqueries are not scoped separately.
+ */
+public final class CompletionContext {
+
+    public enum Expected {
+        /** Keywords, functions, tables, columns in scope and aliases */
+        ANY,
+        /** After FROM, JOIN, INTO, UPDATE or TABLE */
+        TABLE,
+        /** After table. or alias. */
+        COLUMN_OF
+    }
+
+    private final String prefix;
+    private final int prefixStart;
+    private final Expected expected;
+    private final String qualifierTable;
+    private final boolean afterJoin;
+    // Upper-cased alias or table name -> upper-cased table name
+    private final Map<String, String> aliases;
+    private final Map<String, String> aliasTexts;
+    private final Set<String> scopeTables;
+
+    private CompletionContext(String prefix, int prefixStart, Expected expected, String qualifierTable,
+                              boolean afterJoin, Map<String, String> aliases, Map<String, String> aliasTexts) {
+        this.prefix = prefix;
+        this.prefixStart = prefixStart;
+        this.expected = expected;
+        this.qualifierTable = qualifierTable;
+        this.afterJoin = afterJoin;
+        this.aliases = aliases;
+        this.aliasTexts = aliasTexts;
+        this.scopeTables = new HashSet<>(aliases.values());
+    }
+
+    /**
+     * Context at the caret for the text of one statement that starts at the given
+     * document offset; the caret and the prefix start are document offsets
+     */
+    public static CompletionContext at(String statement, int offset, int caret) {
+        CompletionContext context = at(statement, caret - offset);
+        return context == null ? null : new CompletionContext(context.prefix, context.prefixStart + offset,
+                context.expected, context.qualifierTable, context.afterJoin, context.aliases, context.aliasTexts);
+    }
+
+    /**
+     * Context at the caret, or null when the caret is inside a comment or literal
+     */
+    public static CompletionContext at(String text, int caret) {
+        // Find the statement around the caret and make sure the caret is in plain SQL
+        SqlLexer lexer = new SqlLexer().reset(text);
+        int statementStart = 0;
+        int statementEnd = text.length();
+        while (lexer.next()) {
+            int start = lexer.getTokenStart();
+            int end = lexer.getTokenEnd();
+            if (start >= caret) {
+                if (lexer.getTokenType() == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ';') {
+                    statementEnd = start;
+                    break;
+                }
+                continue;
+            }
+            switch (lexer.getTokenType()) {
+                case STRING, COMMENT, QUOTED_IDENTIFIER -> {
+                    if (caret < end || caret == end && lexer.getState() != SqlLexer.State.NORMAL
+                            || caret == end && lexer.getTokenType() == SqlLexer.TokenType.COMMENT
+                                    && text.startsWith("--", start)) {
+                        return null;
+                    }
+                }
+                case PUNCTUATION -> {
+                    if (lexer.tokenChar() == ';') {
+                        statementStart = end;
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        int prefixStart = caret;
+        while (prefixStart > statementStart && isWordPart(text.charAt(prefixStart - 1))) {
+            prefixStart--;
+        }
+        String prefix = text.substring(prefixStart, caret);
+
+        Map<String, String> aliases = new HashMap<>();
+        Map<String, String> aliasTexts = new HashMap<>();
+        String previousKeyword = scope(text, statementStart, statementEnd, prefixStart, caret, aliases, aliasTexts);
+
+        if (prefixStart > statementStart && text.charAt(prefixStart - 1) == '.') {
+            int qualifierEnd = prefixStart - 1;
+            int qualifierStart = qualifierEnd;
+            while (qualifierStart > statementStart && isWordPart(text.charAt(qualifierStart - 1))) {
+                qualifierStart--;
+            }
+            if (qualifierStart < qualifierEnd) {
+                String qualifier = text.substring(qualifierStart, qualifierEnd).toUpperCase(Locale.ROOT);
+                return new CompletionContext(prefix, prefixStart, Expected.COLUMN_OF,
+                        aliases.getOrDefault(qualifier, qualifier), false, aliases, aliasTexts);
+            }
+        }
+        Expected expected = previousKeyword != null && switch (previousKeyword) {
+            case "FROM", "JOIN", "INTO", "UPDATE", "TABLE" -> true;
+            default -> false;
+        } ? Expected.TABLE : Expected.ANY;
+        return new CompletionContext(prefix, prefixStart, expected, null, "JOIN".equals(previousKeyword),
+                aliases, aliasTexts);
+    }
+
+    /**
+     * Collect the tables the statement names, with their aliases. Returns the keyword
+     * directly before the caret's word, "FROM" for a comma inside a FROM clause.
+     */
+    private static String scope(String text, int from, int to, int prefixStart, int caret,
+                                Map<String, String> aliases, Map<String, String> aliasTexts) {
+        SqlLexer lexer = new SqlLexer().reset(text, from, to, SqlLexer.State.NORMAL);
+        String keywordBeforePrefix = null;
+        boolean fromClause = false;
+        // 0: not after a table reference keyword, 1: table name expected, 2: alias may follow
+        int reference = 0;
+        String table = null;
+        while (lexer.next()) {
+            SqlLexer.TokenType type = lexer.getTokenType();
+            if (type == SqlLexer.TokenType.WHITESPACE || type == SqlLexer.TokenType.COMMENT
+                    || lexer.getTokenStart() == prefixStart && prefixStart < caret) {
+                // The word being typed is not a table yet
+                continue;
+            }
+            boolean beforePrefix = lexer.getTokenEnd() <= prefixStart;
+            String keyword = type == SqlLexer.TokenType.KEYWORD ? lexer.tokenText().toUpperCase(Locale.ROOT) : null;
+            if (beforePrefix) {
+                keywordBeforePrefix = keyword;
+                if (keyword == null && fromClause && type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ',') {
+                    keywordBeforePrefix = "FROM";
+                }
+            }
+
+            if (keyword != null) {
+                switch (keyword) {
+                    case "FROM", "JOIN", "UPDATE", "INTO" -> {
+                        fromClause = !"INTO".equals(keyword);
+                        reference = 1;
+                        continue;
+                    }
+                    case "AS" -> {
+                        if (reference == 2) {
+                            continue;
+                        }
+                    }
+                    case "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "ON", "USING", "SET", "VALUES",
+                         "SELECT", "UNION", "EXCEPT", "INTERSECT" -> fromClause = false;
+                    default -> { }
+                }
+                reference = 0;
+                continue;
+            }
+
+            if (type == SqlLexer.TokenType.IDENTIFIER || type == SqlLexer.TokenType.QUOTED_IDENTIFIER) {
+                String name = identifier(lexer);
+                if (reference == 1) {
+                    table = name;
+                    addAlias(table, table, aliases, aliasTexts);
+                    reference = 2;
+                } else if (reference == 2) {
+                    addAlias(name, table, aliases, aliasTexts);
+                    reference = 0;
+                }
+            } else if (type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == '.' && reference == 2) {
+                // schema.table, the table part follows
+                aliases.remove(table.toUpperCase(Locale.ROOT));
+                reference = 1;
+            } else if (type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ',' && fromClause) {
+                reference = 1;
+            } else {
+                reference = 0;
+            }
+        }
+        return keywordBeforePrefix;
+    }
+
+    private static void addAlias(String name, String table, Map<String, String> aliases, Map<String, String> aliasTexts) {
+        String key = name.toUpperCase(Locale.ROOT);
+        aliases.put(key, table.toUpperCase(Locale.ROOT));
+        aliasTexts.put(key, name);
+    }
+
+    /**
+     * Identifier text without its quotes
+     */
+    private static String identifier(SqlLexer lexer) {
+        String name = lexer.tokenText();
+        if (lexer.getTokenType() == SqlLexer.TokenType.QUOTED_IDENTIFIER && name.length() >= 2) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /** The word typed so far, may be empty */
+    public String getPrefix() { return prefix; }
+    /** Where the typed word starts, a picked suggestion replaces the text from here to the caret */
+    public int getPrefixStart() { return prefixStart; }
+    public Expected getExpected() { return expected; }
+    /** Upper-cased table the qualifier before the dot refers to, set for COLUMN_OF */
+    public String getQualifierTable() { return qualifierTable; }
+    /** Whether the caret's word follows JOIN */
+    public boolean isAfterJoin() { return afterJoin; }
+    /** Upper-cased aliases and table names of the statement, each mapped to its table */
+    public Map<String, String> getAliases() { return Collections.unmodifiableMap(aliases); }
+    /** Upper-cased names of the tables in scope */
+    public Set<String> getScopeTables() { return scopeTables; }
+
+    /**
+     * How the statement refers to an upper-cased table: its alias, otherwise its name as written
+     */
+    public String getReference(String table) {
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            if (alias.getValue().equals(table) && !alias.getKey().equals(table)) {
+                return getAliasText(alias.getKey());
+            }
+        }
+        return getAliasText(table);
+    }
+
+    /**
+     * An alias as the user wrote it
+     */
+    public String getAliasText(String alias) {
+        return aliasTexts.getOrDefault(alias, alias);
+    }
+}
@@ -0,0 +1,437 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Prefix trie of completion candidates: SQL keywords and functions plus the tables
+ * and columns of the current schema. Lookups ignore case, visit only the subtree of
+ * the typed prefix and keep the best matches in a bounded heap, ranked by how often
+ * the user picked a word. Tables are added and removed one at a time, so a DDL
+ * statement only updates the tables it touched.
+ *
+ * After JOIN the table candidates also come as complete join clauses, following the
+ * shortest foreign key path from the tables the statement already uses.
+ *
+ * Not thread-safe, the editor uses it from the FX thread.
+ */
+public class CompletionIndex {
+
+    /**
+     * Candidate kinds, in the order they rank between words picked equally often
+     */
+    public enum Kind { JOIN, COLUMN, ALIAS, TABLE, KEYWORD, FUNCTION }
+
+    /** Longest join path offered, in joins */
+    private static final int MAX_JOINS = 4;
+
+    private final Node root = new Node();
+    // Upper-cased table name -> upper-cased column name -> column
+    private final Map<String, Map<String, DatabaseService.ColumnInfo>> tables = new HashMap<>();
+    private final Map<String, Integer> uses = new HashMap<>();
+    private final ForeignKeyGraph foreignKeys = new ForeignKeyGraph();
+
+    public CompletionIndex() {
+        for (String keyword : SqlLexer.getKeywords()) {
+            add(keyword, Kind.KEYWORD, null);
+        }
+        for (String function : SqlLexer.getFunctions()) {
+            add(function, Kind.FUNCTION, null);
+        }
+    }
+
+    /**
+     * Replace every table, column and foreign key with the given schema, keyed by table name
+     */
+    public void setTables(Map<String, List<DatabaseService.ColumnInfo>> schema,
+                          Map<String, List<DatabaseService.ForeignKey>> schemaForeignKeys) {
+        for (String table : new ArrayList<>(tables.keySet())) {
+            removeTable(table);
+        }
+        foreignKeys.clear();
+        schema.forEach((table, columns) ->
+                putTable(table, columns, schemaForeignKeys.getOrDefault(table, Collections.emptyList())));
+    }
+
+    /**
+     * Add a table or replace the columns and foreign keys of one already indexed
+     */
+    public void putTable(String table, List<DatabaseService.ColumnInfo> columns,
+                         List<DatabaseService.ForeignKey> tableForeignKeys) {
+        removeColumns(table);
+        foreignKeys.putTable(table, tableForeignKeys);
+        String key = upper(table);
+        Map<String, DatabaseService.ColumnInfo> byName = new LinkedHashMap<>();
+        for (DatabaseService.ColumnInfo column : columns) {
+            byName.put(upper(column.getName()), column);
+        }
+        tables.put(key, byName);
+        add(table, Kind.TABLE, null);
+        for (DatabaseService.ColumnInfo column : columns) {
+            add(column.getName(), Kind.COLUMN, key);
+        }
+    }
+
+    public void removeTable(String table) {
+        removeColumns(table);
+        foreignKeys.removeTable(table);
+    }
+
+    private void removeColumns(String table) {
+        String key = upper(table);
+        Map<String, DatabaseService.ColumnInfo> columns = tables.remove(key);
+        if (columns == null) {
+            return;
+        }
+        remove(table, Kind.TABLE, null);
+        for (DatabaseService.ColumnInfo column : columns.values()) {
+            remove(column.getName(), Kind.COLUMN, key);
+        }
+    }
+
+    /**
+     * Upper-cased names of the indexed tables
+     */
+    public Collection<String> getTables() {
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    /**
+     * Count a pick of the word, picked words rank first from now on
+     */
+    public void recordUse(String word) {
+        uses.merge(upper(word), 1, Integer::sum);
+    }
+
+    public int getUses(String word) {
+        return uses.getOrDefault(upper(word), 0);
+    }
+
+    /**
+     * Best candidates for the completion context, at most limit of them
+     */
+    public List<Suggestion> suggest(CompletionContext context, int limit) {
+        String prefix = upper(context.getPrefix());
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        if (context.getExpected() == CompletionContext.Expected.COLUMN_OF) {
+            // table. or alias. completes the columns of that table only
+            Map<String, DatabaseService.ColumnInfo> columns = tables.get(context.getQualifierTable());
+            if (columns != null) {
+                for (Map.Entry<String, DatabaseService.ColumnInfo> column : columns.entrySet()) {
+                    if (column.getKey().startsWith(prefix) && column.getKey().length() > prefix.length()) {
+                        offer(best, limit, new Suggestion(column.getValue().getName(), Kind.COLUMN,
+                                column.getValue().getType(), getUses(column.getKey())));
+                    }
+                }
+            }
+            return drain(best);
+        }
+
+        if (context.isAfterJoin() && !context.getScopeTables().isEmpty()) {
+            joins(prefix, context, best, limit);
+        }
+
+        if (context.getExpected() == CompletionContext.Expected.ANY) {
+            for (Map.Entry<String, String> alias : context.getAliases().entrySet()) {
+                String name = alias.getKey();
+                if (name.startsWith(prefix) && name.length() > prefix.length() && !name.equals(alias.getValue())) {
+                    offer(best, limit, new Suggestion(context.getAliasText(name), Kind.ALIAS,
+                            alias.getValue(), getUses(name)));
+                }
+            }
+        }
+
+        Node node = find(prefix);
+        if (node != null) {
+            collect(node, prefix.length(), context, best, limit);
+        }
+        return drain(best);
+    }
+
+    private void collect(Node node, int length, CompletionContext context, PriorityQueue<Suggestion> best, int limit) {
+        if (node.entries != null && length > context.getPrefix().length()) {
+            for (Entry entry : node.entries) {
+                if (accepts(entry, context)) {
+                    offer(best, limit, new Suggestion(entry.text, entry.kind, detail(entry, context),
+                            getUses(entry.text)));
+                }
+            }
+        }
+        for (int i = 0; i < node.size; i++) {
+            collect(node.children[i], length + 1, context, best, limit);
+        }
+    }
+
+    /**
+     * Offer a join clause for every table the prefix matches and the statement's tables reach
+     */
+    private void joins(String prefix, CompletionContext context, PriorityQueue<Suggestion> best, int limit) {
+        ForeignKeyGraph.Paths paths = null;
+        boolean lowerCase = !context.getPrefix().isEmpty()
+                && context.getPrefix().equals(context.getPrefix().toLowerCase(Locale.ROOT));
+        for (String table : tables.keySet()) {
+            if (!table.startsWith(prefix) || context.getScopeTables().contains(table)) {
+                continue;
+            }
+            if (paths == null) {
+                paths = foreignKeys.pathsFrom(context.getScopeTables(), MAX_JOINS);
+            }
+            List<ForeignKeyGraph.Step> path = paths.pathTo(table);
+            if (path == null || path.isEmpty()) {
+                continue;
+            }
+            String clause = joinClause(path, context, lowerCase);
+            String detail = path.size() == 1 ? "foreign key"
+                    : "via " + String.join(", ", path.subList(0, path.size() - 1).stream()
+                    .map(ForeignKeyGraph.Step::getTable).toList());
+            offer(best, limit, new Suggestion(clause, Kind.JOIN, detail, getUses(clause)));
+        }
+    }
+
+    /**
+     * Text following JOIN for the path, e.g. "employee_projects ep ON ep.employee_id = e.id
+     * JOIN projects p ON p.id = ep.project_id". Tables get their initials as aliases.
+     */
+    private static String joinClause(List<ForeignKeyGraph.Step> path, CompletionContext context, boolean lowerCase) {
+        Map<String, String> references = new HashMap<>();
+        List<String> taken = new ArrayList<>(context.getAliases().keySet());
+        StringBuilder clause = new StringBuilder();
+        for (ForeignKeyGraph.Step step : path) {
+            String table = step.getTable();
+            String previous = references.containsKey(step.getPrevious())
+                    ? references.get(step.getPrevious()) : context.getReference(step.getPrevious());
+            String alias = alias(table, taken);
+            references.put(table, alias);
+
+            DatabaseService.ForeignKey foreignKey = step.getForeignKey();
+            boolean declaredHere = upper(foreignKey.getTable()).equals(table);
+            List<String> columns = declaredHere ? foreignKey.getColumns() : foreignKey.getReferencedColumns();
+            List<String> previousColumns = declaredHere ? foreignKey.getReferencedColumns() : foreignKey.getColumns();
+
+            if (clause.length() > 0) {
+                clause.append(" JOIN ");
+            }
+            clause.append(identifier(table, lowerCase)).append(' ').append(alias).append(" ON ");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    clause.append(" AND ");
+                }
+                clause.append(alias).append('.').append(identifier(columns.get(i), lowerCase))
+                        .append(" = ").append(previous).append('.').append(identifier(previousColumns.get(i), lowerCase));
+            }
+        }
+        return clause.toString();
+    }
+
+    /**
+     * Initials of the table's words, numbered when already taken
+     */
+    private static String alias(String table, List<String> taken) {
+        StringBuilder initials = new StringBuilder();
+        for (String word : table.split("_")) {
+            if (!word.isEmpty()) {
+                initials.append(Character.toLowerCase(word.charAt(0)));
+            }
+        }
+        String base = initials.length() > 0 ? initials.toString() : "t";
+        String alias = base;
+        for (int n = 2; taken.contains(upper(alias)); n++) {
+            alias = base + n;
+        }
+        taken.add(upper(alias));
+        return alias;
+    }
+
+    private static String identifier(String name, boolean lowerCase) {
+        return lowerCase ? name.toLowerCase(Locale.ROOT) : name;
+    }
+
+    private boolean accepts(Entry entry, CompletionContext context) {
+        if (context.getExpected() == CompletionContext.Expected.TABLE) {
+            return entry.kind == Kind.TABLE;
+        }
+        if (entry.kind != Kind.COLUMN || context.getScopeTables().isEmpty()) {
+            // Before the FROM clause is written every column is a candidate
+            return true;
+        }
+        for (String table : entry.tables) {
+            if (context.getScopeTables().contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String detail(Entry entry, CompletionContext context) {
+        switch (entry.kind) {
+            case COLUMN -> {
+                String owner = entry.tables.get(0);
+                for (String table : entry.tables) {
+                    if (context.getScopeTables().contains(table)) {
+                        owner = table;
+                        break;
+                    }
+                }
+                DatabaseService.ColumnInfo column = tables.get(owner).get(upper(entry.text));
+                return owner + " · " + column.getType();
+            }
+            case TABLE -> {
+                return tables.get(upper(entry.text)).size() + " columns";
+            }
+            case FUNCTION -> {
+                return "function";
+            }
+            default -> {
+                return "keyword";
+            }
+        }
+    }
+
+    private static void offer(PriorityQueue<Suggestion> best, int limit, Suggestion suggestion) {
+        best.add(suggestion);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private static List<Suggestion> drain(PriorityQueue<Suggestion> best) {
+        Suggestion[] sorted = best.toArray(new Suggestion[0]);
+        Arrays.sort(sorted, RANKING);
+        return Arrays.asList(sorted);
+    }
+
+    // ===== TRIE =====
+
+    private void add(String text, Kind kind, String table) {
+        Node node = root;
+        String key = upper(text);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i), true);
+        }
+        if (node.entries == null) {
+            node.entries = new ArrayList<>(1);
+        }
+        for (Entry entry : node.entries) {
+            if (entry.kind == kind) {
+                if (table != null && !entry.tables.contains(table)) {
+                    entry.tables.add(table);
+                }
+                return;
+            }
+        }
+        Entry entry = new Entry(text, kind);
+        if (table != null) {
+            entry.tables.add(table);
+        }
+        node.entries.add(entry);
+    }
+
+    private void remove(String text, Kind kind, String table) {
+        Node node = find(upper(text));
+        if (node == null || node.entries == null) {
+            return;
+        }
+        node.entries.removeIf(entry -> entry.kind == kind
+                && (table == null || entry.tables.remove(table) && entry.tables.isEmpty()));
+        if (node.entries.isEmpty()) {
+            node.entries = null;
+        }
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i), false);
+        }
+        return node;
+    }
+
+    private static String upper(String text) {
+        return text.toUpperCase(Locale.ROOT);
+    }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt(Suggestion::getUses).reversed()
+            .thenComparing(Suggestion::getKind)
+            .thenComparingInt(suggestion -> suggestion.getText().length())
+            .thenComparing(Suggestion::getText, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Trie node, children are kept sorted by character
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        private List<Entry> entries;
+
+        private Node child(char c, boolean create) {
+            int index = Arrays.binarySearch(keys, 0, size, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            index = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(children, index, children, index + 1, size - index);
+            Node node = new Node();
+            keys[index] = c;
+            children[index] = node;
+            size++;
+            return node;
+        }
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final Kind kind;
+        // Tables having a column with this name
+        private final List<String> tables = new ArrayList<>(1);
+
+        private Entry(String text, Kind kind) {
+            this.text = text;
+            this.kind = kind;
+        }
+    }
+
+    public static class Suggestion {
+        private final String text;
+        private final Kind kind;
+        private final String detail;
+        private final int uses;
+
+        public Suggestion(String text, Kind kind, String detail, int uses) {
+            this.text = text;
+            this.kind = kind;
+            this.detail = detail;
+            this.uses = uses;
+        }
+
+        public String getText() { return text; }
+        public Kind getKind() { return kind; }
+        public String getDetail() { return detail; }
+        public int getUses() { return uses; }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool so that query execution, validation and schema
+ * browsing each get their own H2 session instead of sharing one connection.
+ *
+ * Besides the pooled connections it keeps one pinned session connection for the
+ * editor. Its transaction and session settings survive between executions, so a
+ * learner can BEGIN in one run and COMMIT in the next.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 1;
+    public static final String DEFAULT_SCHEMA = "PUBLIC";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+
+    // Idle connections, most recently returned first so warm sessions get reused
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // The editor's session connection, opened on first use and used by one lease at a time
+    private final Semaphore sessionPermit = new Semaphore(1, true);
+    private volatile Connection sessionConnection;
+
+    // One prepared statement cache per pooled connection, dropped when the schema version changes
+    private final int statementCacheSize = Integer.getInteger("sqllearning.pool.statementCacheSize", 64);
+    private final Map<Connection, PreparedStatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final AtomicLong schemaVersion = new AtomicLong();
+    private final PreparedStatementCache.Counters statementCacheCounters = new PreparedStatementCache.Counters();
+
+    // Default schema each connection was last switched to; a missing entry means unknown
+    private final Map<Connection, String> connectionSchemas = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder failedHealthChecks = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long acquireTimeoutMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid pool size: min=%d, max=%d", minSize, maxSize));
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Open the minimum number of connections up front so the first queries don't pay for it
+     */
+    public void warmUp() throws SQLException {
+        while (totalConnections.get() < minSize) {
+            idle.offerLast(createConnection());
+        }
+        logger.info("Connection pool warmed up with {} connection(s) (max {})", totalConnections.get(), maxSize);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the acquire timeout if the pool is exhausted.
+     * The returned lease must be closed to give the connection back.
+     */
+    public Lease acquire() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new SQLTimeoutException(String.format(
+                        "Timed out after %dms waiting for a database connection", acquireTimeoutMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection connection = pollHealthyConnection();
+            if (connection == null) {
+                connection = createConnection();
+            }
+            recordWait(System.nanoTime() - start);
+            peakActive.accumulateAndGet(activeConnections.incrementAndGet(), Math::max);
+            return new Lease(connection, false);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrow the editor's session connection, waiting up to the acquire timeout while another
+     * execution uses it. Closing the lease keeps the connection and its open transaction.
+     */
+    public Lease acquireSession() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!sessionPermit.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new SQLTimeoutException(String.format(
+                        "Timed out after %dms waiting for the editor session", acquireTimeoutMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the editor session", e);
+        }
+
+        try {
+            Connection connection = sessionConnection;
+            if (connection != null && !isHealthy(connection)) {
+                failedHealthChecks.increment();
+                logger.warn("Editor session connection was lost, opening a new one");
+                discard(connection);
+                connection = null;
+            }
+            if (connection == null) {
+                connection = createConnection();
+                sessionConnection = connection;
+            }
+            recordWait(System.nanoTime() - start);
+            return new Lease(connection, true);
+        } catch (SQLException | RuntimeException e) {
+            sessionPermit.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the editor session has a transaction that is neither committed nor rolled back
+     */
+    public boolean isSessionInTransaction() {
+        Connection connection = sessionConnection;
+        try {
+            return connection != null && !connection.isClosed() && !connection.getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Roll back the editor session's open transaction, e.g. before the database is reset
+     *
+     * @return whether there was uncommitted work to roll back
+     */
+    public boolean rollbackSession() throws SQLException {
+        try (Lease lease = acquireSession()) {
+            Connection connection = lease.getConnection();
+            if (connection.getAutoCommit()) {
+                return false;
+            }
+            connection.rollback();
+            connection.setAutoCommit(true);
+            return true;
+        }
+    }
+
+    /**
+     * Take idle connections until one passes the health check
+     */
+    private Connection pollHealthyConnection() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isHealthy(connection)) {
+                return connection;
+            }
+            failedHealthChecks.increment();
+            logger.warn("Discarding unhealthy pooled connection");
+            discard(connection);
+        }
+        return null;
+    }
+
+    private boolean isHealthy(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection createConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        if (statementCacheSize > 0) {
+            statementCaches.put(connection, new PreparedStatementCache(
+                    connection, statementCacheSize, schemaVersion, statementCacheCounters));
+        }
+        return connection;
+    }
+
+    private void discard(Connection connection) {
+        totalConnections.decrementAndGet();
+        connectionSchemas.remove(connection);
+        PreparedStatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.clear();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing discarded connection", e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        acquireCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Return a connection to the pool, resetting any session state left behind
+     */
+    private void release(Connection connection, boolean broken) {
+        activeConnections.decrementAndGet();
+        try {
+            if (closed.get() || broken || connection.isClosed() || !resetSession(connection)) {
+                discard(connection);
+            } else {
+                idle.offerFirst(connection);
+            }
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Give the session connection back as it is, or drop it if it broke
+     */
+    private void releaseSession(Connection connection, boolean broken) {
+        try {
+            if (closed.get() || broken || connection.isClosed()) {
+                if (sessionConnection == connection) {
+                    sessionConnection = null;
+                }
+                discard(connection);
+            }
+        } catch (SQLException e) {
+            sessionConnection = null;
+            discard(connection);
+        } finally {
+            sessionPermit.release();
+        }
+    }
+
+    private boolean resetSession(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                // Pooled leases are not meant to keep transactions, only the editor session does
+                logger.warn("Rolling back uncommitted work left on a pooled connection");
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Could not reset pooled connection, discarding it", e);
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot of the pool's current utilization and wait-time statistics
+     */
+    public PoolMetrics getMetrics() {
+        long acquires = acquireCount.sum();
+        long waitNanos = totalWaitNanos.sum();
+        return new PoolMetrics(
+                totalConnections.get(),
+                activeConnections.get(),
+                idle.size(),
+                permits.getQueueLength(),
+                peakActive.get(),
+                maxSize,
+                acquires,
+                acquires > 0 ? waitNanos / 1_000_000.0 / acquires : 0,
+                maxWaitNanos.get() / 1_000_000.0,
+                acquireTimeouts.sum(),
+                failedHealthChecks.sum()
+        );
+    }
+
+    /**
+     * Drop every cached prepared statement, called after the schema changed
+     */
+    public void invalidateStatementCaches() {
+        schemaVersion.incrementAndGet();
+    }
+
+    /**
+     * Make every connection set its schema again on the next useSchema, called after schemas were dropped
+     */
+    public void forgetSchemas() {
+        connectionSchemas.clear();
+    }
+
+    /**
+     * Hit and miss counts of the prepared statement caches of all pooled connections
+     */
+    public PreparedStatementCache.Metrics getStatementCacheMetrics() {
+        int cached = 0;
+        for (PreparedStatementCache cache : statementCaches.values()) {
+            cached += cache.size();
+        }
+        return new PreparedStatementCache.Metrics(
+                statementCacheCounters.hits.sum(),
+                statementCacheCounters.misses.sum(),
+                statementCacheCounters.evictions.sum(),
+                statementCacheCounters.invalidations.sum(),
+                cached
+        );
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+        Connection session = sessionConnection;
+        if (session != null) {
+            sessionConnection = null;
+            discard(session);
+        }
+        logger.info("Connection pool closed ({} connection(s) still leased)", activeConnections.get());
+    }
+
+    /**
+     * A borrowed connection. Closing the lease returns the connection to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Connection connection;
+        private final boolean session;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(Connection connection, boolean session) {
+            this.connection = connection;
+            this.session = session;
+        }
+
+        public Connection getConnection() { return connection; }
+
+        /**
+         * Prepared statement from the connection's statement cache. It stays open when the
+         * lease is closed, so the caller must close its result sets but not the statement.
+         */
+        public PreparedStatement prepareCached(String sql) throws SQLException {
+            PreparedStatementCache cache = statementCaches.get(connection);
+            return cache != null ? cache.prepare(sql) : connection.prepareStatement(sql);
+        }
+
+        /**
+         * Resolve unqualified names in the given schema first, then in PUBLIC.
+         * Only runs SQL when the connection is not already using the schema.
+         */
+        public void useSchema(String schema) throws SQLException {
+            if (schema.equals(connectionSchemas.get(connection))) {
+                return;
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SET SCHEMA " + schema);
+                stmt.execute(DEFAULT_SCHEMA.equals(schema) ? "SET SCHEMA_SEARCH_PATH " + DEFAULT_SCHEMA
+                        : "SET SCHEMA_SEARCH_PATH " + schema + ", " + DEFAULT_SCHEMA);
+            }
+            // Cached statements were resolved against the previous schema
+            PreparedStatementCache cache = statementCaches.get(connection);
+            if (cache != null) {
+                cache.clear();
+            }
+            connectionSchemas.put(connection, schema);
+        }
+
+        /**
+         * Mark the connection as unusable so it is discarded instead of reused
+         */
+        public void invalidate() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                if (session) {
+                    releaseSession(connection, broken);
+                } else {
+                    release(connection, broken);
+                }
+            }
+        }
+    }
+
+    public static class PoolMetrics {
+        private final int totalConnections;
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int waitingThreads;
+        private final int peakActiveConnections;
+        private final int maxSize;
+        private final long acquireCount;
+        private final double averageWaitMillis;
+        private final double maxWaitMillis;
+        private final long acquireTimeouts;
+        private final long failedHealthChecks;
+
+        public PoolMetrics(int totalConnections, int activeConnections, int idleConnections,
+                           int waitingThreads, int peakActiveConnections, int maxSize,
+                           long acquireCount, double averageWaitMillis, double maxWaitMillis,
+                           long acquireTimeouts, long failedHealthChecks) {
+            this.totalConnections = totalConnections;
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.waitingThreads = waitingThreads;
+            this.peakActiveConnections = peakActiveConnections;
+            this.maxSize = maxSize;
+            this.acquireCount = acquireCount;
+            this.averageWaitMillis = averageWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.acquireTimeouts = acquireTimeouts;
+            this.failedHealthChecks = failedHealthChecks;
+        }
+
+        public int getTotalConnections() { return totalConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public int getPeakActiveConnections() { return peakActiveConnections; }
+        public int getMaxSize() { return maxSize; }
+        public long getAcquireCount() { return acquireCount; }
+        public double getAverageWaitMillis() { return averageWaitMillis; }
+        public double getMaxWaitMillis() { return maxWaitMillis; }
+        public long getAcquireTimeouts() { return acquireTimeouts; }
+        public long getFailedHealthChecks() { return failedHealthChecks; }
+
+        /**
+         * Fraction of the pool's capacity currently leased out
+         */
+        public double getUtilization() {
+            return maxSize > 0 ? (double) activeConnections / maxSize : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d active (%.0f%%), %d idle, %d waiting, avg wait %.2fms, max wait %.2fms",
+                    activeConnections, maxSize, getUtilization() * 100, idleConnections,
+                    waitingThreads, averageWaitMillis, maxWaitMillis);
+        }
+    }
+}
@@ -5,23 +5,71 @@ package com.coffee_and_code.sql_learning.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.ref.Cleaner;
 import java.sql.*;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing database connections and operations
  */
 public class DatabaseService {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
+    private static final int STATEMENT_CANCELLED_ERROR_CODE = 57014;
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int SPILL_CHECK_INTERVAL = 4096;
+    private static final long STREAM_SPILL_SEGMENT_BYTES = 16L << 20;
     private static DatabaseService instance;
-    private Connection connection;
+    private ConnectionPool connectionPool;
+    private final ExecutorService streamExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "result-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final String DB_URL = "jdbc:h2:mem:sqllearning;DB_CLOSE_DELAY=-1;MODE=MySQL";
     private final String DB_USER = "sa";
     private final String DB_PASSWORD = "";
 
+    // Pool sizing, overridable with -Dsqllearning.pool.minSize=... etc.
+    private int poolMinSize = Integer.getInteger("sqllearning.pool.minSize", 2);
+    private int poolMaxSize = Integer.getInteger("sqllearning.pool.maxSize", 6);
+    private long poolAcquireTimeoutMillis = Long.getLong("sqllearning.pool.acquireTimeoutMs", 10_000L);
+
+    // Default per-statement timeout in seconds, 0 disables it
+    private volatile int defaultQueryTimeoutSeconds = Integer.getInteger("sqllearning.query.timeoutSeconds", 60);
+
+    // Results whose in-memory size passes this many bytes are moved to a temporary file
+    private volatile long spillThresholdBytes = Long.getLong("sqllearning.result.spillThresholdBytes", 64L << 20);
+    private final Set<SpillBuffer> spillBuffers = ConcurrentHashMap.newKeySet();
+
+    // Query results are reused until a statement that can change data runs and bumps the version
+    private final QueryResultCache resultCache = new QueryResultCache(
+            Long.getLong("sqllearning.result.cacheBytes", 32L << 20));
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private DatabaseTemplate template;
+
+    // Practice questions with fixture tables run in their own schema
+    private FixtureSchemas fixtureSchemas;
+    private volatile String activeSchema = ConnectionPool.DEFAULT_SCHEMA;
+    private volatile String requestedFixture;
+    private volatile CompletableFuture<String> pendingFixture;
+
     private DatabaseService() {}
 
     public static synchronized DatabaseService getInstance() {
@@ -32,18 +80,47 @@ public class DatabaseService {
     }
 
     /**
-     * Initialize the database connection and create sample tables
+     * Configure connection pool bounds. Must be called before initializeDatabase.
+     */
+    public void configurePool(int minSize, int maxSize, long acquireTimeoutMillis) {
+        if (connectionPool != null) {
+            throw new IllegalStateException("Connection pool is already initialized");
+        }
+        this.poolMinSize = minSize;
+        this.poolMaxSize = maxSize;
+        this.poolAcquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Initialize the connection pool and create sample tables
      */
     public void initializeDatabase() throws SQLException {
+        initializeDatabase(new StartupTimings());
+    }
+
+    /**
+     * Initialize the database, recording each step in the startup timings
+     */
+    public void initializeDatabase(StartupTimings timings) throws SQLException {
         try {
             // Load H2 driver
+            long phaseStart = System.nanoTime();
             Class.forName("org.h2.Driver");
+            timings.record("H2 driver load", phaseStart);
 
-            // Create connection
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            // Create and warm up the connection pool
+            phaseStart = System.nanoTime();
+            connectionPool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD,
+                    poolMinSize, poolMaxSize, poolAcquireTimeoutMillis);
+            connectionPool.warmUp();
+            fixtureSchemas = new FixtureSchemas(connectionPool);
+            timings.record("Connection pool warm-up", phaseStart);
 
             // Create sample database schema for practice
-            createSampleTables();
+            phaseStart = System.nanoTime();
+            template = DatabaseTemplate.forSampleTables();
+            restoreTemplate();
+            timings.record("Sample tables (template restore)", phaseStart);
 
             logger.info("Database initialized successfully");
         } catch (ClassNotFoundException e) {
@@ -53,38 +130,189 @@ public class DatabaseService {
     }
 
     /**
-     * Create sample tables with data for SQL practice
+     * Replace the database contents with the sample tables from the template snapshot
      */
-    private void createSampleTables() throws SQLException {
-        String[] sampleTables = ResourceLoader.loadSampleTables();
+    private void restoreTemplate() throws SQLException {
+        dataChanged();
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            lease.useSchema(ConnectionPool.DEFAULT_SCHEMA);
+            template.restore(lease.getConnection());
+        } finally {
+            // Fixture schemas were dropped with everything else and are recreated when their question is opened
+            fixtureSchemas.clear();
+            connectionPool.forgetSchemas();
+            requestedFixture = null;
+            pendingFixture = null;
+            activeSchema = ConnectionPool.DEFAULT_SCHEMA;
+            connectionPool.invalidateStatementCaches();
+            dataChanged();
+        }
+    }
 
-        try (Statement stmt = connection.createStatement()) {
-            for (String sql : sampleTables) {
-                if (!sql.trim().isEmpty()) {
-                    stmt.execute(sql);
-                }
+    /**
+     * Run later executions against the question's fixture tables, creating them in the background
+     * the first time. Questions without a fixture use the sample tables in PUBLIC.
+     */
+    public CompletableFuture<String> useQuestionFixture(String questionId, List<String> fixtureSql) {
+        requestedFixture = questionId;
+        if (fixtureSql.isEmpty()) {
+            pendingFixture = null;
+            setActiveSchema(ConnectionPool.DEFAULT_SCHEMA);
+            return CompletableFuture.completedFuture(ConnectionPool.DEFAULT_SCHEMA);
+        }
+        CompletableFuture<String> fixture = fixtureSchemas.materialize(questionId, fixtureSql).whenComplete((schema, error) -> {
+            if (questionId.equals(requestedFixture)) {
+                // Without its fixture the question runs against the sample tables, not the previous question's
+                setActiveSchema(error == null ? schema : ConnectionPool.DEFAULT_SCHEMA);
             }
+        });
+        pendingFixture = fixture;
+        return fixture;
+    }
+
+    public String getActiveSchema() { return activeSchema; }
+
+    private void setActiveSchema(String schema) {
+        if (!schema.equals(activeSchema)) {
+            activeSchema = schema;
+            // Cached results were computed against the previous schema
+            dataChanged();
         }
+    }
 
-        logger.info("Sample tables created successfully");
+    /**
+     * Lease a pooled connection for user SQL, bound to the active question's schema.
+     * Waits for a fixture that is still being created.
+     */
+    private ConnectionPool.Lease acquireForExecution() throws SQLException {
+        awaitFixture();
+        return useActiveSchema(connectionPool.acquire());
+    }
+
+    /**
+     * Lease the editor's session connection, which keeps its transaction between executions,
+     * bound to the active question's schema
+     */
+    private ConnectionPool.Lease acquireSessionForExecution() throws SQLException {
+        awaitFixture();
+        return useActiveSchema(connectionPool.acquireSession());
+    }
+
+    private void awaitFixture() {
+        CompletableFuture<String> pending = pendingFixture;
+        if (pending != null) {
+            try {
+                pending.join();
+            } catch (CompletionException e) {
+                logger.warn("Question fixture is unavailable, running against the sample tables");
+            }
+        }
+    }
+
+    private ConnectionPool.Lease useActiveSchema(ConnectionPool.Lease lease) throws SQLException {
+        try {
+            lease.useSchema(activeSchema);
+            return lease;
+        } catch (SQLException | RuntimeException e) {
+            lease.invalidate();
+            lease.close();
+            throw e;
+        }
+    }
+
+    public int getDefaultQueryTimeoutSeconds() { return defaultQueryTimeoutSeconds; }
+
+    /**
+     * Set the timeout applied to every statement, 0 disables it
+     */
+    public void setDefaultQueryTimeoutSeconds(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Query timeout must not be negative: " + seconds);
+        }
+        this.defaultQueryTimeoutSeconds = seconds;
     }
 
     /**
      * Execute a SELECT query and return results
      */
     public QueryResult executeQuery(String sql) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            ResultSet rs = stmt.executeQuery();
-            return processResultSet(rs);
+        return executeQuery(sql, new QueryHandle());
+    }
+
+    /**
+     * Execute a SELECT query that can be cancelled through the given handle
+     */
+    public QueryResult executeQuery(String sql, QueryHandle handle) throws SQLException {
+        QueryResult cached = resultCache.get(sql, dataVersion.get());
+        return cached != null ? cached : runQuery(sql, handle);
+    }
+
+    private QueryResult runQuery(String sql, QueryHandle handle) throws SQLException {
+        long version = dataVersion.get();
+        try (ConnectionPool.Lease lease = acquireSessionForExecution()) {
+            PreparedStatement stmt = lease.prepareCached(sql);
+            stmt.setQueryTimeout(defaultQueryTimeoutSeconds);
+            handle.attach(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                QueryResult result = processResultSet(rs);
+                resultCache.put(sql, version, result);
+                return result;
+            } finally {
+                handle.detach(stmt);
+            }
         }
     }
 
+    /**
+     * Result of an identical earlier query when no data has changed since, otherwise null.
+     * A hit completes the handle.
+     */
+    public ExecutionResult lookupCachedResult(String sql, QueryHandle handle) {
+        QueryResult result = resultCache.get(sql, dataVersion.get());
+        if (result == null) {
+            return null;
+        }
+        handle.complete();
+        return new ExecutionResult(true, String.format("Query returned %d cached row(s)", result.getRowCount()),
+                result, 0, Collections.emptyList(), true);
+    }
+
+    /**
+     * Called before and after anything that may change data so cached results are not reused
+     */
+    private void dataChanged() {
+        dataVersion.incrementAndGet();
+    }
+
     /**
      * Execute a DDL/DML query and return affected rows count
      */
     public int executeUpdate(String sql) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            return stmt.executeUpdate();
+        return executeUpdate(sql, new QueryHandle());
+    }
+
+    /**
+     * Execute a DDL/DML query that can be cancelled through the given handle
+     */
+    public int executeUpdate(String sql, QueryHandle handle) throws SQLException {
+        // Only row changes are worth caching, anything else may change the schema
+        boolean schemaChange = SqlScriptSplitter.classify(sql) != SqlStatement.Kind.DML;
+        dataChanged();
+        try (ConnectionPool.Lease lease = acquireSessionForExecution()) {
+            PreparedStatement stmt = schemaChange
+                    ? lease.getConnection().prepareStatement(sql) : lease.prepareCached(sql);
+            stmt.setQueryTimeout(defaultQueryTimeoutSeconds);
+            handle.attach(stmt);
+            try {
+                return stmt.executeUpdate();
+            } finally {
+                handle.detach(stmt);
+                dataChanged();
+                if (schemaChange) {
+                    stmt.close();
+                    connectionPool.invalidateStatementCaches();
+                }
+            }
         }
     }
 
@@ -92,35 +320,223 @@ public class DatabaseService {
      * Execute any SQL statement and return appropriate result
      */
     public ExecutionResult executeSql(String sql) {
+        return executeSql(sql, new QueryHandle());
+    }
+
+    /**
+     * Execute a statement or a whole script; the caller may cancel it from another thread through the handle
+     */
+    public ExecutionResult executeSql(String sql, QueryHandle handle) {
         try {
-            sql = sql.trim();
-            if (sql.isEmpty()) {
+            List<SqlStatement> statements = SqlScriptSplitter.split(sql);
+            if (statements.isEmpty()) {
                 return new ExecutionResult(false, "Empty query", null, 0);
             }
 
-            // Check if it's a SELECT query
-            if (sql.toUpperCase().startsWith("SELECT") ||
-                    sql.toUpperCase().startsWith("SHOW") ||
-                    sql.toUpperCase().startsWith("DESCRIBE") ||
-                    sql.toUpperCase().startsWith("EXPLAIN")) {
-
-                QueryResult result = executeQuery(sql);
+            if (statements.size() == 1 && statements.get(0).isQuery()) {
+                ExecutionResult cached = lookupCachedResult(statements.get(0).getSql(), handle);
+                if (cached != null) {
+                    return cached;
+                }
+                QueryResult result = runQuery(statements.get(0).getSql(), handle);
                 return new ExecutionResult(true, "Query executed successfully", result, 0);
-
-            } else {
+            }
+            if (statements.size() == 1 && statements.get(0).getKind() != SqlStatement.Kind.OTHER) {
                 // DDL/DML query
-                int affectedRows = executeUpdate(sql);
+                int affectedRows = executeUpdate(statements.get(0).getSql(), handle);
                 return new ExecutionResult(true,
                         String.format("Query executed successfully. %d row(s) affected.", affectedRows),
                         null, affectedRows);
             }
-        } catch (SQLException e) {
+            return executeScript(statements, handle);
+        } catch (Exception e) {
+            return failureResult(e, handle);
+        } finally {
+            handle.complete();
+        }
+    }
+
+    /**
+     * Run several statements on one pooled connection, batching consecutive row changes
+     */
+    public ExecutionResult executeScript(List<SqlStatement> statements, QueryHandle handle) throws SQLException {
+        return runScript(statements, handle, false);
+    }
+
+    /**
+     * Run a practice attempt inside a transaction that is rolled back once its results are captured,
+     * so row changes never leak into later questions. H2 commits DDL implicitly, so attempts that
+     * change the schema run normally and say so in their message.
+     */
+    public ExecutionResult executeSandboxed(String sql, QueryHandle handle) {
+        try {
+            List<SqlStatement> statements = SqlScriptSplitter.split(sql);
+            boolean rowChangesOnly = statements.stream().allMatch(statement ->
+                    statement.isQuery() || statement.getKind() == SqlStatement.Kind.DML);
+            if (statements.stream().allMatch(SqlStatement::isQuery)) {
+                // Nothing to roll back
+                return executeSql(sql, handle);
+            }
+            if (!rowChangesOnly) {
+                ExecutionResult result = executeSql(sql, handle);
+                return new ExecutionResult(result.isSuccess(),
+                        result.getMessage() + " Schema changes are committed and were not rolled back.",
+                        result.getQueryResult(), result.getAffectedRows(), result.getStatementResults());
+            }
+            return runScript(statements, handle, true);
+        } catch (Exception e) {
+            return failureResult(e, handle);
+        } finally {
+            handle.complete();
+        }
+    }
+
+    private ExecutionResult runScript(List<SqlStatement> statements, QueryHandle handle, boolean rollback)
+            throws SQLException {
+        long start = System.nanoTime();
+        // A rolled back attempt leaves the committed data as it was
+        boolean readOnly = rollback || statements.stream().allMatch(SqlStatement::isQuery);
+        if (!readOnly) {
+            dataChanged();
+        }
+        SqlScriptRunner.Outcome outcome;
+        try (ConnectionPool.Lease lease = acquireSessionForExecution()) {
+            Connection connection = lease.getConnection();
+            // Inside the learner's own transaction the attempt rolls back to a savepoint instead
+            boolean ownTransaction = rollback && connection.getAutoCommit();
+            Savepoint savepoint = null;
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            } else if (rollback) {
+                savepoint = connection.setSavepoint();
+            }
+            try {
+                outcome = new SqlScriptRunner(defaultQueryTimeoutSeconds, this::processResultSet)
+                        .run(connection, statements, handle);
+            } finally {
+                if (ownTransaction) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                } else if (savepoint != null) {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                }
+            }
+        } finally {
+            if (!readOnly) {
+                dataChanged();
+            }
+            if (statements.stream().anyMatch(statement -> !statement.isQuery()
+                    && statement.getKind() != SqlStatement.Kind.DML)) {
+                connectionPool.invalidateStatementCaches();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        int affectedRows = (int) Math.min(Integer.MAX_VALUE, outcome.getAffectedRows());
+
+        if (outcome.getFailure() != null) {
+            String reason = failureResult(outcome.getFailure(), handle).getMessage();
+            return new ExecutionResult(false,
+                    String.format("Statement %d of %d failed: %s", outcome.getFailedIndex() + 1, statements.size(), reason),
+                    outcome.getLastQueryResult(), affectedRows, outcome.getResults());
+        }
+        if (handle.isCancelled()) {
+            return new ExecutionResult(false, String.format("Script cancelled after %d of %d statement(s)",
+                    outcome.getResults().size(), statements.size()), outcome.getLastQueryResult(), affectedRows,
+                    outcome.getResults());
+        }
+        if (rollback) {
+            logger.info("Practice attempt of {} statement(s) executed and rolled back in {}ms",
+                    statements.size(), elapsedMillis);
+            return new ExecutionResult(true,
+                    String.format("Executed %d statement(s) in %dms, %d row(s) affected. Changes were rolled back.",
+                            statements.size(), elapsedMillis, affectedRows),
+                    outcome.getLastQueryResult(), affectedRows, outcome.getResults());
+        }
+        logger.info("Script of {} statement(s) executed in {}ms", statements.size(), elapsedMillis);
+        return new ExecutionResult(true,
+                String.format("Script executed: %d statement(s) in %dms, %d row(s) affected.",
+                        statements.size(), elapsedMillis, affectedRows),
+                outcome.getLastQueryResult(), affectedRows, outcome.getResults());
+    }
+
+    /**
+     * Whether the editor's session has a transaction open, begun by the learner and not yet
+     * committed or rolled back. Its queries must run on the session to see that work.
+     */
+    public boolean isInTransaction() {
+        return connectionPool != null && connectionPool.isSessionInTransaction();
+    }
+
+    /**
+     * Check whether the text is a single statement that produces a result set
+     */
+    public boolean isQuery(String sql) {
+        List<SqlStatement> statements = SqlScriptSplitter.split(sql);
+        return statements.size() == 1 && statements.get(0).isQuery();
+    }
+
+    /**
+     * Translate a failed execution into the message shown to the user
+     */
+    public ExecutionResult failureResult(Throwable error, QueryHandle handle) {
+        if (error instanceof SQLException) {
+            SQLException e = (SQLException) error;
+            if (handle.isCancelled()) {
+                logger.info("SQL execution cancelled after {}ms", handle.getElapsedMillis());
+                return new ExecutionResult(false, "Query cancelled", null, 0);
+            }
+            if (isTimeout(e)) {
+                logger.warn("SQL execution timed out after {}s", defaultQueryTimeoutSeconds);
+                return new ExecutionResult(false,
+                        String.format("Query timed out after %d second(s)", defaultQueryTimeoutSeconds), null, 0);
+            }
             logger.warn("SQL execution failed: {}", e.getMessage());
             return new ExecutionResult(false, "SQL Error: " + e.getMessage(), null, 0);
-        } catch (Exception e) {
-            logger.error("Unexpected error during SQL execution", e);
-            return new ExecutionResult(false, "Unexpected error: " + e.getMessage(), null, 0);
         }
+        logger.error("Unexpected error during SQL execution", error);
+        return new ExecutionResult(false, "Unexpected error: " + error.getMessage(), null, 0);
+    }
+
+    /**
+     * Open a cursor that reads the query result incrementally. The caller must close it.
+     */
+    public QueryCursor openCursor(String sql, QueryHandle handle) throws SQLException {
+        QueryCursor cursor = new QueryCursor(acquireForExecution(), handle);
+        try {
+            cursor.open(sql.trim(), defaultQueryTimeoutSeconds, STREAM_FETCH_SIZE);
+            return cursor;
+        } catch (SQLException | RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stream a query result in chunks of chunkSize rows.
+     * Nothing is executed until the subscriber requests the first chunk.
+     */
+    public RowPublisher streamQuery(String sql, QueryHandle handle, int chunkSize) {
+        return new RowPublisher(() -> openCursor(sql, handle), handle, chunkSize, streamExecutor,
+                resultCache.collector(sql, dataVersion.get()));
+    }
+
+    /**
+     * Spiller for a streamed result, moving its chunks to disk past the spill threshold
+     */
+    public StreamSpiller newStreamSpiller() {
+        long threshold = spillThresholdBytes;
+        return new StreamSpiller(threshold, Math.max(1, Math.min(threshold, STREAM_SPILL_SEGMENT_BYTES)), spill -> {
+            spillBuffers.removeIf(SpillBuffer::isDeleted);
+            spillBuffers.add(spill);
+        });
+    }
+
+    /**
+     * H2 reports both cancellation and statement timeouts as error 57014
+     */
+    private boolean isTimeout(SQLException e) {
+        return e instanceof SQLTimeoutException || e.getErrorCode() == STATEMENT_CANCELLED_ERROR_CODE;
     }
 
     /**
@@ -129,7 +545,14 @@ public class DatabaseService {
     public ValidationResult validateSql(String sql) {
         try {
             // Try to prepare the statement to check syntax
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try (ConnectionPool.Lease lease = acquireForExecution()) {
+                SqlStatement.Kind kind = SqlScriptSplitter.classify(sql);
+                if (kind == SqlStatement.Kind.QUERY || kind == SqlStatement.Kind.DML) {
+                    // Cached, so running the statement right after validating it skips the parse
+                    lease.prepareCached(sql);
+                } else {
+                    lease.getConnection().prepareStatement(sql).close();
+                }
                 return new ValidationResult(true, "SQL syntax is valid");
             }
         } catch (SQLException e) {
@@ -138,37 +561,54 @@ public class DatabaseService {
     }
 
     /**
-     * Get list of all tables in the database
+     * Get list of the tables the current question can use: its fixture tables, then the sample tables
      */
     public List<String> getTables() throws SQLException {
         List<String> tables = new ArrayList<>();
-        DatabaseMetaData metaData = connection.getMetaData();
 
-        try (ResultSet rs = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
-            while (rs.next()) {
-                tables.add(rs.getString("TABLE_NAME"));
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            for (String schema : searchPath()) {
+                try (ResultSet rs = lease.getConnection().getMetaData()
+                        .getTables(null, schema, "%", new String[]{"TABLE"})) {
+                    while (rs.next()) {
+                        tables.add(rs.getString("TABLE_NAME"));
+                    }
+                }
             }
         }
 
         return tables;
     }
 
+    private List<String> searchPath() {
+        String schema = activeSchema;
+        return schema.equals(ConnectionPool.DEFAULT_SCHEMA) ? List.of(schema)
+                : List.of(schema, ConnectionPool.DEFAULT_SCHEMA);
+    }
+
     /**
      * Get table structure information
      */
     public List<ColumnInfo> getTableColumns(String tableName) throws SQLException {
         List<ColumnInfo> columns = new ArrayList<>();
-        DatabaseMetaData metaData = connection.getMetaData();
 
-        try (ResultSet rs = metaData.getColumns(null, null, tableName, "%")) {
-            while (rs.next()) {
-                ColumnInfo column = new ColumnInfo(
-                        rs.getString("COLUMN_NAME"),
-                        rs.getString("TYPE_NAME"),
-                        rs.getInt("COLUMN_SIZE"),
-                        rs.getBoolean("NULLABLE")
-                );
-                columns.add(column);
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            // Same lookup order as unqualified names in queries
+            for (String schema : searchPath()) {
+                try (ResultSet rs = lease.getConnection().getMetaData().getColumns(null, schema, tableName, "%")) {
+                    while (rs.next()) {
+                        ColumnInfo column = new ColumnInfo(
+                                rs.getString("COLUMN_NAME"),
+                                rs.getString("TYPE_NAME"),
+                                rs.getInt("COLUMN_SIZE"),
+                                rs.getBoolean("NULLABLE")
+                        );
+                        columns.add(column);
+                    }
+                }
+                if (!columns.isEmpty()) {
+                    break;
+                }
             }
         }
 
@@ -176,19 +616,48 @@ public class DatabaseService {
     }
 
     /**
-     * Reset database to initial state
+     * Foreign keys declared by a table, each with its columns in key order
      */
-    public void resetDatabase() throws SQLException {
-        // Drop all tables and recreate
-        List<String> tables = getTables();
-        try (Statement stmt = connection.createStatement()) {
-            for (String table : tables) {
-                stmt.execute("DROP TABLE IF EXISTS " + table);
+    public List<ForeignKey> getForeignKeys(String tableName) throws SQLException {
+        Map<String, ForeignKey> keys = new LinkedHashMap<>();
+
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            for (String schema : searchPath()) {
+                try (ResultSet rs = lease.getConnection().getMetaData().getImportedKeys(null, schema, tableName)) {
+                    while (rs.next()) {
+                        String referencedTable = rs.getString("PKTABLE_NAME");
+                        String name = rs.getString("FK_NAME");
+                        if (name == null) {
+                            name = referencedTable;
+                        }
+                        ForeignKey key = keys.get(name);
+                        if (key == null) {
+                            key = new ForeignKey(name, tableName, referencedTable);
+                            keys.put(name, key);
+                        }
+                        key.columns.add(rs.getString("FKCOLUMN_NAME"));
+                        key.referencedColumns.add(rs.getString("PKCOLUMN_NAME"));
+                    }
+                }
+                if (!keys.isEmpty()) {
+                    break;
+                }
             }
         }
 
-        // Recreate sample tables
-        createSampleTables();
+        return new ArrayList<>(keys.values());
+    }
+
+    /**
+     * Reset database to initial state
+     */
+    public void resetDatabase() throws SQLException {
+        // An open editor transaction would hold locks on the tables about to be dropped
+        if (connectionPool.rollbackSession()) {
+            logger.info("Rolled back the editor's open transaction before the reset");
+        }
+        // Drops every object, including tables created by the user, and restores the sample tables
+        restoreTemplate();
 
         logger.info("Database reset successfully");
     }
@@ -197,56 +666,297 @@ public class DatabaseService {
      * Process ResultSet into QueryResult object
      */
     private QueryResult processResultSet(ResultSet rs) throws SQLException {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-
-        // Get column names
-        List<String> columnNames = new ArrayList<>();
-        for (int i = 1; i <= columnCount; i++) {
-            columnNames.add(metaData.getColumnLabel(i));
+        QueryResult.Builder builder = new QueryResult.Builder(rs.getMetaData());
+        while (rs.next()) {
+            builder.addRow(rs);
+            if (builder.getRowCount() % SPILL_CHECK_INTERVAL == 0
+                    && builder.estimatedBytes() > spillThresholdBytes) {
+                return spillResultSet(builder, rs);
+            }
         }
+        return builder.build();
+    }
 
-        // Get rows data
-        List<List<Object>> rows = new ArrayList<>();
-        while (rs.next()) {
-            List<Object> row = new ArrayList<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.add(rs.getObject(i));
+    /**
+     * Move the rows buffered so far to a spill file and stream the rest of the result set there
+     */
+    private QueryResult spillResultSet(QueryResult.Builder builder, ResultSet rs) throws SQLException {
+        spillBuffers.removeIf(SpillBuffer::isDeleted);
+        SpillBuffer spill = null;
+        try {
+            spill = builder.spill();
+            spillBuffers.add(spill);
+            while (rs.next()) {
+                spill.append(rs);
+            }
+            return spill.finish();
+        } catch (IOException e) {
+            if (spill != null) {
+                spill.delete();
             }
-            rows.add(row);
+            throw new SQLException("Could not spill query result to disk: " + e.getMessage(), e);
+        } catch (SQLException | RuntimeException e) {
+            if (spill != null) {
+                spill.delete();
+            }
+            throw e;
         }
+    }
+
+    public long getSpillThresholdBytes() { return spillThresholdBytes; }
+
+    public void setSpillThresholdBytes(long spillThresholdBytes) {
+        this.spillThresholdBytes = spillThresholdBytes;
+    }
+
+    /**
+     * Profile every column of an already fetched result in the background
+     */
+    public ColumnProfiler profile(QueryResult result) {
+        ColumnProfiler profiler = new ColumnProfiler();
+        profiler.accept(result);
+        return profiler;
+    }
+
+    /**
+     * Hit and miss counts of the per-connection prepared statement caches
+     */
+    public PreparedStatementCache.Metrics getStatementCacheMetrics() {
+        return connectionPool != null ? connectionPool.getStatementCacheMetrics() : null;
+    }
 
-        return new QueryResult(columnNames, rows);
+    public QueryResultCache.Metrics getResultCacheMetrics() {
+        return resultCache.getMetrics();
     }
 
     /**
-     * Close database connection
+     * Current connection pool wait-time and utilization metrics
+     */
+    public ConnectionPool.PoolMetrics getPoolMetrics() {
+        return connectionPool != null ? connectionPool.getMetrics() : null;
+    }
+
+    /**
+     * Close all pooled database connections
      */
     public void shutdown() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                logger.info("Database connection closed");
-            }
-        } catch (SQLException e) {
-            logger.error("Error closing database connection", e);
+        streamExecutor.shutdownNow();
+        if (fixtureSchemas != null) {
+            fixtureSchemas.shutdown();
+        }
+        for (SpillBuffer spill : spillBuffers) {
+            spill.delete();
+        }
+        spillBuffers.clear();
+        resultCache.clear();
+        if (connectionPool != null) {
+            logger.info("Connection pool metrics at shutdown: {}", connectionPool.getMetrics());
+            connectionPool.close();
+            logger.info("Database connections closed");
         }
     }
 
     // Inner classes for data transfer objects
+
+    /**
+     * Query result stored column by column in primitive vectors.
+     * getRows() exposes a row-oriented view for code that works with rows of boxed values.
+     */
     public static class QueryResult {
         private final List<String> columnNames;
-        private final List<List<Object>> rows;
+        private final ColumnVector[] columns;
+        private final int rowCount;
+        private final Cleaner.Cleanable spillCleanup;
+        private List<List<Object>> rowView;
 
         public QueryResult(List<String> columnNames, List<List<Object>> rows) {
             this.columnNames = columnNames;
-            this.rows = rows;
+            this.columns = new ColumnVector[columnNames.size()];
+            for (int c = 0; c < columns.length; c++) {
+                ColumnVector.ObjectVector vector = new ColumnVector.ObjectVector();
+                for (List<Object> row : rows) {
+                    vector.appendValue(row.get(c));
+                }
+                columns[c] = vector;
+            }
+            this.rowCount = rows.size();
+            this.spillCleanup = null;
+        }
+
+        QueryResult(List<String> columnNames, ColumnVector[] columns, int rowCount) {
+            this.columnNames = columnNames;
+            this.columns = columns;
+            this.rowCount = rowCount;
+            this.spillCleanup = null;
+        }
+
+        /**
+         * Result backed by a spill file, which is deleted once this result is unreachable
+         */
+        QueryResult(List<String> columnNames, ColumnVector[] columns, int rowCount, SpillBuffer spill) {
+            this.columnNames = columnNames;
+            this.columns = columns;
+            this.rowCount = rowCount;
+            this.spillCleanup = spill.registerCleanup(this);
+        }
+
+        /**
+         * Join consecutive chunks of the same query into one result
+         */
+        static QueryResult concat(List<QueryResult> chunks) {
+            if (chunks.size() == 1) {
+                return chunks.get(0);
+            }
+            QueryResult first = chunks.get(0);
+            ColumnVector[] columns = new ColumnVector[first.columns.length];
+            List<ColumnVector> parts = new ArrayList<>(chunks.size());
+            int rowCount = 0;
+            for (int c = 0; c < columns.length; c++) {
+                parts.clear();
+                for (QueryResult chunk : chunks) {
+                    parts.add(chunk.columns[c]);
+                }
+                columns[c] = ColumnVector.concat(parts);
+            }
+            for (QueryResult chunk : chunks) {
+                rowCount += chunk.rowCount;
+            }
+            return new QueryResult(first.columnNames, columns, rowCount);
         }
 
         public List<String> getColumnNames() { return columnNames; }
-        public List<List<Object>> getRows() { return rows; }
-        public int getRowCount() { return rows.size(); }
+        public int getRowCount() { return rowCount; }
         public int getColumnCount() { return columnNames.size(); }
+
+        public ColumnVector getColumn(int column) { return columns[column]; }
+        public ColumnVector.ColumnType getColumnType(int column) { return columns[column].getType(); }
+
+        public Object getValue(int row, int column) {
+            return columns[column].getObject(row);
+        }
+
+        /**
+         * Row-oriented view; cells are boxed on access, nothing is copied up front
+         */
+        public List<List<Object>> getRows() {
+            if (rowView == null) {
+                rowView = new AbstractList<>() {
+                    @Override
+                    public List<Object> get(int row) { return getRow(row); }
+
+                    @Override
+                    public int size() { return rowCount; }
+                };
+            }
+            return rowView;
+        }
+
+        public List<Object> getRow(int row) {
+            Objects.checkIndex(row, rowCount);
+            return new AbstractList<>() {
+                @Override
+                public Object get(int column) { return columns[column].getObject(row); }
+
+                @Override
+                public int size() { return columns.length; }
+            };
+        }
+
+        /**
+         * Whether the rows live in a memory-mapped spill file instead of the heap
+         */
+        public boolean isSpilled() { return spillCleanup != null; }
+
+        /**
+         * Delete the spill file right away instead of waiting for garbage collection
+         */
+        public void release() {
+            if (spillCleanup != null) {
+                spillCleanup.clean();
+            }
+        }
+
+        /**
+         * Approximate heap used by the column vectors
+         */
+        public long estimatedBytes() {
+            long bytes = 0;
+            for (ColumnVector column : columns) {
+                bytes += column.estimatedBytes();
+            }
+            return bytes;
+        }
+
+        /**
+         * Accumulates rows from a result set into typed column vectors
+         */
+        public static class Builder {
+            private final List<String> columnNames;
+            private final ColumnVector[] columns;
+            private int rowCount;
+
+            public Builder(ResultSetMetaData metaData) throws SQLException {
+                int columnCount = metaData.getColumnCount();
+                List<String> names = new ArrayList<>(columnCount);
+                columns = new ColumnVector[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    names.add(metaData.getColumnLabel(i));
+                    columns[i - 1] = ColumnVector.forColumn(metaData, i);
+                }
+                this.columnNames = Collections.unmodifiableList(names);
+            }
+
+            public Builder(List<String> columnNames, ResultSetMetaData metaData) throws SQLException {
+                this.columnNames = columnNames;
+                columns = new ColumnVector[columnNames.size()];
+                for (int i = 1; i <= columns.length; i++) {
+                    columns[i - 1] = ColumnVector.forColumn(metaData, i);
+                }
+            }
+
+            /**
+             * Append the result set's current row
+             */
+            public void addRow(ResultSet rs) throws SQLException {
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i].append(rs, i + 1);
+                }
+                rowCount++;
+            }
+
+            public int getRowCount() { return rowCount; }
+
+            public long estimatedBytes() {
+                long bytes = 0;
+                for (ColumnVector column : columns) {
+                    bytes += column.estimatedBytes();
+                }
+                return bytes;
+            }
+
+            /**
+             * Copy the buffered rows into a new spill file; further rows go there directly
+             */
+            SpillBuffer spill() throws IOException {
+                SpillBuffer spill = new SpillBuffer(columnNames, columns);
+                for (int row = 0; row < rowCount; row++) {
+                    spill.appendFrom(columns, row);
+                }
+                // The in-memory copy is no longer needed
+                Arrays.fill(columns, null);
+                rowCount = 0;
+                return spill;
+            }
+
+            public QueryResult build() {
+                for (ColumnVector column : columns) {
+                    if (column instanceof ColumnVector.StringVector) {
+                        ((ColumnVector.StringVector) column).seal();
+                    }
+                }
+                return new QueryResult(columnNames, columns, rowCount);
+            }
+        }
     }
 
     public static class ExecutionResult {
@@ -254,20 +964,78 @@ public class DatabaseService {
         private final String message;
         private final QueryResult queryResult;
         private final int affectedRows;
+        private final List<StatementResult> statementResults;
+        private final boolean cached;
 
         public ExecutionResult(boolean success, String message, QueryResult queryResult, int affectedRows) {
+            this(success, message, queryResult, affectedRows, Collections.emptyList());
+        }
+
+        public ExecutionResult(boolean success, String message, QueryResult queryResult, int affectedRows,
+                               List<StatementResult> statementResults) {
+            this(success, message, queryResult, affectedRows, statementResults, false);
+        }
+
+        public ExecutionResult(boolean success, String message, QueryResult queryResult, int affectedRows,
+                               List<StatementResult> statementResults, boolean cached) {
             this.success = success;
             this.message = message;
             this.queryResult = queryResult;
             this.affectedRows = affectedRows;
+            this.statementResults = statementResults;
+            this.cached = cached;
         }
 
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
         public QueryResult getQueryResult() { return queryResult; }
         public int getAffectedRows() { return affectedRows; }
+        /** Per-statement results when a script was executed, empty for a single statement */
+        public List<StatementResult> getStatementResults() { return statementResults; }
+        /** The result was served from the result cache without running the query */
+        public boolean isCached() { return cached; }
+    }
+
+    /**
+     * Outcome and timing of one statement of a script
+     */
+    public static class StatementResult {
+        private final int number;
+        private final SqlStatement statement;
+        private final boolean success;
+        private final long updateCount;
+        private final int rowCount;
+        private final long elapsedNanos;
+        private final boolean batched;
+        private final String error;
+
+        public StatementResult(int number, SqlStatement statement, boolean success, long updateCount,
+                               int rowCount, long elapsedNanos, boolean batched, String error) {
+            this.number = number;
+            this.statement = statement;
+            this.success = success;
+            this.updateCount = updateCount;
+            this.rowCount = rowCount;
+            this.elapsedNanos = elapsedNanos;
+            this.batched = batched;
+            this.error = error;
+        }
+
+        /** One-based position in the script */
+        public int getNumber() { return number; }
+        public SqlStatement getStatement() { return statement; }
+        public boolean isSuccess() { return success; }
+        public long getUpdateCount() { return updateCount; }
+        /** Rows in the statement's result set, -1 if it returned none */
+        public int getRowCount() { return rowCount; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+        /** Sent as part of a JDBC batch; the elapsed time is the batch's share per statement */
+        public boolean isBatched() { return batched; }
+        public String getError() { return error; }
     }
 
+
     public static class ValidationResult {
         private final boolean valid;
         private final String message;
@@ -281,6 +1049,35 @@ public class DatabaseService {
         public String getMessage() { return message; }
     }
 
+    /**
+     * Foreign key from columns of a table to columns of the table it references
+     */
+    public static class ForeignKey {
+        private final String name;
+        private final String table;
+        private final String referencedTable;
+        private final List<String> columns = new ArrayList<>();
+        private final List<String> referencedColumns = new ArrayList<>();
+
+        public ForeignKey(String name, String table, String referencedTable) {
+            this.name = name;
+            this.table = table;
+            this.referencedTable = referencedTable;
+        }
+
+        public String getName() { return name; }
+        public String getTable() { return table; }
+        public List<String> getColumns() { return columns; }
+        public String getReferencedTable() { return referencedTable; }
+        public List<String> getReferencedColumns() { return referencedColumns; }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s) -> %s(%s)", table, String.join(", ", columns),
+                    referencedTable, String.join(", ", referencedColumns));
+        }
+    }
+
     public static class ColumnInfo {
         private final String name;
         private final String type;
@@ -0,0 +1,188 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * H2 SCRIPT snapshot of the sample database. It is built once from the sample
+ * table statements and restored with a single RUNSCRIPT, so startup and reset
+ * no longer replay every statement from Java.
+ *
+ * The file name carries a hash of the sample statements, so changed sample data
+ * builds a new template. RUNSCRIPT executes whatever the file holds, so the template
+ * lives in a directory only the user can write, and its SHA-256 checksum is kept in
+ * memory when the template is written and verified before every restore. A template
+ * left by an earlier run is therefore rebuilt once per process rather than trusted.
+ */
+public class DatabaseTemplate {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseTemplate.class);
+
+    private final String[] sourceStatements;
+    private final Path scriptFile;
+    // Checksum of the script this process wrote, null until then
+    private volatile String expectedChecksum;
+
+    public DatabaseTemplate(String[] sourceStatements, Path directory) {
+        this.sourceStatements = sourceStatements;
+        String sourceHash = sha256(String.join("\n;\n", sourceStatements).getBytes(StandardCharsets.UTF_8));
+        this.scriptFile = directory.resolve("sample-" + sourceHash.substring(0, 16) + ".sql");
+    }
+
+    /**
+     * Template in the directory from -Dsqllearning.template.dir, by default ~/.sql-learning/templates
+     */
+    public static DatabaseTemplate forSampleTables() {
+        Path directory = Paths.get(System.getProperty("sqllearning.template.dir",
+                Paths.get(System.getProperty("user.home"), ".sql-learning", "templates").toString()));
+        return new DatabaseTemplate(ResourceLoader.loadSampleTables(), directory);
+    }
+
+    /**
+     * Replace everything in the database with the template, building the template first if needed
+     */
+    public void restore(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        if (isValid()) {
+            try {
+                runScript(connection);
+                logger.info("Sample database restored from template in {}ms", (System.nanoTime() - start) / 1_000_000);
+                return;
+            } catch (SQLException e) {
+                logger.warn("Could not restore template {}, rebuilding it: {}", scriptFile, e.getMessage());
+            }
+        }
+        rebuild(connection);
+        logger.info("Sample database built and template written in {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Create the sample tables from the source statements and write a new template from the result
+     */
+    public void rebuild(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+            for (String sql : sourceStatements) {
+                if (!sql.trim().isEmpty()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+        try {
+            writeTemplate(connection);
+        } catch (IOException | SQLException e) {
+            // The database itself is fine, only the next restore has to rebuild again
+            logger.warn("Could not write database template {}: {}", scriptFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this process wrote the script and it still matches the checksum recorded then
+     */
+    public boolean isValid() {
+        String expected = expectedChecksum;
+        if (expected == null || !Files.isRegularFile(scriptFile)) {
+            return false;
+        }
+        try {
+            String actual = checksum(scriptFile);
+            if (!expected.equals(actual)) {
+                logger.warn("Database template {} failed checksum verification", scriptFile);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not verify database template {}: {}", scriptFile, e.getMessage());
+            return false;
+        }
+    }
+
+    public Path getScriptFile() { return scriptFile; }
+
+    private void runScript(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+            stmt.execute("RUNSCRIPT FROM '" + escape(scriptFile) + "' CHARSET 'UTF-8'");
+        }
+    }
+
+    private void writeTemplate(Connection connection) throws IOException, SQLException {
+        expectedChecksum = null;
+        createPrivateDirectory(scriptFile.getParent());
+        // Write next to the final name and move into place so a crash never leaves a half-written template
+        Path temporary = Files.createTempFile(scriptFile.getParent(), "sample-", ".sql.tmp");
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SCRIPT NOPASSWORDS NOSETTINGS TO '" + escape(temporary) + "' CHARSET 'UTF-8'");
+            }
+            String checksum = checksum(temporary);
+            Files.move(temporary, scriptFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            expectedChecksum = checksum;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Create the directory readable and writable by the owner only, where the file system
+     * has POSIX permissions, and refuse an existing one that others can write to
+     */
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)
+                || !Files.getOwner(directory).equals(directory.getFileSystem().getUserPrincipalLookupService()
+                        .lookupPrincipalByName(System.getProperty("user.name")))) {
+            throw new IOException("Template directory " + directory + " is writable by other users");
+        }
+    }
+
+    private static String escape(Path path) {
+        return path.toAbsolutePath().toString().replace("'", "''");
+    }
+
+    private static String checksum(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the fixture tables of practice questions in their own H2 schemas.
+ * A fixture is materialized in the background the first time its question is
+ * opened and reused afterwards, so startup does not depend on the number of questions.
+ */
+public class FixtureSchemas {
+    private static final Logger logger = LoggerFactory.getLogger(FixtureSchemas.class);
+
+    private final ConnectionPool connectionPool;
+    private final Map<String, CompletableFuture<String>> schemas = new ConcurrentHashMap<>();
+    private final ExecutorService fixtureExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "question-fixture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    FixtureSchemas(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Schema holding the fixture for the key, completed once its tables exist
+     */
+    public CompletableFuture<String> materialize(String key, List<String> statements) {
+        CompletableFuture<String> schema = schemas.computeIfAbsent(key, k ->
+                CompletableFuture.supplyAsync(() -> create(schemaName(k), statements), fixtureExecutor));
+        // A failed fixture is retried the next time its question is opened
+        schema.whenComplete((name, error) -> {
+            if (error != null) {
+                schemas.remove(key, schema);
+            }
+        });
+        return schema;
+    }
+
+    /**
+     * Forget every fixture, called after all schemas were dropped
+     */
+    void clear() {
+        schemas.clear();
+    }
+
+    void shutdown() {
+        fixtureExecutor.shutdownNow();
+    }
+
+    /**
+     * H2 identifier for a question id, e.g. "Easy-175" becomes Q_EASY_175
+     */
+    public static String schemaName(String key) {
+        return "Q_" + key.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "_");
+    }
+
+    private String create(String schema, List<String> statements) {
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            lease.useSchema(ConnectionPool.DEFAULT_SCHEMA);
+            try (Statement stmt = lease.getConnection().createStatement()) {
+                stmt.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+                stmt.execute("CREATE SCHEMA " + schema);
+                stmt.execute("SET SCHEMA " + schema);
+                try {
+                    for (String sql : statements) {
+                        stmt.execute(sql);
+                    }
+                } finally {
+                    stmt.execute("SET SCHEMA " + ConnectionPool.DEFAULT_SCHEMA);
+                }
+            }
+            logger.info("Fixture schema {} created in {}ms", schema, (System.nanoTime() - start) / 1_000_000);
+            return schema;
+        } catch (SQLException e) {
+            logger.warn("Could not create fixture schema {}: {}", schema, e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+}
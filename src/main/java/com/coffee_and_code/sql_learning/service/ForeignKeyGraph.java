@@ -0,0 +1,183 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tables connected by their foreign keys, walkable in both directions. Join paths are
+ * shortest paths found by one breadth-first search from the tables a query already
+ * uses, which reaches every table of the schema at once.
+ *
+ * Between paths with as many joins, the one with fewer turns from a child table up to
+ * its parent and down to another child wins. Two tables are better related through a
+ * junction table holding keys to both than through a parent they happen to share.
+ *
+ * Tables are keyed by upper-cased name. Not thread-safe, the editor uses it from the FX thread.
+ */
+public class ForeignKeyGraph {
+    // Table -> foreign keys it declares or is referenced by
+    private final Map<String, List<DatabaseService.ForeignKey>> edges = new HashMap<>();
+    // Table -> foreign keys it declares, so a table can be replaced on its own
+    private final Map<String, List<DatabaseService.ForeignKey>> declared = new HashMap<>();
+
+    /**
+     * Replace the foreign keys the table declares
+     */
+    public void putTable(String table, List<DatabaseService.ForeignKey> foreignKeys) {
+        String key = upper(table);
+        List<DatabaseService.ForeignKey> previous = declared.remove(key);
+        if (previous != null) {
+            previous.forEach(this::unlink);
+        }
+        if (!foreignKeys.isEmpty()) {
+            declared.put(key, new ArrayList<>(foreignKeys));
+            for (DatabaseService.ForeignKey foreignKey : foreignKeys) {
+                link(upper(foreignKey.getTable()), foreignKey);
+                link(upper(foreignKey.getReferencedTable()), foreignKey);
+            }
+        }
+    }
+
+    /**
+     * Forget a dropped table with its keys and the keys referencing it
+     */
+    public void removeTable(String table) {
+        String key = upper(table);
+        putTable(key, Collections.emptyList());
+        List<DatabaseService.ForeignKey> referencing = edges.remove(key);
+        if (referencing != null) {
+            for (DatabaseService.ForeignKey foreignKey : new ArrayList<>(referencing)) {
+                unlink(foreignKey);
+                List<DatabaseService.ForeignKey> owner = declared.get(upper(foreignKey.getTable()));
+                if (owner != null) {
+                    owner.remove(foreignKey);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        edges.clear();
+        declared.clear();
+    }
+
+    /**
+     * Shortest join paths from any of the source tables, at most maxJoins joins long
+     */
+    public Paths pathsFrom(Collection<String> sources, int maxJoins) {
+        Map<String, Step> reached = new HashMap<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        for (String source : sources) {
+            String key = upper(source);
+            if (reached.putIfAbsent(key, new Step(key, null, null, 0, 0, false)) == null) {
+                queue.add(key);
+            }
+        }
+        while (!queue.isEmpty()) {
+            String table = queue.poll();
+            Step current = reached.get(table);
+            if (current.joins == maxJoins) {
+                continue;
+            }
+            for (DatabaseService.ForeignKey foreignKey : edges.getOrDefault(table, Collections.emptyList())) {
+                // Up: from the table declaring the key to the table it references
+                boolean up = upper(foreignKey.getTable()).equals(table);
+                String next = up ? upper(foreignKey.getReferencedTable()) : upper(foreignKey.getTable());
+                int turns = current.turns + (current.up && !up ? 1 : 0);
+                Step known = reached.get(next);
+                if (known == null) {
+                    reached.put(next, new Step(next, table, foreignKey, current.joins + 1, turns, up));
+                    queue.add(next);
+                } else if (known.joins == current.joins + 1 && turns < known.turns) {
+                    // Still queued, its own steps are taken after this level
+                    reached.put(next, new Step(next, table, foreignKey, known.joins, turns, up));
+                }
+            }
+        }
+        return new Paths(reached);
+    }
+
+    private void link(String table, DatabaseService.ForeignKey foreignKey) {
+        List<DatabaseService.ForeignKey> keys = edges.computeIfAbsent(table, t -> new ArrayList<>());
+        if (!keys.contains(foreignKey)) {
+            keys.add(foreignKey);
+        }
+    }
+
+    private void unlink(DatabaseService.ForeignKey foreignKey) {
+        for (String table : List.of(upper(foreignKey.getTable()), upper(foreignKey.getReferencedTable()))) {
+            List<DatabaseService.ForeignKey> keys = edges.get(table);
+            if (keys != null) {
+                keys.remove(foreignKey);
+                if (keys.isEmpty()) {
+                    edges.remove(table);
+                }
+            }
+        }
+    }
+
+    private static String upper(String table) {
+        return table.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Result of a search, read back one target at a time
+     */
+    public static class Paths {
+        private final Map<String, Step> reached;
+
+        private Paths(Map<String, Step> reached) {
+            this.reached = reached;
+        }
+
+        /**
+         * Joins from a source table to the target in order, empty for a source itself,
+         * null when the target cannot be reached
+         */
+        public List<Step> pathTo(String table) {
+            Step step = reached.get(upper(table));
+            if (step == null) {
+                return null;
+            }
+            List<Step> path = new ArrayList<>(step.joins);
+            while (step.foreignKey != null) {
+                path.add(step);
+                step = reached.get(step.previous);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    /**
+     * One join: the table reached, the table it is joined to and the key between them
+     */
+    public static class Step {
+        private final String table;
+        private final String previous;
+        private final DatabaseService.ForeignKey foreignKey;
+        private final int joins;
+        private final int turns;
+        private final boolean up;
+
+        private Step(String table, String previous, DatabaseService.ForeignKey foreignKey,
+                     int joins, int turns, boolean up) {
+            this.table = table;
+            this.previous = previous;
+            this.foreignKey = foreignKey;
+            this.joins = joins;
+            this.turns = turns;
+            this.up = up;
+        }
+
+        public String getTable() { return table; }
+        public String getPrevious() { return previous; }
+        public DatabaseService.ForeignKey getForeignKey() { return foreignKey; }
+    }
+}
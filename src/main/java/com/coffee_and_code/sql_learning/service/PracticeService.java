@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -329,6 +330,14 @@ public class PracticeService {
                 return false;
             }
 
+            // Decimals may be stored at their column's scale, so 2.5 and 2.50 are the same answer
+            if (expectedValue instanceof BigDecimal && actualValue instanceof BigDecimal) {
+                if (((BigDecimal) expectedValue).compareTo((BigDecimal) actualValue) != 0) {
+                    return false;
+                }
+                continue;
+            }
+
             // Convert to strings for comparison (handles different number types)
             if (!expectedValue.toString().equals(actualValue.toString())) {
                 return false;
@@ -411,7 +420,13 @@ public class PracticeService {
                 "easy",
                 "💡 Use LEFT JOIN to include all persons and get null for missing addresses.",
                 "SELECT p.firstName, p.lastName, a.city, a.state FROM Person p LEFT JOIN Address a ON p.personId = a.personId;",
-                null
+                null,
+                List.of(
+                        "CREATE TABLE Person (personId INT PRIMARY KEY, lastName VARCHAR(50), firstName VARCHAR(50))",
+                        "INSERT INTO Person VALUES (1, 'Wang', 'Allen'), (2, 'Alice', 'Bob')",
+                        "CREATE TABLE Address (addressId INT PRIMARY KEY, personId INT, city VARCHAR(50), state VARCHAR(50))",
+                        "INSERT INTO Address VALUES (1, 2, 'New York City', 'New York'), (2, 3, 'Leetcode', 'California')"
+                )
         );
     }
 
@@ -918,9 +933,19 @@ public class PracticeService {
         private String hint;
         private String solution;
         private DatabaseService.QueryResult expectedResult;
+        private List<String> fixtureSql;
 
         public PracticeQuestion(String id, String title, String description, String exampleSql,
                                 String difficulty, String hint, String solution, DatabaseService.QueryResult expectedResult) {
+            this(id, title, description, exampleSql, difficulty, hint, solution, expectedResult, List.of());
+        }
+
+        /**
+         * Question with its own tables; fixtureSql creates and fills them in the question's schema
+         */
+        public PracticeQuestion(String id, String title, String description, String exampleSql,
+                                String difficulty, String hint, String solution, DatabaseService.QueryResult expectedResult,
+                                List<String> fixtureSql) {
             this.id = id;
             this.title = title;
             this.description = description;
@@ -929,6 +954,7 @@ public class PracticeService {
             this.hint = hint;
             this.solution = solution;
             this.expectedResult = expectedResult;
+            this.fixtureSql = fixtureSql;
         }
 
         // Getters
@@ -940,6 +966,8 @@ public class PracticeService {
         public String getHint() { return hint; }
         public String getSolution() { return solution; }
         public DatabaseService.QueryResult getExpectedResult() { return expectedResult; }
+        public List<String> getFixtureSql() { return fixtureSql; }
+        public boolean hasFixture() { return !fixtureSql.isEmpty(); }
 
         // Get difficulty as enum for backward compatibility
         public DifficultyLevel getDifficultyEnum() {
@@ -0,0 +1,175 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of prepared statements for one pooled connection, so
+ * re-running the same SQL skips H2's parse and planning step. Statements are keyed
+ * by normalized SQL text and dropped when the schema version changes.
+ * Only the thread holding the connection's lease uses the cache.
+ */
+public class PreparedStatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final Connection connection;
+    private final int capacity;
+    private final AtomicLong schemaVersion;
+    private final Counters counters;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private long cachedVersion;
+
+    PreparedStatementCache(Connection connection, int capacity, AtomicLong schemaVersion, Counters counters) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.schemaVersion = schemaVersion;
+        this.counters = counters;
+        this.cachedVersion = schemaVersion.get();
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cached statement for the SQL, prepared on a miss. The caller must not close it.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        long version = schemaVersion.get();
+        if (version != cachedVersion) {
+            if (!statements.isEmpty()) {
+                counters.invalidations.increment();
+            }
+            clear();
+            cachedVersion = version;
+        }
+
+        String key = normalize(sql);
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            counters.hits.increment();
+            return statement;
+        }
+
+        counters.misses.increment();
+        statement = connection.prepareStatement(sql);
+        statements.put(key, statement);
+        if (statements.size() > capacity) {
+            Iterator<PreparedStatement> eldest = statements.values().iterator();
+            closeQuietly(eldest.next());
+            eldest.remove();
+            counters.evictions.increment();
+        }
+        return statement;
+    }
+
+    int size() { return statements.size(); }
+
+    /**
+     * Close and drop every cached statement
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing cached statement", e);
+        }
+    }
+
+    /**
+     * Trim, drop trailing semicolons and collapse whitespace runs outside literals and comments
+     */
+    static String normalize(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        StringBuilder key = new StringBuilder(end);
+        int i = 0;
+        while (i < end) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < end && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (key.length() > 0) {
+                    key.append(' ');
+                }
+                continue;
+            }
+            int skipTo = i + 1;
+            if (c == '\'' || c == '"' || c == '`') {
+                skipTo = sql.indexOf(c, i + 1);
+                while (skipTo >= 0 && skipTo + 1 < end && sql.charAt(skipTo + 1) == c) {
+                    skipTo = sql.indexOf(c, skipTo + 2);
+                }
+                skipTo = skipTo < 0 ? end : skipTo + 1;
+            } else if (c == '-' && i + 1 < end && sql.charAt(i + 1) == '-') {
+                // Keep the line break so the comment does not swallow the next line
+                skipTo = sql.indexOf('\n', i);
+                skipTo = skipTo < 0 ? end : skipTo + 1;
+            } else if (c == '/' && i + 1 < end && sql.charAt(i + 1) == '*') {
+                skipTo = sql.indexOf("*/", i + 2);
+                skipTo = skipTo < 0 ? end : skipTo + 2;
+            }
+            key.append(sql, i, Math.min(skipTo, end));
+            i = skipTo;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Hit and miss counters shared by the caches of one pool
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        final LongAdder invalidations = new LongAdder();
+    }
+
+    public static class Metrics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int cachedStatements;
+
+        public Metrics(long hits, long misses, long evictions, long invalidations, int cachedStatements) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.cachedStatements = cachedStatements;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+        public int getCachedStatements() { return cachedStatements; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups > 0 ? (double) hits / lookups : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hit(s), %d miss(es) (%.0f%% hit rate), %d cached, %d evicted",
+                    hits, misses, getHitRate() * 100, cachedStatements, evictions);
+        }
+    }
+}
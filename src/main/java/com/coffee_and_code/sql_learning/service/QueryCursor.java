@@ -0,0 +1,103 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Open server-side cursor over a query result that is read in chunks.
+ * Holds its pooled connection until closed.
+ */
+public class QueryCursor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCursor.class);
+
+    private final ConnectionPool.Lease lease;
+    private final QueryHandle handle;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private ResultSetMetaData metaData;
+    private List<String> columnNames;
+    private boolean exhausted;
+    private boolean closed;
+    private long rowsFetched;
+
+    QueryCursor(ConnectionPool.Lease lease, QueryHandle handle) {
+        this.lease = lease;
+        this.handle = handle;
+    }
+
+    /**
+     * Execute the query with lazy execution enabled so H2 produces rows as they are read
+     */
+    void open(String sql, int queryTimeoutSeconds, int fetchSize) throws SQLException {
+        try (Statement setup = lease.getConnection().createStatement()) {
+            setup.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        }
+        statement = lease.prepareCached(sql);
+        statement.setQueryTimeout(queryTimeoutSeconds);
+        statement.setFetchSize(fetchSize);
+        handle.attach(statement);
+        resultSet = statement.executeQuery();
+
+        metaData = resultSet.getMetaData();
+        List<String> names = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            names.add(metaData.getColumnLabel(i));
+        }
+        columnNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Read up to maxRows further rows. Returns an empty result once the cursor is exhausted.
+     */
+    public DatabaseService.QueryResult fetch(int maxRows) throws SQLException {
+        DatabaseService.QueryResult.Builder builder = new DatabaseService.QueryResult.Builder(columnNames, metaData);
+        while (!exhausted && builder.getRowCount() < maxRows) {
+            if (!resultSet.next()) {
+                exhausted = true;
+                break;
+            }
+            builder.addRow(resultSet);
+        }
+        rowsFetched += builder.getRowCount();
+        return builder.build();
+    }
+
+    public List<String> getColumnNames() { return columnNames; }
+    public boolean isExhausted() { return exhausted; }
+    public long getRowsFetched() { return rowsFetched; }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                // The statement belongs to the connection's statement cache and stays open
+                handle.detach(statement);
+                statement.setFetchSize(0);
+            }
+            try (Statement reset = lease.getConnection().createStatement()) {
+                reset.execute("SET LAZY_QUERY_EXECUTION FALSE");
+            }
+        } catch (SQLException e) {
+            logger.warn("Error closing query cursor, discarding its connection: {}", e.getMessage());
+            lease.invalidate();
+        } finally {
+            lease.close();
+        }
+    }
+}
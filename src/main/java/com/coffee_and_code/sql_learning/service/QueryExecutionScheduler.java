@@ -0,0 +1,276 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs editor queries with bounded concurrency instead of a new thread per click.
+ * Identical in-flight submissions are collapsed, a submission from a source such as
+ * the editor supersedes (cancels) that source's older ones, and other submissions
+ * wait in the queue or are rejected once it is full.
+ * Each submission gets its own thread, virtual when the runtime has them, and
+ * waits for one of the running permits.
+ */
+public class QueryExecutionScheduler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueryExecutionScheduler.class);
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int queueCapacity;
+    private final Map<String, Submission> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile QueueListener queueListener;
+
+    public QueryExecutionScheduler() {
+        this(Integer.getInteger("sqllearning.exec.maxConcurrent", 2),
+                Integer.getInteger("sqllearning.exec.queueCapacity", 8));
+    }
+
+    public QueryExecutionScheduler(int maxConcurrent, int queueCapacity) {
+        this.executor = createExecutor();
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * A thread per submission: virtual threads when the runtime has them (JDK 21+),
+     * cached platform daemon threads otherwise
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "query-exec-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            logger.info("Query execution scheduler using virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "query-exec-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void setQueueListener(QueueListener queueListener) {
+        this.queueListener = queueListener;
+        notifyQueueListener();
+    }
+
+    /**
+     * Submit SQL for execution behind the submissions already queued.
+     * If the same text is already in flight, the existing submission is returned instead of running it again.
+     *
+     * @throws RejectedExecutionException if the execution queue is saturated
+     */
+    public Submission submit(String sql, Function<QueryHandle, DatabaseService.ExecutionResult> job) {
+        return submit(null, sql, job);
+    }
+
+    /**
+     * Submit SQL for execution on behalf of a source, e.g. the editor. The source's other
+     * in-flight submissions are cancelled so its latest one wins, a null source cancels nothing.
+     * If the same text is already in flight, the existing submission is returned instead of running it again.
+     *
+     * @throws RejectedExecutionException if the execution queue is saturated
+     */
+    public Submission submit(String source, String sql, Function<QueryHandle, DatabaseService.ExecutionResult> job) {
+        String key = normalize(sql);
+
+        Submission existing = inFlight.get(key);
+        if (existing != null && !existing.getResult().isDone()) {
+            logger.debug("Collapsing duplicate submission of in-flight query");
+            existing.duplicates.incrementAndGet();
+            return existing;
+        }
+
+        if (source != null) {
+            supersede(source);
+        }
+
+        if (queued.get() >= queueCapacity) {
+            logger.warn("Query execution queue is full ({} queued)", queued.get());
+            throw new RejectedExecutionException("Query execution queue is full");
+        }
+        Submission submission = new Submission(key, source, queued);
+        inFlight.put(key, submission);
+        queued.incrementAndGet();
+        try {
+            submission.future = executor.submit(() -> run(submission, job));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, submission);
+            submission.dequeue();
+            throw e;
+        } finally {
+            notifyQueueListener();
+        }
+        return submission;
+    }
+
+    private void run(Submission submission, Function<QueryHandle, DatabaseService.ExecutionResult> job) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            // Cancelled while queued, or the scheduler was closed
+            if (submission.dequeue()) {
+                submission.result.complete(new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0));
+            }
+            inFlight.remove(submission.key, submission);
+            notifyQueueListener();
+            return;
+        }
+        if (!submission.start()) {
+            // Cancelled while waiting for the permit
+            permits.release();
+            return;
+        }
+        running.incrementAndGet();
+        notifyQueueListener();
+        try {
+            if (submission.handle.isCancelled()) {
+                submission.result.complete(
+                        new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0));
+            } else {
+                submission.result.complete(job.apply(submission.handle));
+            }
+        } catch (Throwable e) {
+            // Errors too, so the submission's result never stays incomplete
+            submission.result.completeExceptionally(e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            inFlight.remove(submission.key, submission);
+            running.decrementAndGet();
+            permits.release();
+            notifyQueueListener();
+        }
+    }
+
+    /**
+     * Cancel the source's in-flight submissions, or every one for a null source: running
+     * ones through their statement, queued ones before they take a permit
+     */
+    private void supersede(String source) {
+        for (Submission submission : inFlight.values()) {
+            if (source == null || source.equals(submission.source)) {
+                submission.superseded = true;
+                submission.cancel();
+            }
+        }
+        // Queued submissions cancelled above will never run, so drop them here
+        inFlight.values().removeIf(submission -> submission.getResult().isDone());
+    }
+
+    private String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    public int getQueuedCount() { return queued.get(); }
+    public int getRunningCount() { return running.get(); }
+
+    private void notifyQueueListener() {
+        QueueListener listener = queueListener;
+        if (listener != null) {
+            listener.queueChanged(getQueuedCount(), getRunningCount());
+        }
+    }
+
+    @Override
+    public void close() {
+        supersede(null);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Notified from scheduler threads whenever the queue depth changes
+     */
+    @FunctionalInterface
+    public interface QueueListener {
+        void queueChanged(int queued, int running);
+    }
+
+    /**
+     * A scheduled execution of one editor text
+     */
+    public static class Submission {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final String key;
+        private final String source;
+        private final AtomicInteger queued;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final QueryHandle handle = new QueryHandle();
+        private final CompletableFuture<DatabaseService.ExecutionResult> result = new CompletableFuture<>();
+        private final AtomicInteger duplicates = new AtomicInteger();
+        private volatile Future<?> future;
+        private volatile boolean superseded;
+
+        private Submission(String key, String source, AtomicInteger queued) {
+            this.key = key;
+            this.source = source;
+            this.queued = queued;
+        }
+
+        private boolean start() {
+            if (state.compareAndSet(QUEUED, RUNNING)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean dequeue() {
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public QueryHandle getHandle() { return handle; }
+        public CompletableFuture<DatabaseService.ExecutionResult> getResult() { return result; }
+        public boolean isSuperseded() { return superseded; }
+
+        /**
+         * Number of identical submissions that were collapsed into this one
+         */
+        public int getDuplicateCount() { return duplicates.get(); }
+
+        /**
+         * Cancel the submission whether it is still queued or already running
+         */
+        public boolean cancel() {
+            boolean cancelled = handle.cancel();
+            if (dequeue()) {
+                // Never started, so complete it here and stop its wait for a permit
+                result.complete(new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0));
+                Future<?> scheduled = future;
+                if (scheduled != null) {
+                    scheduled.cancel(true);
+                }
+                cancelled = true;
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Handle to a running query that lets the UI cancel it and read its elapsed time
+ */
+public class QueryHandle {
+    private static final Logger logger = LoggerFactory.getLogger(QueryHandle.class);
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile Statement statement;
+    private volatile boolean cancelled;
+
+    /**
+     * Register the statement currently executing for this handle.
+     * If cancel was requested before the statement existed, it is cancelled right away.
+     */
+    void attach(Statement statement) {
+        this.statement = statement;
+        if (cancelled) {
+            cancelStatement(statement);
+        }
+    }
+
+    /**
+     * Forget the statement once it has finished executing
+     */
+    void detach(Statement statement) {
+        if (this.statement == statement) {
+            this.statement = null;
+        }
+    }
+
+    /**
+     * Mark the execution as finished so the elapsed time stops counting
+     */
+    void complete() {
+        if (endNanos == 0) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Request cancellation through Statement.cancel(). Safe to call from any thread.
+     *
+     * @return false if the handle was already cancelled or finished
+     */
+    public boolean cancel() {
+        if (cancelled || isDone()) {
+            return false;
+        }
+        cancelled = true;
+        Statement current = statement;
+        if (current != null) {
+            cancelStatement(current);
+        }
+        return true;
+    }
+
+    private void cancelStatement(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            logger.warn("Failed to cancel statement: {}", e.getMessage());
+        }
+    }
+
+    public boolean isCancelled() { return cancelled; }
+    public boolean isDone() { return endNanos != 0; }
+
+    /**
+     * Milliseconds since the handle was created, frozen once the execution completes
+     */
+    public long getElapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+}
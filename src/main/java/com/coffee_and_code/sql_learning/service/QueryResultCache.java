@@ -0,0 +1,162 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Memory-bounded LRU cache of query results keyed by normalized SQL.
+ * Every entry belongs to one data version; once any statement that can change
+ * data runs, the version moves on and the whole cache is dropped.
+ */
+public class QueryResultCache {
+    // Functions whose value changes between executions of the same query
+    private static final Pattern VOLATILE_FUNCTIONS = Pattern.compile("\\b(RAND|RANDOM|RANDOM_UUID|UUID|SECURE_RAND"
+            + "|NOW|CURRENT_TIMESTAMP|CURRENT_DATE|CURRENT_TIME|LOCALTIME|LOCALTIMESTAMP|SYSDATE|SYSTIMESTAMP"
+            + "|GETDATE|NEXTVAL|CURRVAL|NEXT\\s+VALUE|SESSION_ID|MEMORY_FREE|MEMORY_USED|SLEEP)\\b");
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, DatabaseService.QueryResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version;
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public QueryResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        // A single result may take at most a quarter of the budget
+        this.maxEntryBytes = maxBytes / 4;
+    }
+
+    /**
+     * Only single read-only queries without volatile functions are cached
+     */
+    public static boolean isCacheable(String sql) {
+        List<SqlStatement> statements = SqlScriptSplitter.split(sql);
+        return statements.size() == 1 && statements.get(0).isQuery()
+                && !VOLATILE_FUNCTIONS.matcher(sql.toUpperCase(Locale.ROOT)).find();
+    }
+
+    /**
+     * Cached result of the query at the given data version, or null
+     */
+    public synchronized DatabaseService.QueryResult get(String sql, long dataVersion) {
+        dropIfStale(dataVersion);
+        DatabaseService.QueryResult result = entries.get(PreparedStatementCache.normalize(sql));
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    public synchronized void put(String sql, long dataVersion, DatabaseService.QueryResult result) {
+        // Spilled results are released with their table, so they are never shared
+        if (dataVersion < version || result.isSpilled() || !isCacheable(sql)) {
+            return;
+        }
+        long size = result.estimatedBytes();
+        if (size > maxEntryBytes) {
+            return;
+        }
+        dropIfStale(dataVersion);
+        DatabaseService.QueryResult previous = entries.put(PreparedStatementCache.normalize(sql), result);
+        if (previous != null) {
+            bytes -= previous.estimatedBytes();
+        }
+        bytes += size;
+        Iterator<DatabaseService.QueryResult> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().estimatedBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Collects the chunks of a streamed query and caches them as one result if the stream completes
+     */
+    public Collector collector(String sql, long dataVersion) {
+        return new Collector(sql, dataVersion);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void dropIfStale(long dataVersion) {
+        if (dataVersion > version) {
+            entries.clear();
+            bytes = 0;
+            version = dataVersion;
+        }
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(hits, misses, entries.size(), bytes);
+    }
+
+    public final class Collector {
+        private final String sql;
+        private final long dataVersion;
+        private final List<DatabaseService.QueryResult> chunks = new ArrayList<>();
+        private long collectedBytes;
+        private boolean abandoned;
+
+        private Collector(String sql, long dataVersion) {
+            this.sql = sql;
+            this.dataVersion = dataVersion;
+            this.abandoned = !isCacheable(sql);
+        }
+
+        public void accept(DatabaseService.QueryResult chunk) {
+            if (abandoned) {
+                return;
+            }
+            collectedBytes += chunk.estimatedBytes();
+            if (collectedBytes > maxEntryBytes) {
+                abandoned = true;
+                chunks.clear();
+            } else {
+                chunks.add(chunk);
+            }
+        }
+
+        public void complete() {
+            if (!abandoned && !chunks.isEmpty()) {
+                put(sql, dataVersion, DatabaseService.QueryResult.concat(chunks));
+            }
+            chunks.clear();
+        }
+    }
+
+    public static class Metrics {
+        private final long hits;
+        private final long misses;
+        private final int entries;
+        private final long bytes;
+
+        public Metrics(long hits, long misses, int entries, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public int getEntries() { return entries; }
+        public long getBytes() { return bytes; }
+
+        @Override
+        public String toString() {
+            return String.format("%d hit(s), %d miss(es), %d result(s) in %.1f MB",
+                    hits, misses, entries, bytes / (1024.0 * 1024.0));
+        }
+    }
+}
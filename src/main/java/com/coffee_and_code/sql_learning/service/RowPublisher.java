@@ -0,0 +1,176 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold, single-subscriber publisher that streams a query result in chunks.
+ * The query runs when the subscriber first requests data, and each requested
+ * element is one chunk of rows, so the subscriber's demand bounds how much is fetched.
+ */
+public class RowPublisher implements Flow.Publisher<DatabaseService.QueryResult> {
+    private static final Logger logger = LoggerFactory.getLogger(RowPublisher.class);
+
+    private final CursorOpener opener;
+    private final QueryHandle handle;
+    private final int chunkSize;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final ColumnProfiler profiler = new ColumnProfiler();
+    private final QueryResultCache.Collector cacheCollector;
+
+    RowPublisher(CursorOpener opener, QueryHandle handle, int chunkSize, Executor executor,
+                 QueryResultCache.Collector cacheCollector) {
+        this.opener = opener;
+        this.handle = handle;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.cacheCollector = cacheCollector;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DatabaseService.QueryResult> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override public void request(long n) { }
+                @Override public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("RowPublisher supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+
+    public QueryHandle getHandle() { return handle; }
+
+    /**
+     * Profile of the rows fetched so far, built in the background as chunks are emitted
+     */
+    public ColumnProfiler getProfiler() { return profiler; }
+
+    @FunctionalInterface
+    interface CursorOpener {
+        QueryCursor open() throws SQLException;
+    }
+
+    /**
+     * Drains chunks on the executor while there is outstanding demand.
+     * The wip counter makes sure only one drain runs at a time.
+     */
+    private final class ChunkSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super DatabaseService.QueryResult> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // Only touched from the drain loop
+        private QueryCursor cursor;
+        private boolean emittedFirst;
+        private boolean done;
+
+        private ChunkSubscription(Flow.Subscriber<? super DatabaseService.QueryResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " chunks, must be positive");
+            } else {
+                demand.accumulateAndGet(n, (current, add) -> {
+                    long sum = current + add;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            handle.cancel();
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            try {
+                while (demand.get() > 0 && !cancelled) {
+                    if (cursor == null) {
+                        cursor = opener.open();
+                    }
+                    DatabaseService.QueryResult chunk = cursor.fetch(chunkSize);
+                    // Always emit the first chunk so the subscriber learns the columns of an empty result
+                    if (chunk.getRowCount() > 0 || !emittedFirst) {
+                        emittedFirst = true;
+                        demand.decrementAndGet();
+                        profiler.accept(chunk);
+                        cacheCollector.accept(chunk);
+                        subscriber.onNext(chunk);
+                    }
+                    if (cursor.isExhausted()) {
+                        finish();
+                        subscriber.onComplete();
+                        // Only a fully read result is cached
+                        cacheCollector.complete();
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    finish();
+                }
+            } catch (SQLException | RuntimeException e) {
+                boolean wasCancelled = cancelled;
+                finish();
+                if (!wasCancelled) {
+                    logger.debug("Result stream failed: {}", e.getMessage());
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+            handle.complete();
+        }
+    }
+}
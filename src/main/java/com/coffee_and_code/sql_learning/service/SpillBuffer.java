@@ -0,0 +1,586 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Disk-backed storage for query results that outgrow the heap threshold.
+ *
+ * Rows are written as fixed-width records (null bitmap, indirect bitmap, one
+ * 8-byte slot per column) so row i lives at i * recordWidth and no offset index
+ * is needed. Strings and values that don't fit a slot go to a second file and
+ * the slot holds their offset. OBJECT values are stored there with a type tag so
+ * timestamps, times and UUIDs read back as the same Java types. Both files are
+ * memory-mapped read-only once the result is complete, so heap usage does not
+ * grow with the number of rows.
+ */
+public class SpillBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(SpillBuffer.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    // Type tags of OBJECT values in the variable-length file
+    private static final byte TEXT = 0;
+    private static final byte TIMESTAMP = 1;
+    private static final byte TIME = 2;
+    private static final byte OFFSET_DATE_TIME = 3;
+    private static final byte UUID_VALUE = 4;
+    private static final byte BINARY = 5;
+
+    private final List<String> columnNames;
+    private final ColumnVector.ColumnType[] types;
+    private final int[] scales;
+    private final boolean[] singlePrecision;
+    private final int bitmapBytes;
+    private final int recordWidth;
+    private final SpillFiles files;
+
+    private final FileChannel rowChannel;
+    private final FileChannel varChannel;
+    // Write buffers are dropped once the result is finished
+    private ByteBuffer rowBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private ByteBuffer varBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private final byte[] rowBitmaps;
+    private final long[] rowSlots;
+    private long varPosition;
+    private int rowCount;
+
+    SpillBuffer(List<String> columnNames, ColumnVector[] templates) throws IOException {
+        this.columnNames = columnNames;
+        int columnCount = templates.length;
+        this.types = new ColumnVector.ColumnType[columnCount];
+        this.scales = new int[columnCount];
+        this.singlePrecision = new boolean[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            types[c] = templates[c].getType();
+            if (templates[c] instanceof ColumnVector.DecimalVector) {
+                scales[c] = ((ColumnVector.DecimalVector) templates[c]).getScale();
+            } else if (templates[c] instanceof ColumnVector.DoubleVector) {
+                singlePrecision[c] = ((ColumnVector.DoubleVector) templates[c]).isSinglePrecision();
+            }
+        }
+        this.bitmapBytes = (columnCount + 7) / 8;
+        this.recordWidth = 2 * bitmapBytes + 8 * columnCount;
+        this.rowBitmaps = new byte[2 * bitmapBytes];
+        this.rowSlots = new long[columnCount];
+
+        Path rowFile = Files.createTempFile("sqllearning-result-", ".rows");
+        Path varFile = Files.createTempFile("sqllearning-result-", ".var");
+        this.files = new SpillFiles(rowFile, varFile);
+        this.rowChannel = FileChannel.open(rowFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        this.varChannel = FileChannel.open(varFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        files.channels = new FileChannel[]{rowChannel, varChannel};
+        logger.info("Spilling query result to {}", rowFile);
+    }
+
+    /**
+     * Copy one row that was already buffered in memory
+     */
+    void appendFrom(ColumnVector[] columns, int row) throws IOException {
+        beginRow();
+        for (int c = 0; c < columns.length; c++) {
+            ColumnVector column = columns[c];
+            if (column.isNull(row)) {
+                setNull(c);
+                continue;
+            }
+            switch (types[c]) {
+                case INT:
+                case DATE:
+                case BOOLEAN:
+                    rowSlots[c] = column.getInt(row);
+                    break;
+                case LONG:
+                    rowSlots[c] = column.getLong(row);
+                    break;
+                case DOUBLE:
+                    rowSlots[c] = Double.doubleToRawLongBits(column.getDouble(row));
+                    break;
+                case DECIMAL:
+                    setDecimal(c, (BigDecimal) column.getObject(row));
+                    break;
+                case TIMESTAMP:
+                    setTimestamp(c, (Timestamp) column.getObject(row));
+                    break;
+                case STRING:
+                    setIndirect(c, column.getString(row));
+                    break;
+                default:
+                    setObject(c, column.getObject(row));
+                    break;
+            }
+        }
+        endRow();
+    }
+
+    /**
+     * Write the result set's current row using typed getters
+     */
+    void append(ResultSet rs) throws SQLException, IOException {
+        beginRow();
+        for (int c = 0; c < types.length; c++) {
+            int column = c + 1;
+            switch (types[c]) {
+                case INT:
+                case LONG:
+                    rowSlots[c] = rs.getLong(column);
+                    break;
+                case DOUBLE: {
+                    double value = singlePrecision[c]
+                            ? ColumnVector.DoubleVector.widen(rs.getFloat(column)) : rs.getDouble(column);
+                    rowSlots[c] = Double.doubleToRawLongBits(value);
+                    break;
+                }
+                case BOOLEAN:
+                    rowSlots[c] = rs.getBoolean(column) ? 1 : 0;
+                    break;
+                case DATE: {
+                    LocalDate date = rs.getObject(column, LocalDate.class);
+                    if (date != null) {
+                        rowSlots[c] = date.toEpochDay();
+                    }
+                    break;
+                }
+                case DECIMAL: {
+                    BigDecimal decimal = rs.getBigDecimal(column);
+                    if (decimal != null) {
+                        setDecimal(c, decimal);
+                    }
+                    break;
+                }
+                case TIMESTAMP: {
+                    Timestamp timestamp = rs.getTimestamp(column);
+                    if (timestamp != null) {
+                        setTimestamp(c, timestamp);
+                    }
+                    break;
+                }
+                case STRING:
+                    setIndirectOrNull(c, rs.getString(column));
+                    break;
+                default: {
+                    Object value = rs.getObject(column);
+                    if (value != null) {
+                        setObject(c, value);
+                    }
+                    break;
+                }
+            }
+            if (rs.wasNull()) {
+                setNull(c);
+            }
+        }
+        endRow();
+    }
+
+    private void beginRow() {
+        Arrays.fill(rowBitmaps, (byte) 0);
+        Arrays.fill(rowSlots, 0L);
+    }
+
+    private void setNull(int column) {
+        rowBitmaps[column >>> 3] |= (byte) (1 << (column & 7));
+    }
+
+    private void setDecimal(int column, BigDecimal decimal) throws IOException {
+        decimal = ColumnVector.DecimalVector.atScale(decimal, scales[column]);
+        BigInteger unscaled = decimal.unscaledValue();
+        if (decimal.scale() == scales[column] && unscaled.bitLength() < 64) {
+            rowSlots[column] = unscaled.longValue();
+        } else {
+            setIndirect(column, decimal.toString());
+        }
+    }
+
+    private void setTimestamp(int column, Timestamp timestamp) throws IOException {
+        try {
+            rowSlots[column] = ColumnVector.TimestampVector.toEpochNanos(timestamp);
+        } catch (ArithmeticException e) {
+            setObject(column, timestamp);
+        }
+    }
+
+    private void setIndirectOrNull(int column, String value) throws IOException {
+        if (value != null) {
+            setIndirect(column, value);
+        }
+    }
+
+    private void setIndirect(int column, String value) throws IOException {
+        rowBitmaps[bitmapBytes + (column >>> 3)] |= (byte) (1 << (column & 7));
+        rowSlots[column] = writeVar(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void setObject(int column, Object value) throws IOException {
+        rowBitmaps[bitmapBytes + (column >>> 3)] |= (byte) (1 << (column & 7));
+        rowSlots[column] = writeVar(encodeObject(value));
+    }
+
+    /**
+     * Tagged binary form of an OBJECT value; types without one keep their string form
+     */
+    private static byte[] encodeObject(Object value) {
+        if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            return ByteBuffer.allocate(13).put(TIMESTAMP)
+                    .putLong(timestamp.getTime()).putInt(timestamp.getNanos()).array();
+        }
+        if (value instanceof Time) {
+            return ByteBuffer.allocate(9).put(TIME).putLong(((Time) value).getTime()).array();
+        }
+        if (value instanceof OffsetDateTime) {
+            OffsetDateTime dateTime = (OffsetDateTime) value;
+            return ByteBuffer.allocate(17).put(OFFSET_DATE_TIME).putLong(dateTime.toEpochSecond())
+                    .putInt(dateTime.getNano()).putInt(dateTime.getOffset().getTotalSeconds()).array();
+        }
+        if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            return ByteBuffer.allocate(17).put(UUID_VALUE)
+                    .putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+        }
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            return ByteBuffer.allocate(1 + bytes.length).put(BINARY).put(bytes).array();
+        }
+        byte[] text = value.toString().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + text.length).put(TEXT).put(text).array();
+    }
+
+    private static Object decodeObject(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        switch (bytes[0]) {
+            case TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            }
+            case TIME:
+                return new Time(buffer.getLong());
+            case OFFSET_DATE_TIME: {
+                Instant instant = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+                return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(buffer.getInt()));
+            }
+            case UUID_VALUE:
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case BINARY:
+                return Arrays.copyOfRange(bytes, 1, bytes.length);
+            default:
+                return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Append a length-prefixed entry to the variable-length file and return its offset.
+     * Entries never straddle a mapping segment boundary.
+     */
+    private long writeVar(byte[] bytes) throws IOException {
+        int entryBytes = 4 + bytes.length;
+        long segmentOffset = varPosition % MAX_SEGMENT_BYTES;
+        if (segmentOffset + entryBytes > MAX_SEGMENT_BYTES) {
+            long padding = MAX_SEGMENT_BYTES - segmentOffset;
+            for (long i = 0; i < padding; i++) {
+                putVar((byte) 0);
+            }
+        }
+        long offset = varPosition;
+        if (varBuffer.remaining() < 4) {
+            flush(varBuffer, varChannel);
+        }
+        varBuffer.putInt(bytes.length);
+        varPosition += 4;
+        for (byte b : bytes) {
+            putVar(b);
+        }
+        return offset;
+    }
+
+    private void putVar(byte b) throws IOException {
+        if (!varBuffer.hasRemaining()) {
+            flush(varBuffer, varChannel);
+        }
+        varBuffer.put(b);
+        varPosition++;
+    }
+
+    private void endRow() throws IOException {
+        if (rowBuffer.remaining() < recordWidth) {
+            flush(rowBuffer, rowChannel);
+        }
+        rowBuffer.put(rowBitmaps);
+        for (long slot : rowSlots) {
+            rowBuffer.putLong(slot);
+        }
+        rowCount++;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Flush pending writes, map the files and expose them as a read-only query result
+     */
+    DatabaseService.QueryResult finish() throws IOException {
+        flush(rowBuffer, rowChannel);
+        flush(varBuffer, varChannel);
+        rowBuffer = null;
+        varBuffer = null;
+
+        long rowsPerSegment = Math.max(1, MAX_SEGMENT_BYTES / recordWidth);
+        MappedByteBuffer[] rowSegments = map(rowChannel, (long) rowCount * recordWidth, rowsPerSegment * recordWidth);
+        MappedByteBuffer[] varSegments = map(varChannel, varPosition, MAX_SEGMENT_BYTES);
+        SpilledData data = new SpilledData(rowSegments, varSegments, rowsPerSegment);
+
+        ColumnVector[] columns = new ColumnVector[types.length];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new SpilledColumn(data, c);
+        }
+        logger.info("Spilled {} rows ({} KB) to disk", rowCount,
+                ((long) rowCount * recordWidth + varPosition) / 1024);
+        return new DatabaseService.QueryResult(columnNames, columns, rowCount, this);
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long totalBytes, long segmentBytes) throws IOException {
+        int segmentCount = (int) ((totalBytes + segmentBytes - 1) / segmentBytes);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentBytes;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentBytes, totalBytes - start));
+        }
+        return segments;
+    }
+
+    /**
+     * Close the channels and delete the temporary files
+     */
+    public void delete() {
+        files.run();
+    }
+
+    public boolean isDeleted() { return files.deleted; }
+
+    /**
+     * Register automatic deletion once the owning result becomes unreachable
+     */
+    Cleaner.Cleanable registerCleanup(Object owner) {
+        return CLEANER.register(owner, files);
+    }
+
+    /**
+     * Cleanup action that must not reference the buffer or result themselves
+     */
+    private static final class SpillFiles implements Runnable {
+        private final Path rowFile;
+        private final Path varFile;
+        private volatile FileChannel[] channels;
+        private volatile boolean deleted;
+
+        private SpillFiles(Path rowFile, Path varFile) {
+            this.rowFile = rowFile;
+            this.varFile = varFile;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (deleted) {
+                return;
+            }
+            deleted = true;
+            if (channels != null) {
+                for (FileChannel channel : channels) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.debug("Error closing spill channel", e);
+                    }
+                }
+            }
+            for (Path path : new Path[]{rowFile, varFile}) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    // Still mapped on some platforms, try again when the JVM exits
+                    path.toFile().deleteOnExit();
+                }
+            }
+            logger.debug("Deleted spill files {}", rowFile);
+        }
+    }
+
+    /**
+     * Mapped segments shared by all columns of a spilled result
+     */
+    private final class SpilledData {
+        private final MappedByteBuffer[] rowSegments;
+        private final MappedByteBuffer[] varSegments;
+        private final long rowsPerSegment;
+
+        private SpilledData(MappedByteBuffer[] rowSegments, MappedByteBuffer[] varSegments, long rowsPerSegment) {
+            this.rowSegments = rowSegments;
+            this.varSegments = varSegments;
+            this.rowsPerSegment = rowsPerSegment;
+        }
+
+        private boolean bit(int row, int bitmapOffset, int column) {
+            ByteBuffer segment = rowSegments[(int) (row / rowsPerSegment)];
+            int base = (int) (row % rowsPerSegment) * recordWidth;
+            return (segment.get(base + bitmapOffset + (column >>> 3)) & (1 << (column & 7))) != 0;
+        }
+
+        boolean isNull(int row, int column) {
+            return bit(row, 0, column);
+        }
+
+        boolean isIndirect(int row, int column) {
+            return bit(row, bitmapBytes, column);
+        }
+
+        long slot(int row, int column) {
+            ByteBuffer segment = rowSegments[(int) (row / rowsPerSegment)];
+            int base = (int) (row % rowsPerSegment) * recordWidth;
+            return segment.getLong(base + 2 * bitmapBytes + 8 * column);
+        }
+
+        byte[] varBytes(long offset) {
+            ByteBuffer segment = varSegments[(int) (offset / MAX_SEGMENT_BYTES)];
+            int position = (int) (offset % MAX_SEGMENT_BYTES);
+            byte[] bytes = new byte[segment.getInt(position)];
+            segment.get(position + 4, bytes);
+            return bytes;
+        }
+
+        String var(long offset) {
+            return new String(varBytes(offset), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Read-only column view over the mapped spill files
+     */
+    private final class SpilledColumn extends ColumnVector {
+        private final SpilledData data;
+        private final int column;
+
+        private SpilledColumn(SpilledData data, int column) {
+            this.data = data;
+            this.column = column;
+            this.size = rowCount;
+        }
+
+        @Override public ColumnType getType() { return types[column]; }
+
+        @Override
+        public void append(ResultSet rs, int column) {
+            throw new UnsupportedOperationException("Spilled results are read-only");
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            throw new UnsupportedOperationException("Spilled results are read-only");
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return data.isNull(row, column);
+        }
+
+        @Override public int getInt(int row) { return (int) data.slot(row, column); }
+
+        @Override
+        public long getLong(int row) {
+            return data.slot(row, column);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            switch (types[column]) {
+                case DOUBLE:
+                    return Double.longBitsToDouble(data.slot(row, column));
+                case DECIMAL:
+                    return data.isIndirect(row, column)
+                            ? Double.parseDouble(data.var(data.slot(row, column)))
+                            : data.slot(row, column) / Math.pow(10, scales[column]);
+                default:
+                    return data.slot(row, column);
+            }
+        }
+
+        @Override
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            if (data.isIndirect(row, column)
+                    && (types[column] == ColumnType.STRING || types[column] == ColumnType.DECIMAL)) {
+                return data.var(data.slot(row, column));
+            }
+            return super.getString(row);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            long slot = data.slot(row, column);
+            switch (types[column]) {
+                case INT:
+                    return (int) slot;
+                case LONG:
+                    return slot;
+                case DOUBLE:
+                    return Double.longBitsToDouble(slot);
+                case BOOLEAN:
+                    return slot != 0;
+                case DATE:
+                    return java.sql.Date.valueOf(LocalDate.ofEpochDay(slot));
+                case TIMESTAMP:
+                    return data.isIndirect(row, column)
+                            ? decodeObject(data.varBytes(slot)) : ColumnVector.TimestampVector.fromEpochNanos(slot);
+                case DECIMAL:
+                    return data.isIndirect(row, column)
+                            ? new BigDecimal(data.var(slot))
+                            : BigDecimal.valueOf(slot, scales[column]);
+                case STRING:
+                    return data.var(slot);
+                default:
+                    return decodeObject(data.varBytes(slot));
+            }
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 0;
+        }
+    }
+}
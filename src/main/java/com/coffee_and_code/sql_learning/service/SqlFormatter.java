@@ -0,0 +1,507 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Formats SQL in one pass over the tokens of {@link SqlLexer}: keywords and function
+ * names are upper-cased, clauses start on their own line, subqueries, CTE bodies and
+ * CREATE TABLE columns are indented and list items after commas are aligned under
+ * the first item of their clause.
+ *
+ * The formatter never looks back at the output or ahead in the input, so it runs in
+ * linear time. Besides the output it only keeps the layout of each open parenthesis.
+ */
+public final class SqlFormatter {
+    private static final ExecutorService formatExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-format");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int INDENT = 4;
+
+    // Layout of a nesting level
+    /** Function arguments, IN lists and type arguments stay on one line */
+    private static final int INLINE = 0;
+    /** Just opened, decided by its first token */
+    private static final int PENDING = 1;
+    /** Top level, subquery or CTE body, clauses start on new lines */
+    private static final int BLOCK = 2;
+    /** CREATE TABLE column list, one column per line */
+    private static final int COLUMNS = 3;
+
+    // Values saved per open parenthesis
+    private static final int FRAME_SIZE = 5;
+
+    private final String sql;
+    private final StringBuilder out;
+    private final SqlLexer lexer = new SqlLexer();
+
+    // Layout of the current nesting level
+    private int kind = BLOCK;
+    private int indent;
+    /** Column of the closing parenthesis when it gets a line of its own */
+    private int closeIndent;
+    /** Column of list items after a comma, -1 when commas do not break the line */
+    private int listColumn = -1;
+    private boolean alignPending;
+    private boolean alignToken;
+    private boolean conditionBreaks;
+    private String clause;
+
+    private int[] frames = new int[FRAME_SIZE * 8];
+    private String[] frameClauses = new String[8];
+    private int depth;
+
+    // Output position and the previous token
+    private int column;
+    /** Leading spaces of the current output line */
+    private int lineIndent;
+    private int pendingLines;
+    private int pendingIndent;
+    private SqlLexer.TokenType previousType;
+    private char previousChar;
+    private String previousKeyword;
+    private boolean glueNext;
+    private boolean newlineBefore;
+    /** Input offset after the previous token, and whether the current token starts right there */
+    private int previousEnd = -1;
+    private boolean touching;
+    private boolean tableNameFollows;
+    private boolean betweenOpen;
+
+    // Current statement
+    private boolean statementStart = true;
+    private String statementKeyword;
+    private boolean createTable;
+
+    private SqlFormatter(String sql) {
+        this.sql = sql;
+        this.out = new StringBuilder(sql.length() + sql.length() / 4);
+    }
+
+    public static String format(String sql) {
+        return new SqlFormatter(sql).run();
+    }
+
+    /**
+     * Format on the background formatter thread
+     */
+    public static CompletableFuture<String> formatAsync(String sql) {
+        return CompletableFuture.supplyAsync(() -> format(sql), formatExecutor);
+    }
+
+    private String run() {
+        lexer.reset(sql);
+        while (lexer.next()) {
+            SqlLexer.TokenType type = lexer.getTokenType();
+            if (type == SqlLexer.TokenType.WHITESPACE) {
+                newlineBefore |= containsNewline(lexer.getTokenStart(), lexer.getTokenEnd());
+                continue;
+            }
+            touching = lexer.getTokenStart() == previousEnd;
+            if (type == SqlLexer.TokenType.COMMENT) {
+                comment();
+            } else {
+                token(type);
+            }
+            newlineBefore = false;
+            previousEnd = lexer.getTokenEnd();
+        }
+        if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Comments stay on the line they followed in the input, or get a line of their own
+     */
+    private void comment() {
+        alignToken = false;
+        int lines = pendingLines;
+        if (newlineBefore) {
+            requestBreak(1, continuationIndent());
+        } else {
+            // Keep it behind the previous token, the pending break comes after it
+            pendingLines = 0;
+        }
+        write(lexer.getTokenStart(), lexer.getTokenEnd(), true);
+        if (!newlineBefore && lines > 0) {
+            pendingLines = lines;
+        } else if (sql.startsWith("--", lexer.getTokenStart())) {
+            requestBreak(1, continuationIndent());
+        }
+    }
+
+    private void token(SqlLexer.TokenType type) {
+        String keyword = null;
+        if (type == SqlLexer.TokenType.KEYWORD || type == SqlLexer.TokenType.FUNCTION) {
+            keyword = lexer.tokenText().toUpperCase(Locale.ROOT);
+        }
+        if (kind == PENDING) {
+            kind = "SELECT".equals(keyword) || "WITH".equals(keyword) ? BLOCK : INLINE;
+        }
+        if (statementStart) {
+            statementStart = false;
+            statementKeyword = keyword;
+        }
+        // The first item of a list clause sets the column the following items align to
+        alignToken = alignPending && !isModifier(keyword);
+
+        if (type == SqlLexer.TokenType.PUNCTUATION) {
+            punctuation(lexer.tokenChar());
+        } else if (type == SqlLexer.TokenType.KEYWORD) {
+            keyword(keyword);
+        } else if (type == SqlLexer.TokenType.OPERATOR) {
+            boolean unary = isUnary();
+            write(lexer.getTokenStart(), lexer.getTokenEnd(), !glueNext);
+            glueNext = unary;
+        } else if (keyword != null) {
+            writeWord(keyword);
+        } else {
+            write(lexer.getTokenStart(), lexer.getTokenEnd(), !glueNext);
+            glueNext = false;
+        }
+
+        if ("INTO".equals(keyword) || "TABLE".equals(keyword) || "VIEW".equals(keyword)) {
+            tableNameFollows = true;
+        } else if (type != SqlLexer.TokenType.IDENTIFIER && type != SqlLexer.TokenType.QUOTED_IDENTIFIER
+                && !(type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == '.')
+                && !"IF".equals(keyword) && !"NOT".equals(keyword) && !"EXISTS".equals(keyword)) {
+            tableNameFollows = false;
+        }
+        previousType = type;
+        previousChar = type == SqlLexer.TokenType.PUNCTUATION || type == SqlLexer.TokenType.OPERATOR
+                ? lexer.tokenChar() : '\0';
+        previousKeyword = keyword;
+    }
+
+    private void punctuation(char c) {
+        switch (c) {
+            case ';' -> {
+                write(lexer.getTokenStart(), lexer.getTokenEnd(), false);
+                endStatement();
+            }
+            case ',' -> {
+                write(lexer.getTokenStart(), lexer.getTokenEnd(), false);
+                if (listColumn >= 0 && (kind == BLOCK || kind == COLUMNS)) {
+                    requestBreak(1, listColumn);
+                }
+            }
+            case '(' -> openParenthesis();
+            case ')' -> closeParenthesis();
+            default -> {
+                write(lexer.getTokenStart(), lexer.getTokenEnd(), false);
+                glueNext = true;
+                return;
+            }
+        }
+        glueNext = c == '(';
+    }
+
+    private void openParenthesis() {
+        boolean columns = createTable && depth == 0 && tableNameFollows
+                && (previousType == SqlLexer.TokenType.IDENTIFIER || previousType == SqlLexer.TokenType.QUOTED_IDENTIFIER);
+        boolean call = previousType == SqlLexer.TokenType.FUNCTION
+                || (previousType == SqlLexer.TokenType.IDENTIFIER || previousType == SqlLexer.TokenType.QUOTED_IDENTIFIER)
+                        && !tableNameFollows
+                || previousType == SqlLexer.TokenType.KEYWORD && isCallKeyword(previousKeyword);
+        write(lexer.getTokenStart(), lexer.getTokenEnd(), !glueNext && !call);
+
+        push();
+        // Nest relative to the line the parenthesis opened on, which may be a list item or condition
+        closeIndent = lineIndent;
+        indent = lineIndent + INDENT;
+        listColumn = -1;
+        alignPending = false;
+        conditionBreaks = false;
+        betweenOpen = false;
+        clause = null;
+        if (columns) {
+            createTable = false;
+            kind = COLUMNS;
+            listColumn = indent;
+            requestBreak(1, indent);
+        } else {
+            kind = PENDING;
+        }
+    }
+
+    private void closeParenthesis() {
+        if (depth == 0) {
+            write(lexer.getTokenStart(), lexer.getTokenEnd(), false);
+            return;
+        }
+        boolean multiline = kind == BLOCK || kind == COLUMNS;
+        int close = closeIndent;
+        pop();
+        if (multiline) {
+            requestBreak(1, close);
+        }
+        write(lexer.getTokenStart(), lexer.getTokenEnd(), false);
+    }
+
+    private void keyword(String keyword) {
+        switch (keyword) {
+            case "SELECT", "VALUES" -> startClause(keyword, true, false);
+            case "FROM" -> {
+                if (!"DELETE".equals(previousKeyword)) {
+                    startClause(keyword, false, false);
+                }
+            }
+            case "WHERE", "HAVING" -> startClause(keyword, false, true);
+            case "GROUP", "ORDER" -> {
+                if (kind == BLOCK) {
+                    startClause(keyword, true, false);
+                }
+            }
+            case "LIMIT", "UNION", "EXCEPT", "INTERSECT" -> startClause(keyword, false, false);
+            case "SET" -> {
+                if ("UPDATE".equals(statementKeyword)) {
+                    startClause(keyword, true, false);
+                }
+            }
+            case "WITH" -> {
+                startClause(keyword, false, false);
+                listColumn = indent;
+            }
+            case "JOIN" -> {
+                if (!isJoinModifier(previousKeyword)) {
+                    startClause(keyword, false, false);
+                }
+            }
+            case "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL" -> {
+                if (!isJoinModifier(previousKeyword) && ("FROM".equals(clause) || "JOIN".equals(clause))) {
+                    startClause("JOIN", false, false);
+                }
+            }
+            case "ON" -> conditionBreaks = "JOIN".equals(clause);
+            case "AND", "OR" -> {
+                if (betweenOpen && "AND".equals(keyword)) {
+                    betweenOpen = false;
+                } else if (conditionBreaks && kind == BLOCK) {
+                    requestBreak(1, indent + INDENT);
+                }
+            }
+            case "BETWEEN" -> betweenOpen = true;
+            case "TABLE" -> createTable = "CREATE".equals(statementKeyword) && depth == 0;
+            default -> { }
+        }
+        writeWord(keyword);
+    }
+
+    /**
+     * Put a clause on a new line of the current level. List clauses break after each
+     * comma and align the items under the first one.
+     */
+    private void startClause(String keyword, boolean list, boolean conditions) {
+        if (kind != BLOCK) {
+            return;
+        }
+        requestBreak(1, indent);
+        clause = keyword;
+        listColumn = -1;
+        alignPending = list;
+        alignToken = false;
+        conditionBreaks = conditions;
+        betweenOpen = false;
+    }
+
+    private void endStatement() {
+        depth = 0;
+        kind = BLOCK;
+        indent = 0;
+        closeIndent = 0;
+        listColumn = -1;
+        alignPending = false;
+        conditionBreaks = false;
+        betweenOpen = false;
+        clause = null;
+        statementStart = true;
+        statementKeyword = null;
+        createTable = false;
+        requestBreak(2, 0);
+    }
+
+    private void writeWord(String word) {
+        separate(!glueNext, word.charAt(0));
+        glueNext = false;
+        out.append(word);
+        column += word.length();
+    }
+
+    /**
+     * Append sql[from, to) as is
+     */
+    private void write(int from, int to, boolean space) {
+        separate(space, sql.charAt(from));
+        out.append(sql, from, to);
+        int lastNewline = -1;
+        for (int i = to - 1; i >= from; i--) {
+            if (sql.charAt(i) == '\n') {
+                lastNewline = i;
+                break;
+            }
+        }
+        if (lastNewline < 0) {
+            column += to - from;
+        } else {
+            // A multi-line comment or literal starts a new output line
+            column = to - lastNewline - 1;
+            lineIndent = 0;
+            while (lastNewline + 1 + lineIndent < to && sql.charAt(lastNewline + 1 + lineIndent) == ' ') {
+                lineIndent++;
+            }
+        }
+    }
+
+    /**
+     * Start the next token on a new line if one is pending, otherwise after a space unless
+     * it touched the previous token in the input: a space there can change the meaning,
+     * e.g. || or 1e5
+     */
+    private void separate(boolean space, char first) {
+        if (pendingLines > 0 && out.length() > 0) {
+            breakLine();
+        } else if (!touching && (space || wouldMerge(first)) && column > 0) {
+            out.append(' ');
+            column++;
+        }
+        pendingLines = 0;
+        if (alignToken) {
+            alignToken = false;
+            alignPending = false;
+            listColumn = column;
+        }
+    }
+
+    private void breakLine() {
+        for (int i = 0; i < pendingLines; i++) {
+            out.append('\n');
+        }
+        for (int i = 0; i < pendingIndent; i++) {
+            out.append(' ');
+        }
+        column = pendingIndent;
+        lineIndent = pendingIndent;
+        pendingLines = 0;
+    }
+
+    private void requestBreak(int lines, int lineIndent) {
+        pendingLines = Math.max(pendingLines, lines);
+        pendingIndent = lineIndent;
+        glueNext = false;
+    }
+
+    private int continuationIndent() {
+        return listColumn >= 0 ? listColumn : kind == BLOCK && clause != null ? indent + INDENT : indent;
+    }
+
+    /**
+     * A + or - after an operator, an opening parenthesis, a comma or a keyword is a sign
+     */
+    private boolean isUnary() {
+        char c = lexer.tokenChar();
+        if (c != '-' && c != '+') {
+            return false;
+        }
+        return previousType == null || previousType == SqlLexer.TokenType.OPERATOR
+                || previousType == SqlLexer.TokenType.KEYWORD
+                || previousType == SqlLexer.TokenType.PUNCTUATION && previousChar != ')';
+    }
+
+    private void push() {
+        if (depth == frameClauses.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+            frameClauses = Arrays.copyOf(frameClauses, frameClauses.length * 2);
+        }
+        int base = depth * FRAME_SIZE;
+        frames[base] = kind;
+        frames[base + 1] = indent;
+        frames[base + 2] = listColumn;
+        frames[base + 3] = (alignPending ? 1 : 0) | (conditionBreaks ? 2 : 0) | (betweenOpen ? 4 : 0);
+        frames[base + 4] = closeIndent;
+        frameClauses[depth] = clause;
+        depth++;
+    }
+
+    private void pop() {
+        depth--;
+        int base = depth * FRAME_SIZE;
+        kind = frames[base];
+        indent = frames[base + 1];
+        listColumn = frames[base + 2];
+        alignPending = (frames[base + 3] & 1) != 0;
+        conditionBreaks = (frames[base + 3] & 2) != 0;
+        betweenOpen = (frames[base + 3] & 4) != 0;
+        closeIndent = frames[base + 4];
+        clause = frameClauses[depth];
+        frameClauses[depth] = null;
+    }
+
+    /**
+     * Whether writing first directly after the output would lex as one token with its end
+     */
+    private boolean wouldMerge(char first) {
+        int length = out.length();
+        if (length == 0) {
+            return false;
+        }
+        char last = out.charAt(length - 1);
+        if (isWordPart(last) && isWordPart(first)) {
+            return true;
+        }
+        if (last == '.' && Character.isDigit(first)) {
+            // A dot after a name qualifies it, otherwise it starts or continues a number
+            char beforeDot = length > 1 ? out.charAt(length - 2) : ' ';
+            return !isWordPart(beforeDot) || Character.isDigit(beforeDot);
+        }
+        return Character.isDigit(last) && first == '.'
+                || last == '-' && first == '-' || last == '/' && first == '*' || last == '$' && first == '$'
+                || last == '|' && first == '|' || last == ':' && (first == ':' || first == '=');
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private boolean containsNewline(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (sql.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isModifier(String keyword) {
+        return keyword != null && switch (keyword) {
+            case "BY", "DISTINCT", "ALL", "TOP", "RECURSIVE" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isJoinModifier(String keyword) {
+        return keyword != null && switch (keyword) {
+            case "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", "NATURAL" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Keywords written directly before their parenthesis, like COUNT(*) or VARCHAR(50)
+     */
+    private static boolean isCallKeyword(String keyword) {
+        return keyword != null && switch (keyword) {
+            case "COUNT", "SUM", "AVG", "MIN", "MAX", "FIRST", "LAST", "ROW_NUMBER", "RANK", "DENSE_RANK",
+                 "LEAD", "LAG", "INT", "VARCHAR", "CHAR", "DECIMAL", "FLOAT", "DOUBLE", "TIMESTAMP",
+                 "TIME", "IF", "LEFT", "RIGHT" -> true;
+            default -> false;
+        };
+    }
+}
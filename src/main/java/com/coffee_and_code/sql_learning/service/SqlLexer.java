@@ -0,0 +1,423 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.List;
+
+/**
+ * Single-pass SQL tokenizer over a range of a CharSequence. It does not allocate
+ * while scanning: the current token is exposed as a type and a start/end range,
+ * and keywords are recognized case-insensitively by walking a static trie.
+ *
+ * The lexer state after each token is available, so a range that ends inside a
+ * block comment or literal can be continued on the next line.
+ * A lexer instance is reused through {@link #reset} but is not thread-safe.
+ */
+public final class SqlLexer {
+
+    public enum TokenType {
+        WHITESPACE,
+        KEYWORD,
+        /** Known function name followed by an opening parenthesis */
+        FUNCTION,
+        IDENTIFIER,
+        QUOTED_IDENTIFIER,
+        STRING,
+        NUMBER,
+        COMMENT,
+        OPERATOR,
+        /** One of ; , ( ) . */
+        PUNCTUATION,
+        OTHER
+    }
+
+    /**
+     * Where the lexer stands between tokens: outside of anything, or inside a construct that continues
+     */
+    public enum State {
+        NORMAL,
+        BLOCK_COMMENT,
+        STRING,
+        QUOTED_IDENTIFIER,
+        BACKTICK_IDENTIFIER,
+        DOLLAR_QUOTED
+    }
+
+    // SQL Keywords
+    private static final String[] KEYWORDS = {
+        "SELECT", "FROM", "WHERE", "INSERT", "UPDATE", "DELETE", "CREATE", "ALTER", "DROP",
+        "TABLE", "DATABASE", "INDEX", "VIEW", "TRIGGER", "PROCEDURE", "FUNCTION",
+        "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "ON", "AS", "AND", "OR", "NOT",
+        "IN", "EXISTS", "BETWEEN", "LIKE", "IS", "NULL", "ORDER", "BY", "GROUP",
+        "HAVING", "LIMIT", "OFFSET", "UNION", "ALL", "DISTINCT", "TOP", "CASE",
+        "WHEN", "THEN", "ELSE", "END", "IF", "WHILE", "FOR", "LOOP", "BEGIN",
+        "COMMIT", "ROLLBACK", "SAVEPOINT", "GRANT", "REVOKE", "PRIVILEGES",
+        "INT", "VARCHAR", "CHAR", "TEXT", "DECIMAL", "FLOAT", "DOUBLE", "DATE",
+        "TIME", "DATETIME", "TIMESTAMP", "BOOLEAN", "BLOB", "CLOB", "JSON",
+        "PRIMARY", "KEY", "FOREIGN", "REFERENCES", "UNIQUE", "CHECK", "DEFAULT",
+        "AUTO_INCREMENT", "IDENTITY", "SEQUENCE", "CONSTRAINT",
+        "ASC", "DESC", "COUNT", "SUM", "AVG", "MIN", "MAX", "FIRST", "LAST",
+        "ROW_NUMBER", "RANK", "DENSE_RANK", "LEAD", "LAG", "OVER", "PARTITION",
+        "WINDOW", "ROWS", "RANGE", "UNBOUNDED", "PRECEDING", "FOLLOWING", "CURRENT",
+        "INTO", "VALUES", "SET", "WITH", "RECURSIVE", "CROSS", "FULL", "NATURAL", "USING",
+        "EXCEPT", "INTERSECT", "TRUE", "FALSE"
+    };
+
+    // SQL Functions, names that are also keywords are lexed as keywords
+    private static final String[] FUNCTIONS = {
+        "ABS", "ACOS", "ASIN", "ATAN", "ATAN2", "CEIL", "COS", "COT", "DEGREES",
+        "EXP", "FLOOR", "LOG", "LOG10", "MOD", "PI", "POWER", "RADIANS", "RAND",
+        "ROUND", "SIGN", "SIN", "SQRT", "TAN", "TRUNCATE", "ASCII",
+        "CHAR_LENGTH", "CONCAT", "CONCAT_WS", "ELT", "FIELD", "FIND_IN_SET",
+        "FORMAT", "INSTR", "LCASE", "LENGTH", "LOCATE", "LOWER",
+        "LPAD", "LTRIM", "MID", "POSITION", "REPEAT", "REPLACE", "REVERSE",
+        "RPAD", "RTRIM", "SPACE", "STRCMP", "SUBSTRING", "SUBSTRING_INDEX",
+        "TRIM", "UCASE", "UPPER", "ADDDATE", "ADDTIME", "CONVERT_TZ", "CURDATE",
+        "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "CURTIME",
+        "DATE_ADD", "DATE_FORMAT", "DATE_SUB", "DATEDIFF", "DAY", "DAYNAME",
+        "DAYOFMONTH", "DAYOFWEEK", "DAYOFYEAR", "EXTRACT", "FROM_DAYS", "FROM_UNIXTIME",
+        "GET_FORMAT", "HOUR", "LAST_DAY", "LOCALTIME", "LOCALTIMESTAMP", "MAKEDATE",
+        "MAKETIME", "MICROSECOND", "MINUTE", "MONTH", "MONTHNAME", "NOW", "PERIOD_ADD",
+        "PERIOD_DIFF", "QUARTER", "SECOND", "SEC_TO_TIME", "STR_TO_DATE", "SUBDATE",
+        "SUBTIME", "SYSDATE", "TIME_FORMAT", "TIME_TO_SEC", "TIMEDIFF",
+        "TIMESTAMPADD", "TIMESTAMPDIFF", "TO_DAYS", "TO_SECONDS",
+        "UNIX_TIMESTAMP", "UTC_DATE", "UTC_TIME", "UTC_TIMESTAMP", "WEEK", "WEEKDAY",
+        "WEEKOFYEAR", "YEAR", "YEARWEEK"
+    };
+
+    // Trie over A-Z, 0-9 and _, letters folded to upper case
+    private static final int ALPHABET = 37;
+    private static final byte KEYWORD_FLAG = 1;
+    private static final byte FUNCTION_FLAG = 2;
+    private static final int[] TRIE_CHILDREN;
+    private static final byte[] TRIE_FLAGS;
+
+    static {
+        int maxNodes = 1;
+        for (String word : KEYWORDS) {
+            maxNodes += word.length();
+        }
+        for (String word : FUNCTIONS) {
+            maxNodes += word.length();
+        }
+        int[] children = new int[maxNodes * ALPHABET];
+        byte[] flags = new byte[maxNodes];
+        int nodes = 1;
+        for (int pass = 0; pass < 2; pass++) {
+            String[] words = pass == 0 ? KEYWORDS : FUNCTIONS;
+            byte flag = pass == 0 ? KEYWORD_FLAG : FUNCTION_FLAG;
+            for (String word : words) {
+                int node = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    int slot = node * ALPHABET + slotOf(word.charAt(i));
+                    if (children[slot] == 0) {
+                        children[slot] = nodes++;
+                    }
+                    node = children[slot];
+                }
+                flags[node] |= flag;
+            }
+        }
+        TRIE_CHILDREN = children;
+        TRIE_FLAGS = flags;
+    }
+
+    private CharSequence text;
+    private int end;
+    private int position;
+    private int tokenStart;
+    private TokenType tokenType;
+    private State state = State.NORMAL;
+
+    /**
+     * Lex the whole text from the normal state
+     */
+    public SqlLexer reset(CharSequence text) {
+        return reset(text, 0, text.length(), State.NORMAL);
+    }
+
+    /**
+     * Lex text[from, to) starting in the given state, e.g. the state the previous line ended in
+     */
+    public SqlLexer reset(CharSequence text, int from, int to, State entryState) {
+        this.text = text;
+        this.position = from;
+        this.end = to;
+        this.tokenStart = from;
+        this.tokenType = null;
+        this.state = entryState;
+        return this;
+    }
+
+    /**
+     * Advance to the next token, false once the range is exhausted
+     */
+    public boolean next() {
+        if (position >= end) {
+            return false;
+        }
+        tokenStart = position;
+        if (state != State.NORMAL) {
+            continueConstruct();
+            return true;
+        }
+
+        char c = text.charAt(position);
+        char next = position + 1 < end ? text.charAt(position + 1) : '\0';
+        if (Character.isWhitespace(c)) {
+            position++;
+            while (position < end && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            tokenType = TokenType.WHITESPACE;
+        } else if (c == '-' && next == '-') {
+            position = indexOf('\n', position + 2);
+            tokenType = TokenType.COMMENT;
+        } else if (c == '/' && next == '*') {
+            position += 2;
+            state = State.BLOCK_COMMENT;
+            continueConstruct();
+        } else if (c == '$' && next == '$') {
+            position += 2;
+            state = State.DOLLAR_QUOTED;
+            continueConstruct();
+        } else if (c == '\'' || c == '"' || c == '`') {
+            position++;
+            state = c == '\'' ? State.STRING : c == '"' ? State.QUOTED_IDENTIFIER : State.BACKTICK_IDENTIFIER;
+            continueConstruct();
+        } else if (Character.isLetter(c) || c == '_') {
+            position++;
+            while (position < end && isWordPart(text.charAt(position))) {
+                position++;
+            }
+            int flags = lookup(text, tokenStart, position);
+            if ((flags & KEYWORD_FLAG) != 0) {
+                tokenType = TokenType.KEYWORD;
+            } else if ((flags & FUNCTION_FLAG) != 0 && isCall()) {
+                tokenType = TokenType.FUNCTION;
+            } else {
+                tokenType = TokenType.IDENTIFIER;
+            }
+        } else if (c >= '0' && c <= '9' || c == '.' && isDigit(next) && !afterWord()) {
+            position = skipDigits(position + 1);
+            if (c != '.' && position < end && text.charAt(position) == '.') {
+                position = skipDigits(position + 1);
+            }
+            position = skipExponent(position);
+            tokenType = TokenType.NUMBER;
+        } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+            position++;
+            while (position < end && isComparison(text.charAt(position))) {
+                position++;
+            }
+            tokenType = TokenType.OPERATOR;
+        } else if (c == '|' && next == '|' || c == ':' && (next == ':' || next == '=')) {
+            // Concatenation, PostgreSQL cast and assignment
+            position += 2;
+            tokenType = TokenType.OPERATOR;
+        } else if (c == '+' || c == '-' || c == '*' || c == '/' || c == '%') {
+            position++;
+            tokenType = TokenType.OPERATOR;
+        } else if (c == ';' || c == ',' || c == '(' || c == ')' || c == '.') {
+            position++;
+            tokenType = TokenType.PUNCTUATION;
+        } else {
+            position++;
+            tokenType = TokenType.OTHER;
+        }
+        return true;
+    }
+
+    public TokenType getTokenType() { return tokenType; }
+    public int getTokenStart() { return tokenStart; }
+    public int getTokenEnd() { return position; }
+    /** State after the current token, NORMAL unless it runs to the end of the range unterminated */
+    public State getState() { return state; }
+
+    /**
+     * Copy of the current token's text, the only method that allocates
+     */
+    public String tokenText() {
+        return text.subSequence(tokenStart, position).toString();
+    }
+
+    /**
+     * First character of the current token
+     */
+    public char tokenChar() {
+        return text.charAt(tokenStart);
+    }
+
+    public static List<String> getKeywords() {
+        return List.of(KEYWORDS);
+    }
+
+    public static List<String> getFunctions() {
+        return List.of(FUNCTIONS);
+    }
+
+    /**
+     * Whether text[from, to) is a keyword, ignoring case
+     */
+    public static boolean isKeyword(CharSequence text, int from, int to) {
+        return (lookup(text, from, to) & KEYWORD_FLAG) != 0;
+    }
+
+    /**
+     * Whether text[from, to) is a known function name, ignoring case
+     */
+    public static boolean isFunction(CharSequence text, int from, int to) {
+        return (lookup(text, from, to) & FUNCTION_FLAG) != 0;
+    }
+
+    /**
+     * Scan the rest of the comment or literal the lexer is inside of
+     */
+    private void continueConstruct() {
+        int close;
+        switch (state) {
+            case BLOCK_COMMENT -> {
+                close = indexOf("*/", position);
+                tokenType = TokenType.COMMENT;
+            }
+            case DOLLAR_QUOTED -> {
+                close = indexOf("$$", position);
+                tokenType = TokenType.STRING;
+            }
+            case STRING -> {
+                close = closingQuote('\'');
+                tokenType = TokenType.STRING;
+            }
+            case QUOTED_IDENTIFIER -> {
+                close = closingQuote('"');
+                tokenType = TokenType.QUOTED_IDENTIFIER;
+            }
+            default -> {
+                close = closingQuote('`');
+                tokenType = TokenType.QUOTED_IDENTIFIER;
+            }
+        }
+        if (close < 0) {
+            position = end;
+        } else {
+            position = close;
+            state = State.NORMAL;
+        }
+    }
+
+    /**
+     * Index after the closing quote, skipping doubled quotes, or -1 if the literal runs past the range
+     */
+    private int closingQuote(char quote) {
+        int i = position;
+        while (i < end) {
+            if (text.charAt(i) == quote) {
+                if (i + 1 < end && text.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Index after the delimiter, or -1 if it does not occur in the range
+     */
+    private int indexOf(String delimiter, int from) {
+        char first = delimiter.charAt(0);
+        char second = delimiter.charAt(1);
+        for (int i = from; i + 1 < end; i++) {
+            if (text.charAt(i) == first && text.charAt(i + 1) == second) {
+                return i + 2;
+            }
+        }
+        return -1;
+    }
+
+    private int skipDigits(int from) {
+        int i = from;
+        while (i < end && isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Index after an exponent such as e5 or E-3 at from, or from itself if there is none
+     */
+    private int skipExponent(int from) {
+        if (from >= end || (text.charAt(from) != 'e' && text.charAt(from) != 'E')) {
+            return from;
+        }
+        int digits = from + 1;
+        if (digits < end && (text.charAt(digits) == '+' || text.charAt(digits) == '-')) {
+            digits++;
+        }
+        return digits < end && isDigit(text.charAt(digits)) ? skipDigits(digits + 1) : from;
+    }
+
+    /**
+     * Whether the current token directly follows a word, so a dot starts a qualified name rather than .5
+     */
+    private boolean afterWord() {
+        return position > 0 && isWordPart(text.charAt(position - 1));
+    }
+
+    private boolean isCall() {
+        int i = position;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i < end && text.charAt(i) == '(';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isComparison(char c) {
+        return c == '=' || c == '<' || c == '>' || c == '!';
+    }
+
+    private static int lookup(CharSequence text, int from, int to) {
+        int node = 0;
+        for (int i = from; i < to; i++) {
+            int slot = slotOf(text.charAt(i));
+            if (slot < 0) {
+                return 0;
+            }
+            node = TRIE_CHILDREN[node * ALPHABET + slot];
+            if (node == 0) {
+                return 0;
+            }
+        }
+        return TRIE_FLAGS[node];
+    }
+
+    private static int slotOf(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        } else if (c >= '0' && c <= '9') {
+            return 26 + c - '0';
+        } else if (c == '_') {
+            return 36;
+        }
+        return -1;
+    }
+}
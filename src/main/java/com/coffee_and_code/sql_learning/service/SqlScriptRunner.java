@@ -0,0 +1,179 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a split SQL script on one connection.
+ * Consecutive INSERT/UPDATE/DELETE statements are sent as a single JDBC batch,
+ * other statements go through execute()/getMoreResults() so any mix of result
+ * sets and update counts is collected. Every statement is timed, and the script
+ * stops at the first failing statement whether it was batched or not.
+ */
+public class SqlScriptRunner {
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    @FunctionalInterface
+    interface ResultReader {
+        DatabaseService.QueryResult read(ResultSet rs) throws SQLException;
+    }
+
+    private final int queryTimeoutSeconds;
+    private final ResultReader resultReader;
+
+    SqlScriptRunner(int queryTimeoutSeconds, ResultReader resultReader) {
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.resultReader = resultReader;
+    }
+
+    /**
+     * Run the statements in order. The connection is not closed and its transaction mode is left as is.
+     */
+    public Outcome run(Connection connection, List<SqlStatement> statements, QueryHandle handle) throws SQLException {
+        Outcome outcome = new Outcome();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+            handle.attach(stmt);
+            try {
+                int i = 0;
+                while (i < statements.size() && outcome.failure == null && !handle.isCancelled()) {
+                    int batchEnd = i;
+                    while (batchEnd < statements.size() && batchEnd - i < MAX_BATCH_SIZE
+                            && statements.get(batchEnd).isBatchable()) {
+                        batchEnd++;
+                    }
+                    if (batchEnd - i > 1) {
+                        runBatch(connection, stmt, statements, i, batchEnd, outcome);
+                        i = batchEnd;
+                    } else {
+                        runSingle(stmt, statements.get(i), i, outcome);
+                        i++;
+                    }
+                }
+            } finally {
+                handle.detach(stmt);
+            }
+        }
+        return outcome;
+    }
+
+    private void runSingle(Statement stmt, SqlStatement statement, int index, Outcome outcome) {
+        long start = System.nanoTime();
+        try {
+            boolean isResultSet = stmt.execute(statement.getSql());
+            long updateCount = 0;
+            int rowCount = -1;
+            while (true) {
+                if (isResultSet) {
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        outcome.lastQueryResult = resultReader.read(rs);
+                        rowCount = outcome.lastQueryResult.getRowCount();
+                    }
+                } else {
+                    int count = stmt.getUpdateCount();
+                    if (count == -1) {
+                        break;
+                    }
+                    updateCount += count;
+                }
+                isResultSet = stmt.getMoreResults();
+            }
+            outcome.affectedRows += updateCount;
+            outcome.results.add(new DatabaseService.StatementResult(index + 1, statement, true,
+                    updateCount, rowCount, System.nanoTime() - start, false, null));
+        } catch (SQLException e) {
+            outcome.fail(index, statement, e, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Send the statements as one batch inside a transaction. JDBC drivers may keep running
+     * a batch after a statement fails, so a failed batch is rolled back and run again one
+     * statement at a time, which stops at the failing statement like an unbatched script.
+     */
+    private void runBatch(Connection connection, Statement stmt, List<SqlStatement> statements, int from, int to,
+                          Outcome outcome) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        Savepoint savepoint = null;
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        } else {
+            // Keep the caller's transaction, only this batch is undone on failure
+            savepoint = connection.setSavepoint();
+        }
+        try {
+            long start = System.nanoTime();
+            int[] counts;
+            try {
+                for (int i = from; i < to; i++) {
+                    stmt.addBatch(statements.get(i).getSql());
+                }
+                counts = stmt.executeBatch();
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                } else {
+                    connection.rollback(savepoint);
+                }
+                for (int i = from; i < to && outcome.failure == null; i++) {
+                    runSingle(stmt, statements.get(i), i, outcome);
+                }
+                return;
+            } finally {
+                try {
+                    stmt.clearBatch();
+                } catch (SQLException ignored) {
+                    // The statement is reused for the next batch, a failed clear surfaces there
+                }
+            }
+            if (autoCommit) {
+                connection.commit();
+            }
+
+            // Batched statements share the batch's elapsed time
+            long perStatement = (System.nanoTime() - start) / (to - from);
+            for (int i = from; i < to; i++) {
+                int count = Math.max(counts[i - from], 0);
+                outcome.affectedRows += count;
+                outcome.results.add(new DatabaseService.StatementResult(i + 1, statements.get(i), true,
+                        count, -1, perStatement, true, null));
+            }
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            } else {
+                connection.releaseSavepoint(savepoint);
+            }
+        }
+    }
+
+    /**
+     * Per-statement results of a script run
+     */
+    public static class Outcome {
+        private final List<DatabaseService.StatementResult> results = new ArrayList<>();
+        private DatabaseService.QueryResult lastQueryResult;
+        private long affectedRows;
+        private SQLException failure;
+        private int failedIndex = -1;
+
+        private void fail(int index, SqlStatement statement, SQLException e, long elapsedNanos) {
+            failure = e;
+            failedIndex = index;
+            results.add(new DatabaseService.StatementResult(index + 1, statement, false,
+                    0, -1, elapsedNanos, false, e.getMessage()));
+        }
+
+        public List<DatabaseService.StatementResult> getResults() { return results; }
+        public DatabaseService.QueryResult getLastQueryResult() { return lastQueryResult; }
+        public long getAffectedRows() { return affectedRows; }
+        public SQLException getFailure() { return failure; }
+        /** Zero-based index of the failed statement, -1 if none failed */
+        public int getFailedIndex() { return failedIndex; }
+    }
+}
@@ -0,0 +1,112 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a SQL script into statements on semicolons that are not inside
+ * string literals, quoted identifiers, comments or $$ blocks, and classifies
+ * each statement by its first keyword. Both walk the script's tokens from {@link SqlLexer}.
+ */
+public final class SqlScriptSplitter {
+    private static final String[] QUERY_KEYWORDS = {"SELECT", "WITH", "VALUES", "TABLE", "SHOW", "DESCRIBE", "DESC", "EXPLAIN"};
+    private static final String[] DML_KEYWORDS = {"INSERT", "UPDATE", "DELETE", "MERGE"};
+    private static final String[] DDL_KEYWORDS = {"CREATE", "ALTER", "DROP", "TRUNCATE", "COMMENT", "RENAME", "GRANT", "REVOKE"};
+
+    private SqlScriptSplitter() {}
+
+    public static List<SqlStatement> split(String script) {
+        List<SqlStatement> statements = new ArrayList<>();
+        SqlLexer lexer = new SqlLexer().reset(script);
+        SqlLexer statementLexer = new SqlLexer();
+        int start = 0;
+        while (lexer.next()) {
+            if (lexer.getTokenType() == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ';') {
+                addStatement(script, start, lexer.getTokenStart(), statementLexer, statements);
+                start = lexer.getTokenEnd();
+            }
+        }
+        addStatement(script, start, script.length(), statementLexer, statements);
+        return statements;
+    }
+
+    /**
+     * Classify a single statement
+     */
+    public static SqlStatement.Kind classify(String sql) {
+        return kindOf(leadingKeyword(sql, 0, sql.length()));
+    }
+
+    private static void addStatement(String script, int from, int to, SqlLexer lexer, List<SqlStatement> statements) {
+        int begin = from;
+        int end = to;
+        while (begin < end && Character.isWhitespace(script.charAt(begin))) {
+            begin++;
+        }
+        while (end > begin && Character.isWhitespace(script.charAt(end - 1))) {
+            end--;
+        }
+        if (begin == end) {
+            return;
+        }
+        String keyword = leadingKeyword(lexer.reset(script, begin, end, SqlLexer.State.NORMAL));
+        if (keyword == null) {
+            // Only comments
+            return;
+        }
+        statements.add(new SqlStatement(script.substring(begin, end), begin, keyword, kindOf(keyword)));
+    }
+
+    /**
+     * First word after leading whitespace, comments and opening parentheses
+     */
+    static String leadingKeyword(String sql, int from, int to) {
+        String keyword = leadingKeyword(new SqlLexer().reset(sql, from, to, SqlLexer.State.NORMAL));
+        return keyword != null ? keyword : "";
+    }
+
+    /**
+     * Upper-cased first word, "" if the statement starts with something else, null if it holds only comments
+     */
+    private static String leadingKeyword(SqlLexer lexer) {
+        boolean parenthesis = false;
+        while (lexer.next()) {
+            switch (lexer.getTokenType()) {
+                case WHITESPACE, COMMENT -> { }
+                case KEYWORD, FUNCTION, IDENTIFIER -> {
+                    return lexer.tokenText().toUpperCase(Locale.ROOT);
+                }
+                default -> {
+                    if (lexer.tokenChar() != '(') {
+                        return "";
+                    }
+                    parenthesis = true;
+                }
+            }
+        }
+        return parenthesis ? "" : null;
+    }
+
+    private static SqlStatement.Kind kindOf(String keyword) {
+        if (contains(QUERY_KEYWORDS, keyword)) {
+            return SqlStatement.Kind.QUERY;
+        }
+        if (contains(DML_KEYWORDS, keyword)) {
+            return SqlStatement.Kind.DML;
+        }
+        if (contains(DDL_KEYWORDS, keyword)) {
+            return SqlStatement.Kind.DDL;
+        }
+        return SqlStatement.Kind.OTHER;
+    }
+
+    private static boolean contains(String[] keywords, String keyword) {
+        for (String candidate : keywords) {
+            if (candidate.equals(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
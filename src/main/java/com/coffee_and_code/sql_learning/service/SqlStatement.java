@@ -0,0 +1,50 @@
+package com.coffee_and_code.sql_learning.service;
+
+/**
+ * One statement of a SQL script, classified by its leading keyword
+ */
+public class SqlStatement {
+
+    public enum Kind {
+        /** Produces a result set: SELECT, WITH, VALUES, TABLE, SHOW, DESCRIBE, EXPLAIN */
+        QUERY,
+        /** Changes rows: INSERT, UPDATE, DELETE, MERGE */
+        DML,
+        /** Changes the schema: CREATE, ALTER, DROP, TRUNCATE, ... */
+        DDL,
+        OTHER
+    }
+
+    private final String sql;
+    private final int offset;
+    private final String keyword;
+    private final Kind kind;
+
+    public SqlStatement(String sql, int offset, String keyword, Kind kind) {
+        this.sql = sql;
+        this.offset = offset;
+        this.keyword = keyword;
+        this.kind = kind;
+    }
+
+    public String getSql() { return sql; }
+    /** Position of the statement in the original script */
+    public int getOffset() { return offset; }
+    /** Leading keyword in upper case, empty if the statement does not start with one */
+    public String getKeyword() { return keyword; }
+    public Kind getKind() { return kind; }
+
+    public boolean isQuery() { return kind == Kind.QUERY; }
+
+    /**
+     * INSERT, UPDATE and DELETE statements can be sent together as one JDBC batch
+     */
+    public boolean isBatchable() {
+        return "INSERT".equals(keyword) || "UPDATE".equals(keyword) || "DELETE".equals(keyword);
+    }
+
+    @Override
+    public String toString() {
+        return sql.length() > 80 ? sql.substring(0, 77) + "..." : sql;
+    }
+}
@@ -1,79 +1,118 @@
 package com.coffee_and_code.sql_learning.service;
 
 import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.model.EditableStyledDocument;
+import org.fxmisc.richtext.model.RichTextChange;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.fxmisc.richtext.model.TwoDimensional;
+import org.reactfx.EventStream;
+import org.reactfx.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * SQL Syntax Highlighter for CodeArea
+ * SQL Syntax Highlighter for CodeArea. Lines are lexed one at a time by {@link SqlLexer} and the
+ * lexer state at the end of each line is kept, so an edit only re-styles the
+ * paragraphs it affects while block comments and literals can still span lines.
  */
 public class SqlSyntaxHighlighter {
     
-    // SQL Keywords
-    private static final String[] KEYWORDS = {
-        "SELECT", "FROM", "WHERE", "INSERT", "UPDATE", "DELETE", "CREATE", "ALTER", "DROP",
-        "TABLE", "DATABASE", "INDEX", "VIEW", "TRIGGER", "PROCEDURE", "FUNCTION",
-        "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "ON", "AS", "AND", "OR", "NOT",
-        "IN", "EXISTS", "BETWEEN", "LIKE", "IS", "NULL", "ORDER", "BY", "GROUP",
-        "HAVING", "LIMIT", "OFFSET", "UNION", "ALL", "DISTINCT", "TOP", "CASE",
-        "WHEN", "THEN", "ELSE", "END", "IF", "WHILE", "FOR", "LOOP", "BEGIN",
-        "COMMIT", "ROLLBACK", "SAVEPOINT", "GRANT", "REVOKE", "PRIVILEGES",
-        "INT", "VARCHAR", "CHAR", "TEXT", "DECIMAL", "FLOAT", "DOUBLE", "DATE",
-        "TIME", "DATETIME", "TIMESTAMP", "BOOLEAN", "BLOB", "CLOB", "JSON",
-        "PRIMARY", "KEY", "FOREIGN", "REFERENCES", "UNIQUE", "CHECK", "DEFAULT",
-        "NOT", "NULL", "AUTO_INCREMENT", "IDENTITY", "SEQUENCE", "CONSTRAINT",
-        "ASC", "DESC", "COUNT", "SUM", "AVG", "MIN", "MAX", "FIRST", "LAST",
-        "ROW_NUMBER", "RANK", "DENSE_RANK", "LEAD", "LAG", "OVER", "PARTITION",
-        "WINDOW", "ROWS", "RANGE", "UNBOUNDED", "PRECEDING", "FOLLOWING", "CURRENT"
-    };
-
-    // SQL Functions
-    private static final String[] FUNCTIONS = {
-        "ABS", "ACOS", "ASIN", "ATAN", "ATAN2", "CEIL", "COS", "COT", "DEGREES",
-        "EXP", "FLOOR", "LOG", "LOG10", "MOD", "PI", "POWER", "RADIANS", "RAND",
-        "ROUND", "SIGN", "SIN", "SQRT", "TAN", "TRUNCATE", "ASCII", "CHAR",
-        "CHAR_LENGTH", "CONCAT", "CONCAT_WS", "ELT", "FIELD", "FIND_IN_SET",
-        "FORMAT", "INSERT", "INSTR", "LCASE", "LEFT", "LENGTH", "LOCATE", "LOWER",
-        "LPAD", "LTRIM", "MID", "POSITION", "REPEAT", "REPLACE", "REVERSE",
-        "RIGHT", "RPAD", "RTRIM", "SPACE", "STRCMP", "SUBSTRING", "SUBSTRING_INDEX",
-        "TRIM", "UCASE", "UPPER", "ADDDATE", "ADDTIME", "CONVERT_TZ", "CURDATE",
-        "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "CURTIME", "DATE",
-        "DATE_ADD", "DATE_FORMAT", "DATE_SUB", "DATEDIFF", "DAY", "DAYNAME",
-        "DAYOFMONTH", "DAYOFWEEK", "DAYOFYEAR", "EXTRACT", "FROM_DAYS", "FROM_UNIXTIME",
-        "GET_FORMAT", "HOUR", "LAST_DAY", "LOCALTIME", "LOCALTIMESTAMP", "MAKEDATE",
-        "MAKETIME", "MICROSECOND", "MINUTE", "MONTH", "MONTHNAME", "NOW", "PERIOD_ADD",
-        "PERIOD_DIFF", "QUARTER", "SECOND", "SEC_TO_TIME", "STR_TO_DATE", "SUBDATE",
-        "SUBTIME", "SYSDATE", "TIME", "TIME_FORMAT", "TIME_TO_SEC", "TIMEDIFF",
-        "TIMESTAMP", "TIMESTAMPADD", "TIMESTAMPDIFF", "TO_DAYS", "TO_SECONDS",
-        "UNIX_TIMESTAMP", "UTC_DATE", "UTC_TIME", "UTC_TIMESTAMP", "WEEK", "WEEKDAY",
-        "WEEKOFYEAR", "YEAR", "YEARWEEK"
-    };
-
-    // Pattern definitions
-    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-    private static final String FUNCTION_PATTERN = "\\b(" + String.join("|", FUNCTIONS) + ")\\s*\\(";
-    private static final String STRING_PATTERN = "'([^'\\\\]|\\\\.)*'";
-    private static final String NUMBER_PATTERN = "\\b\\d+\\.?\\d*\\b";
-    private static final String COMMENT_PATTERN = "--.*$";
-    private static final String MULTILINE_COMMENT_PATTERN = "/\\*[\\s\\S]*?\\*/";
-    private static final String OPERATOR_PATTERN = "[=<>!]+|[+\\-*/%]";
-
-    private static final Pattern PATTERN = Pattern.compile(
-            "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-                    + "|(?<FUNCTION>" + FUNCTION_PATTERN + ")"
-                    + "|(?<STRING>" + STRING_PATTERN + ")"
-                    + "|(?<NUMBER>" + NUMBER_PATTERN + ")"
-                    + "|(?:--.*$)"                     // Single-line comment (non-capturing)
-                    + "|(?:/\\*[\\s\\S]*?\\*/)"       // Multi-line comment (non-capturing)
-                    + "|(?<OPERATOR>" + OPERATOR_PATTERN + ")"
-            , Pattern.MULTILINE);
+    private static final Logger logger = LoggerFactory.getLogger(SqlSyntaxHighlighter.class);
+
+    // Pause in typing before the spans are recomputed
+    private static final int HIGHLIGHT_DELAY_MILLIS = Integer.getInteger("sqllearning.editor.highlightDelayMs", 30);
+
+    private static final Collection<String> NO_STYLE = Collections.emptyList();
+    private static final Collection<String> KEYWORD_STYLE = Collections.singleton("sql-keyword");
+    private static final Collection<String> FUNCTION_STYLE = Collections.singleton("sql-function");
+    private static final Collection<String> STRING_STYLE = Collections.singleton("sql-string");
+    private static final Collection<String> NUMBER_STYLE = Collections.singleton("sql-number");
+    private static final Collection<String> COMMENT_STYLE = Collections.singleton("sql-comment");
+    private static final Collection<String> OPERATOR_STYLE = Collections.singleton("sql-operator");
+
+    private final ExecutorService highlightExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "syntax-highlight");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Highlight the document and keep it highlighted on the calling thread. Every edit re-lexes
+     * only the paragraphs it touched, plus following paragraphs while their starting lexer state
+     * changed, for example after opening a block comment. Unsubscribe to stop.
+     */
+    public Subscription attach(EditableStyledDocument<Collection<String>, String, Collection<String>> document) {
+        IncrementalHighlighting highlighting = new IncrementalHighlighting(document);
+        highlighting.markAll();
+        highlighting.apply(highlighting.snapshot().compute());
+        return edits(highlighting).subscribe(changes -> {
+            changes.forEach(highlighting::markChanged);
+            highlighting.apply(highlighting.snapshot().compute());
+        });
+    }
+
+    /**
+     * Keep the editor highlighted in the background. The FX thread only records which paragraphs
+     * changed; once typing pauses the spans are computed on the highlight thread, and a result is
+     * discarded if the text changed again before it arrived.
+     */
+    public Subscription attach(CodeArea codeArea) {
+        IncrementalHighlighting highlighting = track(codeArea.getContent());
+        EventStream<List<RichTextChange<Collection<String>, String, Collection<String>>>> edits = edits(highlighting);
+        Subscription highlightingTask = edits.successionEnds(Duration.ofMillis(HIGHLIGHT_DELAY_MILLIS))
+                .filter(changes -> highlighting.isDirty())
+                .mapToCompletionStage(changes -> highlighting.computeAsync())
+                .awaitLatest(edits)
+                .subscribe(result -> {
+                    if (result.isSuccess()) {
+                        highlighting.apply(result.get());
+                    } else {
+                        logger.warn("Syntax highlighting failed", result.getFailure());
+                    }
+                });
+        return highlighting.tracking.and(highlightingTask);
+    }
+
+    /**
+     * Highlight the document once and start recording which paragraphs its edits change,
+     * leaving it to the caller to compute and apply the spans
+     */
+    IncrementalHighlighting track(EditableStyledDocument<Collection<String>, String, Collection<String>> document) {
+        IncrementalHighlighting highlighting = new IncrementalHighlighting(document);
+        highlighting.markAll();
+        if (document.length() > 0) {
+            highlighting.apply(highlighting.snapshot().compute());
+        }
+        highlighting.tracking = edits(highlighting).subscribe(changes -> changes.forEach(highlighting::markChanged));
+        return highlighting;
+    }
+
+    public void shutdown() {
+        highlightExecutor.shutdownNow();
+    }
+
+    /**
+     * Text edits of the document, without the style changes the highlighter makes itself.
+     * Rich changes also cover replacements with identical text, which drop the styles but
+     * are filtered from the plain text changes.
+     */
+    private static EventStream<List<RichTextChange<Collection<String>, String, Collection<String>>>> edits(
+            IncrementalHighlighting highlighting) {
+        return highlighting.document.multiRichChanges().filter(changes -> !highlighting.styling);
+    }
+
     /**
-     * Apply syntax highlighting to the given CodeArea
+     * Apply syntax highlighting to the whole CodeArea at once
      */
     public void applySyntaxHighlighting(CodeArea codeArea) {
         String text = codeArea.getText();
@@ -89,41 +128,260 @@ public class SqlSyntaxHighlighter {
      * Compute highlighting spans for the given text
      */
     private StyleSpans<Collection<String>> computeHighlighting(String text) {
-        Matcher matcher = PATTERN.matcher(text);
-        int lastKwEnd = 0;
         StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-
-        while (matcher.find()) {
-            String styleClass = getStyleClass(matcher);
-            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
-            spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
-            lastKwEnd = matcher.end();
+        SqlLexer lexer = new SqlLexer();
+        SqlLexer.State state = SqlLexer.State.NORMAL;
+        int lineStart = 0;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            String line = text.substring(lineStart, lineEnd < 0 ? text.length() : lineEnd);
+            state = highlightLine(lexer, line, state, spansBuilder);
+            if (lineEnd < 0) {
+                break;
+            }
+            spansBuilder.add(NO_STYLE, 1);
+            lineStart = lineEnd + 1;
         }
-        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
         return spansBuilder.create();
     }
 
     /**
-     * Get the CSS style class for the matched group
+     * Add the spans of one line, which starts in the given lexer state, and return the state at its end
+     */
+    public SqlLexer.State highlightLine(String line, SqlLexer.State entryState,
+                                        StyleSpansBuilder<Collection<String>> spansBuilder) {
+        return highlightLine(new SqlLexer(), line, entryState, spansBuilder);
+    }
+
+    private static SqlLexer.State highlightLine(SqlLexer lexer, String line, SqlLexer.State entryState,
+                                                StyleSpansBuilder<Collection<String>> spansBuilder) {
+        SpanWriter spans = new SpanWriter(spansBuilder);
+        lexer.reset(line, 0, line.length(), entryState);
+        while (lexer.next()) {
+            Collection<String> style = styleOf(lexer.getTokenType());
+            if (style != NO_STYLE) {
+                spans.style(lexer.getTokenStart(), lexer.getTokenEnd(), style);
+            }
+        }
+        return spans.finish(line.length(), lexer.getState());
+    }
+
+    private static Collection<String> styleOf(SqlLexer.TokenType tokenType) {
+        return switch (tokenType) {
+            case KEYWORD -> KEYWORD_STYLE;
+            case FUNCTION -> FUNCTION_STYLE;
+            case STRING -> STRING_STYLE;
+            case NUMBER -> NUMBER_STYLE;
+            case COMMENT -> COMMENT_STYLE;
+            case OPERATOR -> OPERATOR_STYLE;
+            default -> NO_STYLE;
+        };
+    }
+
+    /**
+     * Adds styled ranges of a line in order, filling the gaps with unstyled spans
      */
-    private String getStyleClass(Matcher matcher) {
-        if (matcher.group("KEYWORD") != null) {
-            return "sql-keyword";
-        } else if (matcher.group("FUNCTION") != null) {
-            return "sql-function";
-        } else if (matcher.group("STRING") != null) {
-            return "sql-string";
-        } else if (matcher.group("NUMBER") != null) {
-            return "sql-number";
-        } else {
-            String matched = matcher.group();
-            if (matched.startsWith("--") || matched.startsWith("/*")) {
-                return "sql-comment";
-            } else if (matcher.group("OPERATOR") != null) {
-                return "sql-operator";
-            }
-        }
-        return "";
+    private static final class SpanWriter {
+        private final StyleSpansBuilder<Collection<String>> builder;
+        private int position;
+        private boolean empty = true;
+
+        SpanWriter(StyleSpansBuilder<Collection<String>> builder) {
+            this.builder = builder;
+        }
+
+        void style(int start, int end, Collection<String> style) {
+            if (start > position) {
+                builder.add(NO_STYLE, start - position);
+                empty = false;
+            }
+            if (end > start) {
+                builder.add(style, end - start);
+                empty = false;
+            }
+            position = end;
+        }
+
+        SqlLexer.State finish(int length, SqlLexer.State state) {
+            if (length > position || empty) {
+                builder.add(NO_STYLE, length - position);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Per-document highlighting state: the lexer state at the end of every paragraph and the
+     * range of paragraphs edited since the last highlight. Only used on the document's thread.
+     */
+    final class IncrementalHighlighting {
+        private final EditableStyledDocument<Collection<String>, String, Collection<String>> document;
+        private final List<SqlLexer.State> exitStates = new ArrayList<>();
+        private Subscription tracking = Subscription.EMPTY;
+        private boolean styling;
+        private long version;
+        private int dirtyFrom = -1;
+        private int dirtyTo = -1;
+
+        IncrementalHighlighting(EditableStyledDocument<Collection<String>, String, Collection<String>> document) {
+            this.document = document;
+        }
+
+        void markAll() {
+            exitStates.clear();
+            exitStates.addAll(Collections.nCopies(document.getParagraphs().size(), null));
+            dirtyFrom = 0;
+            dirtyTo = exitStates.size() - 1;
+            version++;
+        }
+
+        void markChanged(RichTextChange<Collection<String>, String, Collection<String>> change) {
+            int first = document.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward).getMajor();
+            int removedLines = countLines(change.getRemoved().getText());
+            int insertedLines = countLines(change.getInserted().getText());
+            if (first + removedLines >= exitStates.size()) {
+                markAll();
+                return;
+            }
+
+            // The edited paragraphs replace the old ones, the last keeps the old exit state so
+            // re-lexing can stop right there when nothing after it is affected
+            List<SqlLexer.State> replaced = exitStates.subList(first, first + removedLines + 1);
+            SqlLexer.State previousExit = replaced.get(replaced.size() - 1);
+            replaced.clear();
+            replaced.addAll(Collections.nCopies(insertedLines, null));
+            replaced.add(previousExit);
+            if (exitStates.size() != document.getParagraphs().size()) {
+                markAll();
+                return;
+            }
+
+            int lastInserted = first + insertedLines;
+            if (dirtyFrom < 0) {
+                dirtyTo = lastInserted;
+            } else if (dirtyTo > first + removedLines) {
+                dirtyTo += insertedLines - removedLines;
+            } else if (dirtyTo >= first) {
+                dirtyTo = lastInserted;
+            }
+            dirtyFrom = dirtyFrom < 0 ? first : Math.min(dirtyFrom, first);
+            dirtyTo = Math.max(dirtyTo, lastInserted);
+            version++;
+        }
+
+        boolean isDirty() {
+            return dirtyFrom >= 0;
+        }
+
+        /**
+         * Copy of the edited paragraphs and everything after them, which the highlight may spill into
+         */
+        Job snapshot() {
+            int paragraphs = exitStates.size();
+            List<String> lines = new ArrayList<>(paragraphs - dirtyFrom);
+            for (int p = dirtyFrom; p < paragraphs; p++) {
+                lines.add(document.getParagraph(p).getText());
+            }
+            SqlLexer.State entryState = dirtyFrom == 0 ? SqlLexer.State.NORMAL : exitStates.get(dirtyFrom - 1);
+            return new Job(version, dirtyFrom, dirtyTo - dirtyFrom, entryState, lines,
+                    new ArrayList<>(exitStates.subList(dirtyFrom, paragraphs)));
+        }
+
+        /**
+         * Snapshot the edited paragraphs on this thread and lex them on the highlight thread
+         */
+        CompletableFuture<Job.Result> computeAsync() {
+            Job job = snapshot();
+            return CompletableFuture.supplyAsync(job::compute, highlightExecutor);
+        }
+
+        /**
+         * Apply the spans, false if the text changed since the job was taken
+         */
+        boolean apply(Job.Result result) {
+            if (result.version != version) {
+                // The text changed while the spans were computed, a newer job covers this range
+                return false;
+            }
+            for (int i = 0; i < result.exitStates.size(); i++) {
+                exitStates.set(result.from + i, result.exitStates.get(i));
+            }
+            styling = true;
+            try {
+                // The re-lexed paragraphs are contiguous, so their spans are applied in one update
+                document.setStyleSpans(result.from, 0, result.spans);
+            } finally {
+                styling = false;
+            }
+            dirtyFrom = -1;
+            dirtyTo = -1;
+            return true;
+        }
+
+        private int countLines(String text) {
+            int lines = 0;
+            for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+                lines++;
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Lexing work for a range of paragraphs, independent of the document so it can run on any thread
+     */
+    final class Job {
+        private final long version;
+        private final int from;
+        private final int lastEdited;
+        private final SqlLexer.State entryState;
+        private final List<String> lines;
+        private final List<SqlLexer.State> previousExitStates;
+
+        Job(long version, int from, int lastEdited, SqlLexer.State entryState,
+            List<String> lines, List<SqlLexer.State> previousExitStates) {
+            this.version = version;
+            this.from = from;
+            this.lastEdited = lastEdited;
+            this.entryState = entryState;
+            this.lines = lines;
+            this.previousExitStates = previousExitStates;
+        }
+
+        /**
+         * Re-lex through the last edited line and onwards while exit states keep changing
+         */
+        Result compute() {
+            StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+            List<SqlLexer.State> exitStates = new ArrayList<>();
+            SqlLexer lexer = new SqlLexer();
+            SqlLexer.State state = entryState;
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    spansBuilder.add(NO_STYLE, 1);
+                }
+                state = highlightLine(lexer, lines.get(i), state, spansBuilder);
+                exitStates.add(state);
+                if (i >= lastEdited && state == previousExitStates.get(i)) {
+                    break;
+                }
+            }
+            return new Result(version, from, spansBuilder.create(), exitStates);
+        }
+
+        static final class Result {
+            private final long version;
+            private final int from;
+            private final StyleSpans<Collection<String>> spans;
+            private final List<SqlLexer.State> exitStates;
+
+            Result(long version, int from, StyleSpans<Collection<String>> spans, List<SqlLexer.State> exitStates) {
+                this.version = version;
+                this.from = from;
+                this.spans = spans;
+                this.exitStates = exitStates;
+            }
+        }
     }
 
     /**
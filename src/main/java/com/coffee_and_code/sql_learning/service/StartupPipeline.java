@@ -0,0 +1,81 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the services behind the main window in parallel on background threads.
+ * Every stage is its own future, so the window can show as soon as the stages of
+ * its first visible tab are done and pick up the others as they finish.
+ */
+public class StartupPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(StartupPipeline.class);
+
+    private final StartupTimings timings;
+    private final ExecutorService startupExecutor;
+    private final CompletableFuture<DatabaseService> database;
+    private final CompletableFuture<LearningContentService> learningContent;
+    private final CompletableFuture<PracticeService> practiceQuestions;
+
+    private StartupPipeline(StartupTimings timings) {
+        this.timings = timings;
+        AtomicInteger threadCount = new AtomicInteger();
+        startupExecutor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // The database is the slowest stage, so it is started first
+        database = stage("Database initialization", () -> {
+            DatabaseService service = DatabaseService.getInstance();
+            service.initializeDatabase(timings);
+            return service;
+        });
+        learningContent = stage("LearningContentService", LearningContentService::new);
+        practiceQuestions = stage("PracticeService", PracticeService::new);
+
+        whenAllDone().whenComplete((ignored, error) -> startupExecutor.shutdown());
+    }
+
+    /**
+     * Start every stage in the background, recording them in the timings
+     */
+    public static StartupPipeline start(StartupTimings timings) {
+        return new StartupPipeline(timings);
+    }
+
+    public CompletableFuture<DatabaseService> getDatabase() { return database; }
+    public CompletableFuture<LearningContentService> getLearningContent() { return learningContent; }
+    public CompletableFuture<PracticeService> getPracticeQuestions() { return practiceQuestions; }
+
+    /**
+     * Completes once every stage has finished, successfully or not
+     */
+    public CompletableFuture<Void> whenAllDone() {
+        return CompletableFuture.allOf(database, learningContent, practiceQuestions)
+                .handle((ignored, error) -> null);
+    }
+
+    private <T> CompletableFuture<T> stage(String name, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T result = task.call();
+                timings.record(name, start);
+                logger.info("{} ready in {}ms", name, (System.nanoTime() - start) / 1_000_000);
+                return result;
+            } catch (Exception e) {
+                logger.error("{} failed to load", name, e);
+                throw new CompletionException(e);
+            }
+        }, startupExecutor);
+    }
+}
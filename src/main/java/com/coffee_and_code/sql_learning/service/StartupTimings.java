@@ -0,0 +1,118 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wall-clock breakdown of application startup. Phases run on several threads,
+ * so each one records its start offset and thread next to its duration.
+ */
+public class StartupTimings {
+    private final long origin;
+    private final List<Phase> phases = new ArrayList<>();
+    private long finishedAt = -1;
+
+    public StartupTimings() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Timings measured from the given System.nanoTime origin
+     */
+    public StartupTimings(long origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * Record a phase that started at startNanos and ends now
+     */
+    public void record(String name, long startNanos) {
+        long end = System.nanoTime();
+        synchronized (phases) {
+            phases.add(new Phase(name, Thread.currentThread().getName(), startNanos - origin, end - startNanos));
+        }
+    }
+
+    /**
+     * Mark startup as complete, the total is measured up to this call
+     */
+    public synchronized void finish() {
+        if (finishedAt < 0) {
+            finishedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized long getTotalNanos() {
+        return (finishedAt < 0 ? System.nanoTime() : finishedAt) - origin;
+    }
+
+    public long getTotalMillis() {
+        return getTotalNanos() / 1_000_000;
+    }
+
+    /**
+     * Phases ordered by start time
+     */
+    public List<Phase> getPhases() {
+        List<Phase> sorted;
+        synchronized (phases) {
+            sorted = new ArrayList<>(phases);
+        }
+        sorted.sort(Comparator.comparingLong(Phase::getStartNanos));
+        return sorted;
+    }
+
+    /**
+     * Human readable table, one line per phase
+     */
+    public String toReport() {
+        StringBuilder report = new StringBuilder(String.format("Startup took %dms", getTotalMillis()));
+        for (Phase phase : getPhases()) {
+            report.append(String.format("%n  %-30s %7.1fms  (at +%dms on %s)", phase.getName(),
+                    phase.getDurationNanos() / 1_000_000.0, phase.getStartNanos() / 1_000_000, phase.getThread()));
+        }
+        return report.toString();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"totalMs\": ")
+                .append(String.format(Locale.ROOT, "%.3f", getTotalNanos() / 1_000_000.0))
+                .append(",\n  \"phases\": [");
+        List<Phase> sorted = getPhases();
+        for (int i = 0; i < sorted.size(); i++) {
+            Phase phase = sorted.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(escapeJson(phase.getName()))
+                    .append("\", \"thread\": \"").append(escapeJson(phase.getThread()))
+                    .append(String.format(Locale.ROOT, "\", \"startMs\": %.3f, \"durationMs\": %.3f}",
+                            phase.getStartNanos() / 1_000_000.0, phase.getDurationNanos() / 1_000_000.0));
+        }
+        return json.append(sorted.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public static class Phase {
+        private final String name;
+        private final String thread;
+        private final long startNanos;
+        private final long durationNanos;
+
+        public Phase(String name, String thread, long startNanos, long durationNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getName() { return name; }
+        public String getThread() { return thread; }
+        /** Offset from the start of startup */
+        public long getStartNanos() { return startNanos; }
+        public long getDurationNanos() { return durationNanos; }
+    }
+}
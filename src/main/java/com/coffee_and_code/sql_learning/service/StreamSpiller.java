@@ -0,0 +1,87 @@
+package com.coffee_and_code.sql_learning.service;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Moves a streamed result to spill files once the chunks kept on the heap pass the
+ * spill threshold. Later chunks are copied to the current spill file as they arrive,
+ * and every segmentBytes worth of them comes back as one memory-mapped result that
+ * replaces those chunks, so scrolling through a huge result keeps the heap flat.
+ *
+ * Chunks are accepted on the stream thread; discard may be called from any thread.
+ */
+public class StreamSpiller {
+    private final long thresholdBytes;
+    private final long segmentBytes;
+    private final Consumer<SpillBuffer> onSpill;
+    private long heapBytes;
+    private SpillBuffer current;
+    private long currentBytes;
+    private boolean discarded;
+
+    StreamSpiller(long thresholdBytes, long segmentBytes, Consumer<SpillBuffer> onSpill) {
+        this.thresholdBytes = thresholdBytes;
+        this.segmentBytes = segmentBytes;
+        this.onSpill = onSpill;
+    }
+
+    /**
+     * Take the next chunk. Returns the spilled segment this chunk completes, holding it and
+     * every chunk accepted after the previous segment, or null while the segment is open.
+     */
+    public synchronized DatabaseService.QueryResult accept(DatabaseService.QueryResult chunk) throws IOException {
+        if (discarded || chunk.getRowCount() == 0) {
+            return null;
+        }
+        long bytes = chunk.estimatedBytes();
+        if (current == null && heapBytes + bytes <= thresholdBytes) {
+            heapBytes += bytes;
+            return null;
+        }
+
+        ColumnVector[] columns = new ColumnVector[chunk.getColumnCount()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = chunk.getColumn(c);
+        }
+        if (current == null) {
+            current = new SpillBuffer(chunk.getColumnNames(), columns);
+            onSpill.accept(current);
+        }
+        for (int row = 0; row < chunk.getRowCount(); row++) {
+            current.appendFrom(columns, row);
+        }
+        currentBytes += bytes;
+        return currentBytes >= segmentBytes ? finishSegment() : null;
+    }
+
+    /**
+     * Spilled segment of the chunks accepted since the last one, null if there are none
+     */
+    public synchronized DatabaseService.QueryResult finish() throws IOException {
+        return current == null || discarded ? null : finishSegment();
+    }
+
+    /**
+     * Delete the open spill file and ignore further chunks
+     */
+    public synchronized void discard() {
+        discarded = true;
+        if (current != null) {
+            current.delete();
+            current = null;
+        }
+    }
+
+    private DatabaseService.QueryResult finishSegment() throws IOException {
+        SpillBuffer spill = current;
+        current = null;
+        currentBytes = 0;
+        try {
+            return spill.finish();
+        } catch (IOException | RuntimeException e) {
+            spill.delete();
+            throw e;
+        }
+    }
+}
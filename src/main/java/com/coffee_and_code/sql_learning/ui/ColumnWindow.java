@@ -0,0 +1,146 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import javafx.beans.value.ChangeListener;
+import javafx.event.EventHandler;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.ScrollEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Horizontal virtualization for results with many columns.
+ * Only the columns in view plus a margin on each side are attached to the
+ * TableView; an external scroll bar selects which range that is. Column
+ * headers stay in the table header, so they remain pinned while rows scroll.
+ */
+public class ColumnWindow {
+    private static final double COLUMN_WIDTH = 140;
+    private static final int MARGIN_COLUMNS = 3;
+
+    private final TableView<List<Object>> table;
+    private final ScrollBar scrollBar;
+    private final ChangeListener<Number> scrollListener = (obs, oldValue, newValue) -> updateWindow();
+    private final ChangeListener<Number> widthListener = (obs, oldValue, newValue) -> updateScrollRange();
+    private final EventHandler<ScrollEvent> horizontalScrollHandler = this::onScroll;
+
+    private List<String> columnNames = Collections.emptyList();
+    // Created on first view, null until then
+    private List<TableColumn<List<Object>, Object>> columns;
+    private int windowStart = -1;
+    private int windowEnd = -1;
+    private boolean active;
+
+    public ColumnWindow(TableView<List<Object>> table, ScrollBar scrollBar) {
+        this.table = table;
+        this.scrollBar = scrollBar;
+        scrollBar.setMin(0);
+        scrollBar.setUnitIncrement(1);
+        setScrollBarShown(false);
+    }
+
+    /**
+     * Show the given columns through the window. Column objects and the scroll
+     * position are kept when the names match the previous result.
+     */
+    public void show(List<String> names) {
+        if (!names.equals(columnNames)) {
+            columnNames = names;
+            columns = new ArrayList<>(Collections.nCopies(names.size(), null));
+            scrollBar.setValue(0);
+            windowStart = -1;
+            windowEnd = -1;
+        }
+        if (!active) {
+            active = true;
+            table.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
+            scrollBar.valueProperty().addListener(scrollListener);
+            table.widthProperty().addListener(widthListener);
+            table.addEventFilter(ScrollEvent.SCROLL, horizontalScrollHandler);
+            setScrollBarShown(true);
+        }
+        updateScrollRange();
+    }
+
+    /**
+     * Leave windowed mode; the caller takes over the table's columns again
+     */
+    public void deactivate() {
+        if (!active) {
+            return;
+        }
+        active = false;
+        scrollBar.valueProperty().removeListener(scrollListener);
+        table.widthProperty().removeListener(widthListener);
+        table.removeEventFilter(ScrollEvent.SCROLL, horizontalScrollHandler);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        setScrollBarShown(false);
+        columnNames = Collections.emptyList();
+        columns = null;
+        windowStart = -1;
+        windowEnd = -1;
+    }
+
+    public boolean isActive() { return active; }
+
+    private int visibleColumns() {
+        double width = table.getWidth() > 0 ? table.getWidth() : table.getPrefWidth();
+        return Math.max(1, (int) Math.ceil(width / COLUMN_WIDTH));
+    }
+
+    private void updateScrollRange() {
+        int visible = Math.min(visibleColumns(), columnNames.size());
+        scrollBar.setMax(Math.max(0, columnNames.size() - visible));
+        scrollBar.setVisibleAmount(visible);
+        scrollBar.setBlockIncrement(visible);
+        updateWindow();
+    }
+
+    private void updateWindow() {
+        if (!active) {
+            return;
+        }
+        int first = (int) Math.round(scrollBar.getValue());
+        int start = Math.max(0, first - MARGIN_COLUMNS);
+        int end = Math.min(columnNames.size(), first + visibleColumns() + MARGIN_COLUMNS);
+        if (start == windowStart && end == windowEnd) {
+            return;
+        }
+        windowStart = start;
+        windowEnd = end;
+
+        List<TableColumn<List<Object>, ?>> window = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            TableColumn<List<Object>, Object> column = columns.get(i);
+            if (column == null) {
+                column = ResultTableCell.createColumn(columnNames.get(i), i);
+                column.setPrefWidth(COLUMN_WIDTH);
+                columns.set(i, column);
+            }
+            window.add(column);
+        }
+        table.getColumns().setAll(window);
+        // Keep the first visible column at the left edge, the margin is off-screen to the left
+        table.scrollToColumnIndex(first - start);
+    }
+
+    private void onScroll(ScrollEvent event) {
+        double delta = Math.abs(event.getDeltaX()) > Math.abs(event.getDeltaY()) || event.isShiftDown()
+                ? (event.getDeltaX() != 0 ? event.getDeltaX() : event.getDeltaY()) : 0;
+        if (delta == 0) {
+            return;
+        }
+        double columnsMoved = -delta / COLUMN_WIDTH;
+        double next = scrollBar.getValue() + (columnsMoved > 0 ? Math.ceil(columnsMoved) : Math.floor(columnsMoved));
+        scrollBar.setValue(Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), next)));
+        event.consume();
+    }
+
+    private void setScrollBarShown(boolean shown) {
+        scrollBar.setVisible(shown);
+        scrollBar.setManaged(shown);
+    }
+}
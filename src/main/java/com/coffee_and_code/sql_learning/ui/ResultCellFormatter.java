@@ -0,0 +1,187 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.ColumnVector;
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Display strings for a result grid, formatted per column in blocks of rows on a
+ * background thread and cached, so cells only look strings up while scrolling.
+ */
+public class ResultCellFormatter {
+    public static final String NULL_TEXT = "NULL";
+
+    private static final int BLOCK_ROWS = 256;
+    private static final int MAX_CACHED_BLOCKS = 1024;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+    private static final ExecutorService formatExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "result-format");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ResultRowList rows;
+    private final Map<Long, String[]> blocks = new ConcurrentHashMap<>();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    // Held to store a formatted block and to invalidate, so a block of the old row order is never stored after
+    private final Object storeLock = new Object();
+
+    ResultCellFormatter(ResultRowList rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Display text for the cell at a list position. Called on the FX thread; formats
+     * inline only if the row's block has not been prepared yet, and schedules that block.
+     */
+    public String getText(int index, int column) {
+        int block = index / BLOCK_ROWS;
+        String[] cached = blocks.get(key(column, block));
+        int offset = index - block * BLOCK_ROWS;
+        if (cached != null && offset < cached.length) {
+            return cached[offset];
+        }
+        prefetch(column, index);
+        int row = rows.baseIndex(index);
+        int segment = rows.segmentOf(row);
+        return format(rows.getSegment(segment), row - rows.segmentStart(segment), column);
+    }
+
+    /**
+     * Schedule formatting of the block containing a list position, and the one after it, for all columns
+     */
+    public void prefetchRows(int index) {
+        for (int column = 0; column < rows.getColumnCount(); column++) {
+            prefetch(column, index);
+            prefetch(column, index + BLOCK_ROWS);
+        }
+    }
+
+    /**
+     * Drop cached text after the list positions changed meaning (sorting, filtering)
+     */
+    void invalidate() {
+        synchronized (storeLock) {
+            generation.incrementAndGet();
+            blocks.clear();
+            pending.clear();
+        }
+    }
+
+    private void prefetch(int column, int index) {
+        if (index >= rows.size()) {
+            return;
+        }
+        int block = index / BLOCK_ROWS;
+        long key = key(column, block);
+        String[] cached = blocks.get(key);
+        int from = block * BLOCK_ROWS;
+        int to = Math.min(from + BLOCK_ROWS, rows.size());
+        if ((cached != null && cached.length == to - from) || !pending.add(key)) {
+            return;
+        }
+
+        // Resolve the rows here; the row list itself is only touched on the FX thread
+        DatabaseService.QueryResult[] sources = new DatabaseService.QueryResult[to - from];
+        int[] localRows = new int[to - from];
+        for (int i = from; i < to; i++) {
+            int row = rows.baseIndex(i);
+            int segment = rows.segmentOf(row);
+            sources[i - from] = rows.getSegment(segment);
+            localRows[i - from] = row - rows.segmentStart(segment);
+        }
+
+        long scheduledGeneration = generation.get();
+        formatExecutor.execute(() -> {
+            try {
+                String[] texts = new String[sources.length];
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = format(sources[i], localRows[i], column);
+                }
+                synchronized (storeLock) {
+                    if (generation.get() != scheduledGeneration) {
+                        return;
+                    }
+                    if (blocks.size() >= MAX_CACHED_BLOCKS) {
+                        blocks.clear();
+                    }
+                    blocks.put(key, texts);
+                }
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    private static long key(int column, int block) {
+        return ((long) column << 32) | block;
+    }
+
+    /**
+     * Format a single value by its column type
+     */
+    static String format(DatabaseService.QueryResult result, int row, int column) {
+        ColumnVector vector = result.getColumn(column);
+        if (vector.isNull(row)) {
+            return NULL_TEXT;
+        }
+        switch (vector.getType()) {
+            case INT:
+                return Integer.toString(vector.getInt(row));
+            case LONG:
+                return Long.toString(vector.getLong(row));
+            case DOUBLE:
+                return formatDouble(vector.getDouble(row));
+            case DECIMAL:
+                return ((BigDecimal) vector.getObject(row)).toPlainString();
+            case DATE:
+                return DATE_FORMAT.format(((java.sql.Date) vector.getObject(row)).toLocalDate());
+            case TIMESTAMP:
+                return DATE_TIME_FORMAT.format(((Timestamp) vector.getObject(row)).toLocalDateTime());
+            case STRING:
+                return vector.getString(row);
+            case OBJECT:
+                return formatObject(vector.getObject(row));
+            default:
+                return vector.getString(row);
+        }
+    }
+
+    /**
+     * Plain digits like DECIMAL, never scientific notation such as 1.0E20
+     */
+    static String formatDouble(double value) {
+        return Double.isFinite(value) ? BigDecimal.valueOf(value).toPlainString() : Double.toString(value);
+    }
+
+    private static String formatObject(Object value) {
+        if (value instanceof Timestamp) {
+            return DATE_TIME_FORMAT.format(((Timestamp) value).toLocalDateTime());
+        }
+        if (value instanceof OffsetDateTime) {
+            return DATE_TIME_FORMAT.format(((OffsetDateTime) value).toLocalDateTime());
+        }
+        if (value instanceof TemporalAccessor) {
+            try {
+                return DATE_TIME_FORMAT.format((TemporalAccessor) value);
+            } catch (RuntimeException e) {
+                return value.toString();
+            }
+        }
+        return value.toString();
+    }
+}
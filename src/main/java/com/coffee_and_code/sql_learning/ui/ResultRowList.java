@@ -0,0 +1,216 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.ColumnVector;
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only ObservableList over one or more query result chunks.
+ * Rows are not copied: get(i) returns a lazy view of the owning chunk's row,
+ * so TableView only materializes the rows it actually shows.
+ *
+ * An optional index view (from sorting or filtering) maps list positions to
+ * loaded rows; without one the list shows the loaded rows in result order.
+ */
+public class ResultRowList extends ObservableListBase<List<Object>> {
+    private final List<DatabaseService.QueryResult> segments = new ArrayList<>();
+    // segmentStarts[i] is the index of the first row of segments.get(i)
+    private int[] segmentStarts = new int[8];
+    private int loadedRows;
+    private int[] view;
+    private final ResultCellFormatter formatter = new ResultCellFormatter(this);
+
+    public ResultRowList(DatabaseService.QueryResult result) {
+        addSegment(result);
+    }
+
+    @Override
+    public List<Object> get(int index) {
+        int row = baseIndex(index);
+        int segment = segmentOf(row);
+        return segments.get(segment).getRow(row - segmentStarts[segment]);
+    }
+
+    @Override
+    public int size() {
+        return view != null ? view.length : loadedRows;
+    }
+
+    /**
+     * Number of rows fetched so far, regardless of any filter
+     */
+    public int getLoadedRowCount() {
+        return loadedRows;
+    }
+
+    public int getColumnCount() {
+        return segments.get(0).getColumnCount();
+    }
+
+    public ColumnVector.ColumnType getColumnType(int column) {
+        return segments.get(0).getColumnType(column);
+    }
+
+    public boolean isNull(int index, int column) {
+        int row = baseIndex(index);
+        int segment = segmentOf(row);
+        return segments.get(segment).getColumn(column).isNull(row - segmentStarts[segment]);
+    }
+
+    /**
+     * Cached display strings for this list's cells
+     */
+    public ResultCellFormatter getFormatter() {
+        return formatter;
+    }
+
+    /**
+     * Append a further chunk of the same result. Fires a single add event when no
+     * index view is active; otherwise the rows only show once the view is rebuilt.
+     */
+    public void appendChunk(DatabaseService.QueryResult chunk) {
+        if (chunk.getRowCount() == 0) {
+            return;
+        }
+        int from = loadedRows;
+        addSegment(chunk);
+        if (view == null) {
+            beginChange();
+            nextAdd(from, loadedRows);
+            endChange();
+        }
+    }
+
+    /**
+     * Swap the last loaded chunks for one spilled segment holding the same rows.
+     * Row positions do not change, so no change event is fired.
+     */
+    public void replaceTail(DatabaseService.QueryResult segment) {
+        int first = tailStart(segments, segment.getRowCount());
+        segments.subList(first, segments.size()).clear();
+        // segmentStarts[first] already holds the segment's first row
+        segments.add(segment);
+    }
+
+    /**
+     * Index of the first of the trailing chunks that hold exactly rowCount rows
+     */
+    static int tailStart(List<DatabaseService.QueryResult> chunks, int rowCount) {
+        int first = chunks.size();
+        int covered = 0;
+        while (covered < rowCount && first > 0) {
+            covered += chunks.get(--first).getRowCount();
+        }
+        if (covered != rowCount) {
+            throw new IllegalArgumentException("Spilled segment of " + rowCount + " rows does not line up with the loaded chunks");
+        }
+        return first;
+    }
+
+    /**
+     * Replace the index view, or pass null to show all loaded rows in result order
+     */
+    public void setView(int[] newView) {
+        int[] oldView = view;
+        int oldSize = size();
+        List<List<Object>> removed = new AbstractList<>() {
+            @Override
+            public List<Object> get(int index) {
+                int row = oldView != null ? oldView[index] : index;
+                int segment = segmentOf(row);
+                return segments.get(segment).getRow(row - segmentStarts[segment]);
+            }
+
+            @Override
+            public int size() { return oldSize; }
+        };
+
+        view = newView;
+        formatter.invalidate();
+        beginChange();
+        nextReplace(0, size(), removed);
+        endChange();
+    }
+
+    public boolean hasView() {
+        return view != null;
+    }
+
+    /**
+     * Immutable copy of the loaded chunks for background sorting and filtering
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(segments.toArray(new DatabaseService.QueryResult[0]),
+                Arrays.copyOf(segmentStarts, segments.size()), loadedRows);
+    }
+
+    /**
+     * The chunks backing this list, in row order
+     */
+    public List<DatabaseService.QueryResult> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    int baseIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size());
+        }
+        return view != null ? view[index] : index;
+    }
+
+    DatabaseService.QueryResult getSegment(int segment) {
+        return segments.get(segment);
+    }
+
+    int segmentStart(int segment) {
+        return segmentStarts[segment];
+    }
+
+    private void addSegment(DatabaseService.QueryResult result) {
+        if (segments.size() == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentStarts.length * 2);
+        }
+        segmentStarts[segments.size()] = loadedRows;
+        segments.add(result);
+        loadedRows += result.getRowCount();
+    }
+
+    int segmentOf(int row) {
+        return segmentOf(segmentStarts, segments.size(), row);
+    }
+
+    static int segmentOf(int[] starts, int count, int row) {
+        int found = Arrays.binarySearch(starts, 0, count, row);
+        if (found >= 0) {
+            // Skip empty segments that share the same start
+            while (found + 1 < count && starts[found + 1] == row) {
+                found++;
+            }
+            return found;
+        }
+        return -found - 2;
+    }
+
+    /**
+     * Loaded chunks at one point in time; safe to read from any thread
+     */
+    public static final class Snapshot {
+        final DatabaseService.QueryResult[] segments;
+        final int[] starts;
+        final int rowCount;
+
+        private Snapshot(DatabaseService.QueryResult[] segments, int[] starts, int rowCount) {
+            this.segments = segments;
+            this.starts = starts;
+            this.rowCount = rowCount;
+        }
+
+        public int getRowCount() { return rowCount; }
+    }
+}
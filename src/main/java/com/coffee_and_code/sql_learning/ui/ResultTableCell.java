@@ -0,0 +1,72 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.ColumnVector;
+import javafx.geometry.Pos;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.util.List;
+
+/**
+ * Results grid cell that shows pre-formatted text for its row index.
+ * Numbers are right-aligned and SQL NULL is shown with a distinct marker style.
+ */
+public class ResultTableCell extends TableCell<List<Object>, Object> {
+    private static final String NULL_STYLE_CLASS = "null-value";
+    private static final String NUMERIC_STYLE_CLASS = "numeric-value";
+
+    private final int column;
+
+    public ResultTableCell(int column) {
+        this.column = column;
+    }
+
+    /**
+     * Column for the given result column index. Cells read pre-formatted text by
+     * row index, so no per-cell value property is needed.
+     */
+    public static TableColumn<List<Object>, Object> createColumn(String name, int column) {
+        TableColumn<List<Object>, Object> tableColumn = new TableColumn<>(name);
+        tableColumn.setCellFactory(c -> new ResultTableCell(column));
+        // Sorting goes through the table's sort policy, which looks the result column up here
+        tableColumn.setUserData(column);
+        return tableColumn;
+    }
+
+    @Override
+    protected void updateItem(Object item, boolean empty) {
+        super.updateItem(item, empty);
+        int row = getIndex();
+        if (empty || getTableView() == null || !(getTableView().getItems() instanceof ResultRowList)
+                || row < 0 || row >= getTableView().getItems().size()) {
+            setText(null);
+            setNullStyle(false);
+            return;
+        }
+
+        ResultRowList rows = (ResultRowList) getTableView().getItems();
+        String text = rows.getFormatter().getText(row, column);
+        setText(text);
+        setNullStyle(text == ResultCellFormatter.NULL_TEXT && rows.isNull(row, column));
+        setAlignment(isNumeric(rows.getColumnType(column)) ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+        setStyleClass(NUMERIC_STYLE_CLASS, isNumeric(rows.getColumnType(column)));
+    }
+
+    private void setNullStyle(boolean isNull) {
+        setStyleClass(NULL_STYLE_CLASS, isNull);
+    }
+
+    private void setStyleClass(String styleClass, boolean present) {
+        boolean has = getStyleClass().contains(styleClass);
+        if (present && !has) {
+            getStyleClass().add(styleClass);
+        } else if (!present && has) {
+            getStyleClass().remove(styleClass);
+        }
+    }
+
+    private static boolean isNumeric(ColumnVector.ColumnType type) {
+        return type == ColumnVector.ColumnType.INT || type == ColumnVector.ColumnType.LONG
+                || type == ColumnVector.ColumnType.DOUBLE || type == ColumnVector.ColumnType.DECIMAL;
+    }
+}
@@ -0,0 +1,344 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.ColumnVector;
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes sort permutations and filter matches for a loaded result off the FX thread.
+ *
+ * Sorting never compares boxed values: each row gets a 32-bit rank for the sort
+ * column, the rank and row index are packed into one long and the long[] is
+ * sorted in parallel. Packing the row index makes the sort stable.
+ */
+public final class ResultViewBuilder {
+    private static final ExecutorService viewExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "result-view");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ResultViewBuilder() {}
+
+    /**
+     * Build the index view for a sort column (-1 for result order) and filter text.
+     * Completes with null when neither applies.
+     */
+    public static CompletableFuture<int[]> buildAsync(ResultRowList.Snapshot snapshot, int sortColumn,
+                                                      boolean ascending, String filter) {
+        return CompletableFuture.supplyAsync(() -> build(snapshot, sortColumn, ascending, filter), viewExecutor);
+    }
+
+    public static int[] build(ResultRowList.Snapshot snapshot, int sortColumn, boolean ascending, String filter) {
+        String needle = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+        if (sortColumn < 0 && needle.isEmpty()) {
+            return null;
+        }
+        int[] rows = null;
+        if (!needle.isEmpty()) {
+            boolean[] matches = filter(snapshot, needle);
+            rows = IntStream.range(0, snapshot.rowCount).parallel().filter(row -> matches[row]).toArray();
+        }
+        // Filter first so only the matching rows are sorted
+        return sortColumn >= 0 ? sort(snapshot, sortColumn, ascending, rows) : rows;
+    }
+
+    // ===== SORTING =====
+
+    /**
+     * Sorted order of the given rows, or of all rows when rows is null
+     */
+    static int[] sort(ResultRowList.Snapshot snapshot, int column, boolean ascending, int[] rows) {
+        int[] ranks = ranks(snapshot, column);
+        int maxRank = Arrays.stream(ranks).parallel().max().orElse(0);
+        int flip = ascending ? 0 : maxRank;
+        int count = rows != null ? rows.length : ranks.length;
+        long[] packed = new long[count];
+        Arrays.parallelSetAll(packed, i -> {
+            int row = rows != null ? rows[i] : i;
+            return ((long) Math.abs(flip - ranks[row]) << 32) | row;
+        });
+        Arrays.parallelSort(packed);
+
+        int[] order = new int[count];
+        Arrays.parallelSetAll(order, i -> (int) packed[i]);
+        return order;
+    }
+
+    /**
+     * Dense rank of every row's value in the column; nulls rank 0 and sort first
+     */
+    private static int[] ranks(ResultRowList.Snapshot snapshot, int column) {
+        ColumnVector.ColumnType type = snapshot.segments[0].getColumnType(column);
+        switch (type) {
+            case INT:
+            case LONG:
+            case DATE:
+            case BOOLEAN:
+            case DOUBLE:
+                return numericRanks(snapshot, column, type);
+            case DECIMAL:
+                // Unscaled longs order exactly when every segment shares one scale, doubles would not
+                return isUnscaled(snapshot, column) ? numericRanks(snapshot, column, type)
+                        : comparableRanks(snapshot, column);
+            case TIMESTAMP:
+                return isEpochNanos(snapshot, column) ? numericRanks(snapshot, column, type)
+                        : comparableRanks(snapshot, column);
+            default:
+                return textRanks(snapshot, column);
+        }
+    }
+
+    private static int[] numericRanks(ResultRowList.Snapshot snapshot, int column, ColumnVector.ColumnType type) {
+        int rowCount = snapshot.rowCount;
+        long[] keys = new long[rowCount];
+        boolean[] nulls = new boolean[rowCount];
+        forEachSegment(snapshot, (segment, start) -> {
+            ColumnVector vector = segment.getColumn(column);
+            IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                if (vector.isNull(local)) {
+                    nulls[start + local] = true;
+                } else {
+                    keys[start + local] = sortKey(vector, local, type);
+                }
+            });
+        });
+
+        int[] ranks = new int[rowCount];
+        long min = IntStream.range(0, rowCount).parallel().filter(row -> !nulls[row])
+                .mapToLong(row -> keys[row]).min().orElse(0);
+        long max = IntStream.range(0, rowCount).parallel().filter(row -> !nulls[row])
+                .mapToLong(row -> keys[row]).max().orElse(0);
+        if (max - min >= 0 && max - min < Integer.MAX_VALUE - 1) {
+            // Narrow key range (ids, dates, flags): the offset from the minimum is already a rank
+            Arrays.parallelSetAll(ranks, row -> nulls[row] ? 0 : (int) (keys[row] - min) + 1);
+            return ranks;
+        }
+
+        long[] distinct = IntStream.range(0, rowCount).parallel().filter(row -> !nulls[row])
+                .mapToLong(row -> keys[row]).toArray();
+        Arrays.parallelSort(distinct);
+        int distinctCount = unique(distinct);
+        Arrays.parallelSetAll(ranks, row -> nulls[row] ? 0
+                : Arrays.binarySearch(distinct, 0, distinctCount, keys[row]) + 1);
+        return ranks;
+    }
+
+    /**
+     * A long whose signed order matches the value order
+     */
+    private static long sortKey(ColumnVector vector, int row, ColumnVector.ColumnType type) {
+        switch (type) {
+            case INT:
+            case DATE:
+            case BOOLEAN:
+                return vector.getInt(row);
+            case LONG:
+            case TIMESTAMP:
+                return vector.getLong(row);
+            case DECIMAL:
+                return ((ColumnVector.DecimalVector) vector).getUnscaled(row);
+            default:
+                // Flip the bits of negative doubles so the raw bits order like the values
+                long bits = Double.doubleToLongBits(vector.getDouble(row));
+                return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+        }
+    }
+
+    /**
+     * Whether every segment keeps the column as unscaled longs of one scale
+     */
+    private static boolean isUnscaled(ResultRowList.Snapshot snapshot, int column) {
+        int scale = -1;
+        for (DatabaseService.QueryResult segment : snapshot.segments) {
+            if (!(segment.getColumn(column) instanceof ColumnVector.DecimalVector)) {
+                return false;
+            }
+            ColumnVector.DecimalVector decimals = (ColumnVector.DecimalVector) segment.getColumn(column);
+            if (decimals.hasOverflow() || (scale >= 0 && decimals.getScale() != scale)) {
+                return false;
+            }
+            scale = decimals.getScale();
+        }
+        return true;
+    }
+
+    /**
+     * Whether every segment keeps the column as epoch nanos without overflow
+     */
+    private static boolean isEpochNanos(ResultRowList.Snapshot snapshot, int column) {
+        for (DatabaseService.QueryResult segment : snapshot.segments) {
+            ColumnVector vector = segment.getColumn(column);
+            if (!(vector instanceof ColumnVector.TimestampVector)
+                    || ((ColumnVector.TimestampVector) vector).hasOverflow()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ranks by the boxed values' natural order, for decimals and timestamps that don't fit a long key
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int[] comparableRanks(ResultRowList.Snapshot snapshot, int column) {
+        int rowCount = snapshot.rowCount;
+        Comparable[] values = new Comparable[rowCount];
+        forEachSegment(snapshot, (segment, start) -> {
+            ColumnVector vector = segment.getColumn(column);
+            IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                if (!vector.isNull(local)) {
+                    values[start + local] = (Comparable) vector.getObject(local);
+                }
+            });
+        });
+
+        Comparable[] distinct = Arrays.stream(values).parallel().filter(Objects::nonNull).toArray(Comparable[]::new);
+        Arrays.parallelSort(distinct);
+        // compareTo, so 1.0 and 1.00 share a rank
+        int count = distinct.length == 0 ? 0 : 1;
+        for (int i = 1; i < distinct.length; i++) {
+            if (distinct[i].compareTo(distinct[count - 1]) != 0) {
+                distinct[count++] = distinct[i];
+            }
+        }
+        int distinctCount = count;
+        int[] ranks = new int[rowCount];
+        Arrays.parallelSetAll(ranks, row -> values[row] == null ? 0
+                : Arrays.binarySearch(distinct, 0, distinctCount, values[row]) + 1);
+        return ranks;
+    }
+
+    private static int[] textRanks(ResultRowList.Snapshot snapshot, int column) {
+        // Rank the distinct strings once, then map dictionary codes (or values) to those ranks
+        Map<String, Integer> distinctIndex = new HashMap<>();
+        forEachSegment(snapshot, (segment, start) -> {
+            ColumnVector vector = segment.getColumn(column);
+            if (vector instanceof ColumnVector.StringVector) {
+                ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+                for (int code = 0; code < strings.getDictionarySize(); code++) {
+                    distinctIndex.putIfAbsent(strings.getDictionaryValue(code), distinctIndex.size());
+                }
+            } else {
+                for (int row = 0; row < segment.getRowCount(); row++) {
+                    String value = vector.getString(row);
+                    if (value != null) {
+                        distinctIndex.putIfAbsent(value, distinctIndex.size());
+                    }
+                }
+            }
+        });
+
+        String[] sorted = distinctIndex.keySet().toArray(new String[0]);
+        Arrays.parallelSort(sorted);
+        Map<String, Integer> rankOf = new HashMap<>(sorted.length * 2);
+        for (int i = 0; i < sorted.length; i++) {
+            rankOf.put(sorted[i], i + 1);
+        }
+
+        int[] ranks = new int[snapshot.rowCount];
+        forEachSegment(snapshot, (segment, start) -> {
+            ColumnVector vector = segment.getColumn(column);
+            if (vector instanceof ColumnVector.StringVector) {
+                ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+                int[] codeRanks = new int[strings.getDictionarySize()];
+                for (int code = 0; code < codeRanks.length; code++) {
+                    codeRanks[code] = rankOf.get(strings.getDictionaryValue(code));
+                }
+                IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                    int code = strings.getCode(local);
+                    ranks[start + local] = code < 0 ? 0 : codeRanks[code];
+                });
+            } else {
+                IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                    String value = vector.getString(local);
+                    ranks[start + local] = value == null ? 0 : rankOf.get(value);
+                });
+            }
+        });
+        return ranks;
+    }
+
+    private static int unique(long[] sorted) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count;
+    }
+
+    // ===== FILTERING =====
+
+    /**
+     * Case-insensitive substring match on the text the grid shows for any column, so localized
+     * dates and plain-printed numbers match as displayed. String columns are matched once per
+     * dictionary entry; number and boolean columns are only checked when the text could occur in them.
+     */
+    static boolean[] filter(ResultRowList.Snapshot snapshot, String needle) {
+        boolean[] matches = new boolean[snapshot.rowCount];
+        boolean numericNeedle = needle.chars().allMatch(ch -> Character.isDigit(ch) || ".-:+e ".indexOf(ch) >= 0);
+        boolean booleanNeedle = "true".contains(needle) || "false".contains(needle);
+
+        forEachSegment(snapshot, (segment, start) -> {
+            for (int column = 0; column < segment.getColumnCount(); column++) {
+                ColumnVector vector = segment.getColumn(column);
+                ColumnVector.ColumnType type = vector.getType();
+                if (vector instanceof ColumnVector.StringVector) {
+                    ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+                    boolean[] codeMatches = new boolean[strings.getDictionarySize()];
+                    for (int code = 0; code < codeMatches.length; code++) {
+                        codeMatches[code] = strings.getDictionaryValue(code).toLowerCase(Locale.ROOT).contains(needle);
+                    }
+                    IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                        int code = strings.getCode(local);
+                        if (code >= 0 && codeMatches[code]) {
+                            matches[start + local] = true;
+                        }
+                    });
+                } else if (type == ColumnVector.ColumnType.BOOLEAN ? booleanNeedle
+                        : !isNumber(type) || numericNeedle) {
+                    int matchColumn = column;
+                    IntStream.range(0, segment.getRowCount()).parallel().forEach(local -> {
+                        if (!matches[start + local] && !vector.isNull(local)) {
+                            String text = ResultCellFormatter.format(segment, local, matchColumn);
+                            if (text.toLowerCase(Locale.ROOT).contains(needle)) {
+                                matches[start + local] = true;
+                            }
+                        }
+                    });
+                }
+            }
+        });
+        return matches;
+    }
+
+    private static boolean isNumber(ColumnVector.ColumnType type) {
+        return type == ColumnVector.ColumnType.INT || type == ColumnVector.ColumnType.LONG
+                || type == ColumnVector.ColumnType.DOUBLE || type == ColumnVector.ColumnType.DECIMAL;
+    }
+
+    @FunctionalInterface
+    private interface SegmentAction {
+        void accept(DatabaseService.QueryResult segment, int start);
+    }
+
+    private static void forEachSegment(ResultRowList.Snapshot snapshot, SegmentAction action) {
+        for (int i = 0; i < snapshot.segments.length; i++) {
+            action.accept(snapshot.segments[i], snapshot.starts[i]);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * Small undecorated window shown while the main window loads. It is built
+ * from plain controls without CSS or FXML so it paints on the first pulse.
+ */
+public class SplashScreen {
+    private final Stage stage = new Stage(StageStyle.UNDECORATED);
+    private final Label statusLabel = new Label("Starting...");
+
+    public SplashScreen(Image icon) {
+        Label titleLabel = new Label("SQL Learning");
+        titleLabel.setStyle("-fx-font-size: 22px; -fx-font-weight: bold; -fx-text-fill: white;");
+        statusLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #dbeafe;");
+
+        ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBar.setPrefWidth(260);
+
+        VBox root = new VBox(14, titleLabel, progressBar, statusLabel);
+        root.setAlignment(Pos.CENTER);
+        root.setPadding(new Insets(28));
+        root.setStyle("-fx-background-color: #2563eb;");
+
+        stage.setScene(new Scene(root, 360, 180));
+        stage.setTitle("SQL Learning");
+        if (icon != null) {
+            stage.getIcons().add(icon);
+        }
+        stage.centerOnScreen();
+    }
+
+    public void show() {
+        stage.show();
+    }
+
+    public void setStatus(String status) {
+        statusLabel.setText(status);
+    }
+
+    public void close() {
+        stage.close();
+    }
+}
@@ -0,0 +1,474 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.CompletionContext;
+import com.coffee_and_code.sql_learning.service.CompletionIndex;
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+import com.coffee_and_code.sql_learning.service.SqlLexer;
+import com.coffee_and_code.sql_learning.service.SqlScriptSplitter;
+import com.coffee_and_code.sql_learning.service.SqlStatement;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.stage.Popup;
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.TwoDimensional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Completion popup of the SQL editor. It opens while a word is typed, after a dot
+ * and on Ctrl+Space, and is served from a {@link CompletionIndex} of the schema.
+ * Up/Down select, Enter or Tab inserts, Escape closes. After JOIN it also offers the
+ * whole join path to a table. After DDL only the tables the statements named are read again.
+ */
+public class SqlCompletion {
+    private static final Logger logger = LoggerFactory.getLogger(SqlCompletion.class);
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int VISIBLE_ROWS = 10;
+
+    private final CodeArea area;
+    private final CompletionIndex index = new CompletionIndex();
+    private final Popup popup = new Popup();
+    private final ListView<CompletionIndex.Suggestion> list = new ListView<>();
+    private final ExecutorService schemaExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "completion-schema");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final StatementBounds statementBounds = new StatementBounds();
+    private CompletionContext context;
+
+    public SqlCompletion(CodeArea area) {
+        this.area = area;
+
+        list.setPrefWidth(380);
+        list.setFocusTraversable(false);
+        list.setStyle("-fx-font-family: 'JetBrains Mono', 'Fira Code', 'Monaco', 'Consolas', monospace; -fx-font-size: 12px;");
+        list.setCellFactory(view -> new SuggestionCell());
+        list.setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                accept();
+            }
+        });
+        popup.getContent().add(list);
+        popup.setAutoHide(true);
+
+        area.addEventFilter(KeyEvent.KEY_PRESSED, this::onKeyPressed);
+        area.plainTextChanges().subscribe(this::onTextChange);
+        area.caretPositionProperty().addListener((obs, oldPosition, position) -> {
+            if (popup.isShowing() && (position < context.getPrefixStart() || !isWord(context.getPrefixStart(), position))) {
+                hide();
+            }
+        });
+        area.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                hide();
+            }
+        });
+    }
+
+    /**
+     * Index a freshly loaded schema, columns and foreign keys keyed by table name
+     */
+    public void setSchema(Map<String, List<DatabaseService.ColumnInfo>> schema,
+                          Map<String, List<DatabaseService.ForeignKey>> foreignKeys) {
+        long start = System.nanoTime();
+        index.setTables(schema, foreignKeys);
+        logger.debug("Completion index rebuilt with {} tables in {}ms", schema.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Re-read the tables that executed SQL created, altered or dropped.
+     * Returns false when the change cannot be narrowed to tables and the whole schema should be reloaded.
+     */
+    public boolean refreshAfter(String sql, DatabaseService databaseService) {
+        Set<String> changed = changedTables(sql);
+        if (changed == null) {
+            return false;
+        }
+        for (String table : changed) {
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    List<DatabaseService.ColumnInfo> columns = databaseService.getTableColumns(table);
+                    return Map.entry(columns, columns.isEmpty()
+                            ? List.<DatabaseService.ForeignKey>of() : databaseService.getForeignKeys(table));
+                } catch (Exception e) {
+                    logger.warn("Could not read the columns of {}: {}", table, e.getMessage());
+                    return null;
+                }
+            }, schemaExecutor).thenAccept(definition -> Platform.runLater(() -> {
+                if (definition == null) {
+                    return;
+                }
+                if (definition.getKey().isEmpty()) {
+                    index.removeTable(table);
+                } else {
+                    index.putTable(table, definition.getKey(), definition.getValue());
+                }
+            }));
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        schemaExecutor.shutdownNow();
+        hide();
+    }
+
+    // ===== POPUP =====
+
+    private void onKeyPressed(KeyEvent e) {
+        if (e.getCode() == KeyCode.SPACE && e.isShortcutDown()) {
+            show(area.getCaretPosition(), true);
+            e.consume();
+            return;
+        }
+        if (!popup.isShowing()) {
+            return;
+        }
+        switch (e.getCode()) {
+            case UP -> move(-1);
+            case DOWN -> move(1);
+            case PAGE_UP -> move(-VISIBLE_ROWS);
+            case PAGE_DOWN -> move(VISIBLE_ROWS);
+            case ENTER, TAB -> accept();
+            case ESCAPE -> hide();
+            default -> {
+                return;
+            }
+        }
+        e.consume();
+    }
+
+    private void onTextChange(PlainTextChange change) {
+        statementBounds.invalidateFrom(
+                area.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Backward).getMajor());
+        String inserted = change.getInserted();
+        int caret = change.getInsertionEnd();
+        if (inserted.length() == 1 && (isWordPart(inserted.charAt(0)) || inserted.charAt(0) == '.')) {
+            show(caret, false);
+        } else if (popup.isShowing() && inserted.isEmpty() && !change.getRemoved().isEmpty()) {
+            // Backspace keeps the popup open while the word is not empty
+            show(caret, false);
+        } else {
+            hide();
+        }
+    }
+
+    /**
+     * Open or update the popup for the caret position. Typing opens it only for a non-empty word or after a dot.
+     */
+    private void show(int caret, boolean explicit) {
+        long start = System.nanoTime();
+        // Only the statement around the caret is lexed, so typing stays fast in long scripts
+        TwoDimensional.Position position = area.offsetToPosition(caret, TwoDimensional.Bias.Backward);
+        int[] statement = statementBounds.around(line -> area.getParagraph(line).getText(),
+                area.getParagraphs().size(), position.getMajor(), position.getMinor());
+        int from = area.getAbsolutePosition(statement[0], statement[1]);
+        int to = area.getAbsolutePosition(statement[2], statement[3]);
+        CompletionContext current = CompletionContext.at(area.getText(from, to), from, caret);
+        if (current == null || !explicit && current.getPrefix().isEmpty()
+                && current.getExpected() != CompletionContext.Expected.COLUMN_OF) {
+            hide();
+            return;
+        }
+        List<CompletionIndex.Suggestion> suggestions = index.suggest(current, MAX_SUGGESTIONS);
+        logger.trace("{} suggestions for '{}' in {}us", suggestions.size(), current.getPrefix(),
+                (System.nanoTime() - start) / 1_000);
+        if (suggestions.isEmpty()) {
+            hide();
+            return;
+        }
+        context = current;
+        list.getItems().setAll(suggestions);
+        list.getSelectionModel().selectFirst();
+        list.scrollTo(0);
+        list.setPrefHeight(Math.min(suggestions.size(), VISIBLE_ROWS) * 24 + 4);
+        if (!popup.isShowing()) {
+            Optional<Bounds> caretBounds = area.getCaretBounds();
+            caretBounds.ifPresent(bounds -> popup.show(area, bounds.getMinX(), bounds.getMaxY() + 2));
+        }
+    }
+
+    private void move(int rows) {
+        int size = list.getItems().size();
+        int selected = list.getSelectionModel().getSelectedIndex();
+        int target = Math.max(0, Math.min(size - 1, selected + rows));
+        list.getSelectionModel().select(target);
+        list.scrollTo(Math.max(0, target - VISIBLE_ROWS / 2));
+    }
+
+    private void accept() {
+        CompletionIndex.Suggestion suggestion = list.getSelectionModel().getSelectedItem();
+        if (suggestion == null || context == null) {
+            hide();
+            return;
+        }
+        String text = suggestion.getText();
+        String prefix = context.getPrefix();
+        // Follow the user's casing for words typed in lower case
+        // Join clauses are cased when they are built
+        if (!prefix.isEmpty() && prefix.equals(prefix.toLowerCase(Locale.ROOT))
+                && suggestion.getKind() != CompletionIndex.Kind.ALIAS && suggestion.getKind() != CompletionIndex.Kind.JOIN) {
+            text = text.toLowerCase(Locale.ROOT);
+        }
+        int start = context.getPrefixStart();
+        hide();
+        index.recordUse(suggestion.getText());
+        area.replaceText(start, area.getCaretPosition(), text);
+    }
+
+    private void hide() {
+        if (popup.isShowing()) {
+            popup.hide();
+        }
+        context = null;
+    }
+
+    private boolean isWord(int from, int to) {
+        String text = area.getText(from, to);
+        for (int i = 0; i < text.length(); i++) {
+            if (!isWordPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // ===== DDL =====
+
+    /**
+     * Tables named by the DDL statements of the SQL, empty when it has none, null when
+     * a statement changes more than single tables (schemas, DROP ALL OBJECTS, RENAME)
+     */
+    static Set<String> changedTables(String sql) {
+        Set<String> tables = new HashSet<>();
+        for (SqlStatement statement : SqlScriptSplitter.split(sql)) {
+            if (statement.getKind() != SqlStatement.Kind.DDL) {
+                continue;
+            }
+            switch (statement.getKeyword()) {
+                case "CREATE", "ALTER", "DROP" -> {
+                    List<String> names = tableNames(statement.getSql());
+                    if (names == null) {
+                        return null;
+                    }
+                    tables.addAll(names);
+                }
+                case "RENAME" -> {
+                    return null;
+                }
+                default -> { }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Table names of a CREATE, ALTER or DROP statement, empty for other objects such as
+     * indexes and views, null for schemas and everything
+     */
+    private static List<String> tableNames(String sql) {
+        SqlLexer lexer = new SqlLexer().reset(sql);
+        // CREATE [CACHED | MEMORY | LOCAL TEMPORARY | ...] TABLE
+        boolean table = false;
+        for (int words = 0; !table; words++) {
+            if (!nextSignificant(lexer) || words > 4) {
+                return List.of();
+            }
+            switch (lexer.tokenText().toUpperCase(Locale.ROOT)) {
+                case "TABLE" -> table = true;
+                case "SCHEMA", "ALL" -> {
+                    return null;
+                }
+                default -> { }
+            }
+        }
+
+        // [IF [NOT] EXISTS] [schema.]name [, ...]
+        List<String> names = new ArrayList<>();
+        String name = null;
+        boolean expectName = true;
+        boolean more;
+        while ((more = nextSignificant(lexer))) {
+            SqlLexer.TokenType type = lexer.getTokenType();
+            // A table named like a function (position, year) lexes as FUNCTION before its '('
+            if ((isIdentifier(type) || type == SqlLexer.TokenType.FUNCTION) && expectName) {
+                name = storedName(lexer);
+                expectName = false;
+            } else if (type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == '.') {
+                expectName = true;
+            } else if (type == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ',' && name != null) {
+                names.add(name);
+                name = null;
+                expectName = true;
+            } else if (type != SqlLexer.TokenType.KEYWORD || name != null) {
+                break;
+            }
+        }
+        if (name != null) {
+            names.add(name);
+        }
+
+        // ALTER TABLE a RENAME TO b also creates b
+        String previous = null;
+        String beforePrevious = null;
+        for (; more; more = nextSignificant(lexer)) {
+            if ("RENAME".equals(beforePrevious) && "TO".equals(previous) && isIdentifier(lexer.getTokenType())) {
+                names.add(storedName(lexer));
+                break;
+            }
+            beforePrevious = previous;
+            previous = lexer.tokenText().toUpperCase(Locale.ROOT);
+        }
+        return names;
+    }
+
+    /**
+     * Lexer state at the end of each paragraph for a prefix of the document. The statement
+     * around the caret is found by lexing only its own paragraphs, and an edit drops the
+     * states from its paragraph on.
+     */
+    static final class StatementBounds {
+        private final List<SqlLexer.State> exitStates = new ArrayList<>();
+        private final SqlLexer lexer = new SqlLexer();
+
+        void invalidateFrom(int paragraph) {
+            if (paragraph < exitStates.size()) {
+                exitStates.subList(paragraph, exitStates.size()).clear();
+            }
+        }
+
+        /**
+         * Start paragraph and column, end paragraph and column of the statement around the
+         * caret, between the semicolons before and after it
+         */
+        int[] around(IntFunction<String> paragraphs, int paragraphCount, int caretParagraph, int caretColumn) {
+            int[] bounds = {0, 0, paragraphCount - 1, paragraphs.apply(paragraphCount - 1).length()};
+            for (int paragraph = caretParagraph; paragraph >= 0; paragraph--) {
+                int limit = paragraph == caretParagraph ? caretColumn : Integer.MAX_VALUE;
+                int separatorEnd = -1;
+                reset(paragraphs, paragraph);
+                while (lexer.next() && lexer.getTokenEnd() <= limit) {
+                    if (isSeparator()) {
+                        separatorEnd = lexer.getTokenEnd();
+                    }
+                }
+                if (separatorEnd >= 0) {
+                    bounds[0] = paragraph;
+                    bounds[1] = separatorEnd;
+                    break;
+                }
+            }
+            for (int paragraph = caretParagraph; paragraph < paragraphCount; paragraph++) {
+                int from = paragraph == caretParagraph ? caretColumn : 0;
+                reset(paragraphs, paragraph);
+                while (lexer.next()) {
+                    if (lexer.getTokenStart() >= from && isSeparator()) {
+                        bounds[2] = paragraph;
+                        bounds[3] = lexer.getTokenStart();
+                        return bounds;
+                    }
+                }
+            }
+            return bounds;
+        }
+
+        private void reset(IntFunction<String> paragraphs, int paragraph) {
+            SqlLexer.State entryState = entryState(paragraphs, paragraph);
+            String text = paragraphs.apply(paragraph);
+            lexer.reset(text, 0, text.length(), entryState);
+        }
+
+        private boolean isSeparator() {
+            return lexer.getTokenType() == SqlLexer.TokenType.PUNCTUATION && lexer.tokenChar() == ';';
+        }
+
+        /**
+         * State at the start of the paragraph, lexing the paragraphs before it that have no state yet
+         */
+        private SqlLexer.State entryState(IntFunction<String> paragraphs, int paragraph) {
+            while (exitStates.size() < paragraph) {
+                int next = exitStates.size();
+                String text = paragraphs.apply(next);
+                lexer.reset(text, 0, text.length(), next == 0 ? SqlLexer.State.NORMAL : exitStates.get(next - 1));
+                while (lexer.next()) {
+                    // Only the state at the end of the paragraph is kept
+                }
+                exitStates.add(lexer.getState());
+            }
+            return paragraph == 0 ? SqlLexer.State.NORMAL : exitStates.get(paragraph - 1);
+        }
+    }
+
+    private static boolean nextSignificant(SqlLexer lexer) {
+        while (lexer.next()) {
+            if (lexer.getTokenType() != SqlLexer.TokenType.WHITESPACE
+                    && lexer.getTokenType() != SqlLexer.TokenType.COMMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIdentifier(SqlLexer.TokenType type) {
+        return type == SqlLexer.TokenType.IDENTIFIER || type == SqlLexer.TokenType.QUOTED_IDENTIFIER;
+    }
+
+    /**
+     * Name as H2 stores it: unquoted names upper-cased, quoted ones as written
+     */
+    private static String storedName(SqlLexer lexer) {
+        String text = lexer.tokenText();
+        if (lexer.getTokenType() == SqlLexer.TokenType.QUOTED_IDENTIFIER) {
+            return text.length() >= 2 ? text.substring(1, text.length() - 1) : text;
+        }
+        return text.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Suggestion text with its kind and detail in a lighter color
+     */
+    private static class SuggestionCell extends ListCell<CompletionIndex.Suggestion> {
+        @Override
+        protected void updateItem(CompletionIndex.Suggestion item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setText(null);
+                setGraphic(null);
+                return;
+            }
+            Label detail = new Label(
+                    item.getKind().name().toLowerCase(Locale.ROOT) + "  " + item.getDetail());
+            detail.setStyle("-fx-text-fill: #6b7280; -fx-font-size: 11px;");
+            setText(item.getText());
+            setGraphic(detail);
+            setContentDisplay(ContentDisplay.RIGHT);
+            setGraphicTextGap(12);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.ColumnProfiler;
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+import com.coffee_and_code.sql_learning.service.QueryHandle;
+import com.coffee_and_code.sql_learning.service.StreamSpiller;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.function.LongConsumer;
+
+/**
+ * Subscribes to a streamed query result and fills a TableView as chunks arrive.
+ * More chunks are only requested while the rows loaded past the viewport are
+ * below a bounded buffer, so scrolling drives how much of the result is fetched.
+ * With a spiller, chunks past the heap threshold are swapped for spilled segments.
+ */
+public class StreamingResultLoader implements Flow.Subscriber<DatabaseService.QueryResult> {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResultLoader.class);
+
+    private final int bufferRows;
+    private final CompletableFuture<DatabaseService.QueryResult> firstChunk = new CompletableFuture<>();
+
+    // Subscription is set on the stream thread, everything below is FX-thread state
+    private volatile Flow.Subscription subscription;
+    private volatile ColumnProfiler profiler;
+    private volatile StreamSpiller spiller;
+    private volatile boolean cancelled;
+    private final List<DatabaseService.QueryResult> pendingChunks = new ArrayList<>();
+    private TableView<List<Object>> table;
+    private ResultRowList rows;
+    private LongConsumer onProgress;
+    private LongConsumer onComplete;
+    private ScrollBar scrollBar;
+    private final ChangeListener<Number> scrollListener = (obs, oldValue, newValue) -> requestMoreIfNeeded();
+    private boolean requestOutstanding;
+    private boolean loadingAll;
+    private boolean completed;
+    private long rowsLoaded;
+
+    public StreamingResultLoader(int bufferRows) {
+        this.bufferRows = bufferRows;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(DatabaseService.QueryResult chunk) {
+        if (!firstChunk.isDone()) {
+            firstChunk.complete(chunk);
+            return;
+        }
+        // Spilling runs here on the stream thread, the FX thread only swaps the chunks
+        DatabaseService.QueryResult segment = spill(chunk, false);
+        Platform.runLater(() -> {
+            requestOutstanding = false;
+            if (cancelled) {
+                release(segment);
+                return;
+            }
+            if (table == null) {
+                pendingChunks.add(chunk);
+                replacePending(segment);
+            } else {
+                append(chunk);
+                replaceLoaded(segment);
+                requestMoreIfNeeded();
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        discardSpill();
+        if (!firstChunk.completeExceptionally(throwable)) {
+            logger.warn("Result stream failed after the first chunk: {}", throwable.getMessage());
+            Platform.runLater(() -> finish());
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        // An empty result completes right after its first (column-only) chunk
+        DatabaseService.QueryResult segment = spill(null, true);
+        Platform.runLater(() -> {
+            if (cancelled) {
+                release(segment);
+            } else if (table == null) {
+                replacePending(segment);
+            } else {
+                replaceLoaded(segment);
+            }
+            completed = true;
+            if (table != null) {
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Block the calling (scheduler) thread until the first chunk is fetched
+     * and convert it into the usual execution result
+     */
+    public DatabaseService.ExecutionResult awaitFirstChunk(DatabaseService databaseService, QueryHandle handle) {
+        try {
+            return new DatabaseService.ExecutionResult(true, "Query executed successfully", firstChunk.get(), 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            return new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0);
+        } catch (CancellationException e) {
+            return new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0);
+        } catch (ExecutionException e) {
+            return databaseService.failureResult(e.getCause(), handle);
+        }
+    }
+
+    /**
+     * Start appending the remaining chunks to the row list the table shows, which
+     * already holds the first chunk. Must be called on the FX thread.
+     */
+    public void attach(TableView<List<Object>> table, ResultRowList rows,
+                       LongConsumer onProgress, LongConsumer onComplete) {
+        this.table = table;
+        this.rows = rows;
+        this.onProgress = onProgress;
+        this.onComplete = onComplete;
+        this.rowsLoaded = rows.getLoadedRowCount();
+
+        scrollBar = findVerticalScrollBar();
+        if (scrollBar != null) {
+            scrollBar.valueProperty().addListener(scrollListener);
+        }
+        table.setOnScrollFinished(e -> requestMoreIfNeeded());
+
+        for (DatabaseService.QueryResult chunk : pendingChunks) {
+            append(chunk);
+        }
+        pendingChunks.clear();
+
+        if (completed) {
+            finish();
+        } else {
+            requestMoreIfNeeded();
+        }
+    }
+
+    /**
+     * Hand a chunk to the spiller, or close its last segment. Returns a finished segment or null.
+     */
+    private DatabaseService.QueryResult spill(DatabaseService.QueryResult chunk, boolean last) {
+        StreamSpiller current = spiller;
+        if (current == null) {
+            return null;
+        }
+        try {
+            return last ? current.finish() : current.accept(chunk);
+        } catch (IOException | RuntimeException e) {
+            // The rows still live on the heap, only the spilling stops
+            logger.warn("Could not spill streamed result, keeping it in memory: {}", e.getMessage());
+            spiller = null;
+            current.discard();
+            return null;
+        }
+    }
+
+    private void replaceLoaded(DatabaseService.QueryResult segment) {
+        if (segment != null) {
+            rows.replaceTail(segment);
+        }
+    }
+
+    private void replacePending(DatabaseService.QueryResult segment) {
+        if (segment != null) {
+            int first = ResultRowList.tailStart(pendingChunks, segment.getRowCount());
+            pendingChunks.subList(first, pendingChunks.size()).clear();
+            pendingChunks.add(segment);
+        }
+    }
+
+    private static void release(DatabaseService.QueryResult segment) {
+        if (segment != null) {
+            segment.release();
+        }
+    }
+
+    private void discardSpill() {
+        StreamSpiller current = spiller;
+        if (current != null) {
+            current.discard();
+        }
+    }
+
+    private void append(DatabaseService.QueryResult chunk) {
+        // One change event per chunk instead of one per row
+        rows.appendChunk(chunk);
+        rowsLoaded = rows.getLoadedRowCount();
+        if (onProgress != null) {
+            onProgress.accept(rowsLoaded);
+        }
+    }
+
+    private void requestMoreIfNeeded() {
+        Flow.Subscription current = subscription;
+        if (current == null || requestOutstanding || completed || cancelled || table == null) {
+            return;
+        }
+        if (loadingAll || rowsLoaded - lastVisibleIndex() < bufferRows) {
+            requestOutstanding = true;
+            current.request(1);
+        }
+    }
+
+    private int lastVisibleIndex() {
+        Node node = table.lookup(".virtual-flow");
+        if (node instanceof VirtualFlow) {
+            IndexedCell<?> lastCell = ((VirtualFlow<?>) node).getLastVisibleCell();
+            if (lastCell != null) {
+                return lastCell.getIndex();
+            }
+        }
+        return 0;
+    }
+
+    private ScrollBar findVerticalScrollBar() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                return (ScrollBar) node;
+            }
+        }
+        return null;
+    }
+
+    private void finish() {
+        completed = true;
+        detachScrollListener();
+        if (onComplete != null) {
+            onComplete.accept(rowsLoaded);
+            onComplete = null;
+        }
+    }
+
+    /**
+     * Stop the stream and release its cursor. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        firstChunk.cancel(false);
+        discardSpill();
+        Platform.runLater(this::detachScrollListener);
+    }
+
+    private void detachScrollListener() {
+        if (scrollBar != null) {
+            scrollBar.valueProperty().removeListener(scrollListener);
+            scrollBar = null;
+        }
+    }
+
+    public boolean isCompleted() { return completed; }
+
+    /**
+     * Keep fetching until the whole result is loaded, one chunk at a time, whatever the
+     * viewport shows. Sorting or filtering needs every row. Must be called on the FX thread.
+     */
+    public void loadAll() {
+        if (!loadingAll) {
+            loadingAll = true;
+            requestMoreIfNeeded();
+        }
+    }
+
+    public boolean isLoadingAll() { return loadingAll; }
+
+    /**
+     * Profiler fed by the stream this loader subscribes to
+     */
+    public void setProfiler(ColumnProfiler profiler) { this.profiler = profiler; }
+    public ColumnProfiler getProfiler() { return profiler; }
+
+    /**
+     * Spiller for the chunks after the first, set before subscribing
+     */
+    public void setSpiller(StreamSpiller spiller) { this.spiller = spiller; }
+}
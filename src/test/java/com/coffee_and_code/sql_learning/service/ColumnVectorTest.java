@@ -0,0 +1,72 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnVectorTest {
+
+    @Test
+    void decimalsAtAnotherScaleAreStoredUnscaledWhenExact() {
+        ColumnVector.DecimalVector vector = new ColumnVector.DecimalVector(2);
+        vector.appendValue(new BigDecimal("2.5"));
+        vector.appendValue(new BigDecimal("3.250"));
+        vector.appendValue(new BigDecimal("1.125"));
+
+        assertFalse(vector.isOverflow(0));
+        assertFalse(vector.isOverflow(1));
+        assertEquals(250, vector.getUnscaled(0));
+        assertEquals(0, new BigDecimal("3.25").compareTo(vector.getDecimal(1)));
+        // Would need rounding, so it keeps its own scale
+        assertTrue(vector.isOverflow(2));
+        assertEquals(new BigDecimal("1.125"), vector.getDecimal(2));
+    }
+
+    @Test
+    void smallNumericAndTimestampColumnsUsePrimitiveVectors() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:column-vector-test");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT CAST(7 AS SMALLINT), CAST(3 AS TINYINT), "
+                     + "CAST(1.1 AS REAL), TIMESTAMP '2024-03-15 10:20:30.123456789', "
+                     + "TIMESTAMP '9999-12-31 23:59:59'")) {
+            ColumnVector[] vectors = new ColumnVector[5];
+            for (int c = 0; c < vectors.length; c++) {
+                vectors[c] = ColumnVector.forColumn(rs.getMetaData(), c + 1);
+            }
+            assertTrue(rs.next());
+            for (int c = 0; c < vectors.length; c++) {
+                vectors[c].append(rs, c + 1);
+            }
+
+            assertInstanceOf(ColumnVector.IntVector.class, vectors[0]);
+            assertInstanceOf(ColumnVector.IntVector.class, vectors[1]);
+            assertEquals(7, vectors[0].getInt(0));
+            assertEquals(3, vectors[1].getInt(0));
+            assertInstanceOf(ColumnVector.DoubleVector.class, vectors[2]);
+            assertEquals(1.1, vectors[2].getDouble(0));
+            assertInstanceOf(ColumnVector.TimestampVector.class, vectors[3]);
+            assertEquals(rs.getTimestamp(4), vectors[3].getObject(0));
+            // Beyond the epoch-nanos range, kept exactly in the overflow map
+            assertTrue(((ColumnVector.TimestampVector) vectors[4]).isOverflow(0));
+            assertEquals(rs.getTimestamp(5), vectors[4].getObject(0));
+        }
+    }
+
+    @Test
+    void epochNanosRoundTripBeforeTheEpoch() {
+        Timestamp timestamp = Timestamp.valueOf("1969-12-31 23:59:59.999999999");
+        long nanos = ColumnVector.TimestampVector.toEpochNanos(timestamp);
+
+        assertEquals(timestamp, ColumnVector.TimestampVector.fromEpochNanos(nanos));
+    }
+}
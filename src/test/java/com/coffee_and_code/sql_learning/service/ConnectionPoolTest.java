@@ -0,0 +1,103 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void open() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:connection-pool-test;DB_CLOSE_DELAY=-1", "sa", "", 1, 2, 1000);
+        execute(pool.acquire(), "CREATE TABLE t (v INT)");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        execute(pool.acquire(), "DROP ALL OBJECTS");
+        pool.close();
+    }
+
+    @Test
+    void sessionKeepsItsTransactionBetweenLeases() throws SQLException {
+        execute(pool.acquireSession(), "SET AUTOCOMMIT FALSE");
+        execute(pool.acquireSession(), "INSERT INTO t VALUES (1)");
+        assertTrue(pool.isSessionInTransaction());
+
+        execute(pool.acquireSession(), "COMMIT");
+        assertEquals(1, count(pool.acquire()));
+    }
+
+    @Test
+    void sessionRollsBackToASavepointInALaterLease() throws SQLException {
+        execute(pool.acquireSession(), "SET AUTOCOMMIT FALSE");
+        execute(pool.acquireSession(), "INSERT INTO t VALUES (1)");
+        execute(pool.acquireSession(), "SAVEPOINT first");
+        execute(pool.acquireSession(), "INSERT INTO t VALUES (2)");
+        execute(pool.acquireSession(), "ROLLBACK TO SAVEPOINT first");
+        execute(pool.acquireSession(), "COMMIT");
+
+        assertEquals(1, count(pool.acquire()));
+    }
+
+    @Test
+    void sessionIsTheSameConnectionEveryTime() throws SQLException {
+        ConnectionPool.Lease first = pool.acquireSession();
+        first.close();
+        try (ConnectionPool.Lease second = pool.acquireSession()) {
+            assertSame(first.getConnection(), second.getConnection());
+        }
+    }
+
+    @Test
+    void rollbackSessionDiscardsOpenWork() throws SQLException {
+        execute(pool.acquireSession(), "SET AUTOCOMMIT FALSE");
+        execute(pool.acquireSession(), "INSERT INTO t VALUES (1)");
+
+        assertTrue(pool.rollbackSession());
+        assertFalse(pool.isSessionInTransaction());
+        assertFalse(pool.rollbackSession());
+        assertEquals(0, count(pool.acquire()));
+    }
+
+    @Test
+    void pooledLeaseStillRollsBackWhenReleased() throws SQLException {
+        try (ConnectionPool.Lease lease = pool.acquire()) {
+            lease.getConnection().setAutoCommit(false);
+            execute(lease, "INSERT INTO t VALUES (1)", false);
+        }
+        assertEquals(0, count(pool.acquire()));
+    }
+
+    private static void execute(ConnectionPool.Lease lease, String sql) throws SQLException {
+        execute(lease, sql, true);
+    }
+
+    private static void execute(ConnectionPool.Lease lease, String sql, boolean close) throws SQLException {
+        try (Statement stmt = lease.getConnection().createStatement()) {
+            stmt.execute(sql);
+        } finally {
+            if (close) {
+                lease.close();
+            }
+        }
+    }
+
+    private static int count(ConnectionPool.Lease lease) throws SQLException {
+        try (lease; Statement stmt = lease.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
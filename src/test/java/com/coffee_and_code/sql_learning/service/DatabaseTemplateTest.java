@@ -0,0 +1,88 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseTemplateTest {
+    private static final String[] SAMPLE = {
+            "CREATE TABLE t (v INT)",
+            "INSERT INTO t VALUES (1), (2)"
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ignoresATemplateThisProcessDidNotWrite() throws Exception {
+        DatabaseTemplate template = new DatabaseTemplate(SAMPLE, directory.resolve("templates"));
+        Files.createDirectories(template.getScriptFile().getParent());
+        // A planted script with a matching checksum beside it
+        Files.writeString(template.getScriptFile(), "CREATE TABLE planted (v INT);");
+        Files.writeString(template.getScriptFile().resolveSibling(template.getScriptFile().getFileName() + ".sha256"),
+                "ignored");
+
+        assertFalse(template.isValid());
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:template-planted")) {
+            template.restore(connection);
+            assertEquals(0, count(connection, "PLANTED"));
+            assertEquals(2, count(connection, "T"));
+        }
+    }
+
+    @Test
+    void restoresTheTemplateItWrote() throws Exception {
+        DatabaseTemplate template = new DatabaseTemplate(SAMPLE, directory.resolve("templates"));
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:template-restore")) {
+            template.restore(connection);
+            assertTrue(template.isValid());
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM t");
+            }
+            template.restore(connection);
+            assertEquals(2, count(connection, "T"));
+
+            Files.writeString(template.getScriptFile(), "CREATE TABLE planted (v INT);");
+            assertFalse(template.isValid());
+        }
+    }
+
+    @Test
+    void createsTheDirectoryForTheOwnerOnly() throws Exception {
+        Path templates = directory.resolve("private").resolve("templates");
+        DatabaseTemplate template = new DatabaseTemplate(SAMPLE, templates);
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:template-private")) {
+            template.restore(connection);
+        }
+        if (templates.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(templates)));
+        }
+    }
+
+    private static int count(Connection connection, String table) throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + table + "'")) {
+            rs.next();
+            if (rs.getInt(1) == 0) {
+                return 0;
+            }
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryExecutionSchedulerTest {
+    private final QueryExecutionScheduler scheduler = new QueryExecutionScheduler(1, 2);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        scheduler.close();
+    }
+
+    @Test
+    void queuesSubmissionsUntilTheQueueIsFull() throws Exception {
+        QueryExecutionScheduler.Submission running = scheduler.submit("SELECT 1", blocking());
+        awaitRunning();
+        QueryExecutionScheduler.Submission second = scheduler.submit("SELECT 2", blocking());
+        QueryExecutionScheduler.Submission third = scheduler.submit("SELECT 3", blocking());
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit("SELECT 4", blocking()));
+
+        release.countDown();
+        for (QueryExecutionScheduler.Submission submission : new QueryExecutionScheduler.Submission[]{running, second, third}) {
+            assertTrue(submission.getResult().get(5, TimeUnit.SECONDS).isSuccess());
+            assertFalse(submission.isSuperseded());
+        }
+    }
+
+    @Test
+    void supersedesOnlyTheSameSource() throws Exception {
+        QueryExecutionScheduler.Submission editor = scheduler.submit("editor", "SELECT 1", untilCancelled());
+        awaitRunning();
+        QueryExecutionScheduler.Submission other = scheduler.submit("SELECT 2", blocking());
+        QueryExecutionScheduler.Submission latest = scheduler.submit("editor", "SELECT 3", blocking());
+
+        assertTrue(editor.isSuperseded());
+        assertFalse(editor.getResult().get(5, TimeUnit.SECONDS).isSuccess());
+        assertFalse(other.isSuperseded());
+        release.countDown();
+        assertTrue(other.getResult().get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(latest.getResult().get(5, TimeUnit.SECONDS).isSuccess());
+    }
+
+    @Test
+    void anErrorStillCompletesTheResult() {
+        QueryExecutionScheduler.Submission submission = scheduler.submit("SELECT 1", handle -> {
+            throw new AssertionError("boom");
+        });
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> submission.getResult().join());
+        assertInstanceOf(AssertionError.class, failure.getCause());
+    }
+
+    private Function<QueryHandle, DatabaseService.ExecutionResult> blocking() {
+        return handle -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new DatabaseService.ExecutionResult(true, "done", null, 0);
+        };
+    }
+
+    private static Function<QueryHandle, DatabaseService.ExecutionResult> untilCancelled() {
+        return handle -> {
+            while (!handle.isCancelled()) {
+                Thread.onSpinWait();
+            }
+            return new DatabaseService.ExecutionResult(false, "Query cancelled", null, 0);
+        };
+    }
+
+    private void awaitRunning() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getRunningCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(scheduler.getRunningCount() > 0, "first submission never started");
+    }
+}
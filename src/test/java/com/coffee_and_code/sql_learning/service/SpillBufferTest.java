@@ -0,0 +1,73 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillBufferTest {
+    private static final String SQL = "SELECT * FROM (VALUES "
+            + "(TIMESTAMP '2024-03-15 10:20:30.123456789', TIME '08:15:00', "
+            + "TIMESTAMP WITH TIME ZONE '2024-03-15 10:20:30+02:00', "
+            + "CAST('123e4567-e89b-12d3-a456-426614174000' AS UUID), X'CAFE'), "
+            + "(NULL, NULL, NULL, NULL, NULL)) T(TS, TM, TZ, ID, BIN)";
+
+    @Test
+    void objectColumnsKeepTheirTypesWhenSpilled() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:spill-buffer-test");
+             Statement statement = connection.createStatement()) {
+            List<List<Object>> expected = new ArrayList<>();
+            DatabaseService.QueryResult streamed;
+            try (ResultSet rs = statement.executeQuery(SQL)) {
+                List<String> names = new ArrayList<>();
+                ColumnVector[] templates = new ColumnVector[rs.getMetaData().getColumnCount()];
+                for (int c = 0; c < templates.length; c++) {
+                    names.add(rs.getMetaData().getColumnLabel(c + 1));
+                    templates[c] = ColumnVector.forColumn(rs.getMetaData(), c + 1);
+                }
+                SpillBuffer spill = new SpillBuffer(names, templates);
+                while (rs.next()) {
+                    List<Object> row = new ArrayList<>();
+                    for (int c = 1; c <= templates.length; c++) {
+                        row.add(rs.getObject(c));
+                    }
+                    expected.add(row);
+                    spill.append(rs);
+                }
+                streamed = spill.finish();
+            }
+
+            DatabaseService.QueryResult copied;
+            try (ResultSet rs = statement.executeQuery(SQL)) {
+                DatabaseService.QueryResult.Builder builder = new DatabaseService.QueryResult.Builder(rs.getMetaData());
+                while (rs.next()) {
+                    builder.addRow(rs);
+                }
+                copied = builder.spill().finish();
+            }
+
+            for (DatabaseService.QueryResult result : List.of(streamed, copied)) {
+                for (int row = 0; row < expected.size(); row++) {
+                    for (int c = 0; c < expected.get(row).size(); c++) {
+                        Object value = expected.get(row).get(c);
+                        Object spilled = result.getColumn(c).getObject(row);
+                        if (value instanceof byte[]) {
+                            assertArrayEquals((byte[]) value, (byte[]) spilled);
+                        } else {
+                            assertEquals(value, spilled);
+                        }
+                    }
+                }
+                assertTrue(result.getColumn(0).isNull(1));
+            }
+        }
+    }
+}
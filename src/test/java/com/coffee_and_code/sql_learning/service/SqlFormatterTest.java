@@ -0,0 +1,98 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlFormatterTest {
+    private static final String[] FRAGMENTS = {
+            "select", "from", "where", "and", "join", "on", "group", "by", "count", "upper", "int",
+            "name", "t", "x", "e", "E", "v", " ", "  ", "\n", ",", ".", "(", ")", ";", "*", "=", "<=", "-", "+",
+            "|", "||", ":", "::", ":=", "@", "1", "42", "2.5", "1e5", "2.5E-3", ".5", "'s'", "\"q\"",
+            "-- c\n", "/* c */", "$$ b $$"
+    };
+
+    @Test
+    void keepsTokensThatTouchTogether() {
+        assertEquals("SELECT a || b\nFROM t;\n", SqlFormatter.format("select a || b from t;"));
+        assertEquals("SELECT a||b\n", SqlFormatter.format("select a||b"));
+        assertEquals("SELECT 1e5\n", SqlFormatter.format("select 1e5"));
+        assertEquals("SELECT 2.5E-3\n", SqlFormatter.format("select 2.5E-3"));
+        assertEquals("SELECT x::INT\n", SqlFormatter.format("select x::int"));
+        assertEquals("SET @v := 1\n", SqlFormatter.format("set @v := 1"));
+    }
+
+    @Test
+    void stillBreaksClausesBetweenTouchingTokens() {
+        assertEquals("SELECT a,\n       b\nFROM t\nWHERE(a=1)\n", SqlFormatter.format("select a,b from t where(a=1)"));
+    }
+
+    @Test
+    void indentsASubqueryFromTheLineItOpensOn() {
+        assertEquals("""
+                SELECT a,
+                       b,
+                       (
+                           SELECT MAX(x)
+                           FROM t
+                       ) AS m
+                FROM s
+                """, SqlFormatter.format("SELECT a, b, (SELECT MAX(x) FROM t) AS m FROM s"));
+        assertEquals("""
+                SELECT *
+                FROM s
+                WHERE a IN (1)
+                    AND EXISTS (
+                        SELECT 1
+                        FROM t
+                        WHERE t.id = s.id
+                    )
+                """, SqlFormatter.format("SELECT * FROM s WHERE a IN (1) AND EXISTS (SELECT 1 FROM t WHERE t.id = s.id)"));
+    }
+
+    @Test
+    void keepsSeparateTokensApart() {
+        assertEquals("SELECT a | | b\n", SqlFormatter.format("select a | | b"));
+        assertEquals("SELECT x : : y\n", SqlFormatter.format("select x : : y"));
+    }
+
+    @Test
+    void formattedRandomScriptsLexToTheSameTokens() {
+        Random random = new Random(23);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder script = new StringBuilder();
+            for (int parts = random.nextInt(30); parts > 0; parts--) {
+                script.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String sql = script.toString();
+            assertEquals(tokens(sql), tokens(SqlFormatter.format(sql)), sql);
+        }
+    }
+
+    /**
+     * Tokens without whitespace, keywords and functions upper-cased like the formatter writes them
+     */
+    private static List<String> tokens(String sql) {
+        List<String> tokens = new ArrayList<>();
+        SqlLexer lexer = new SqlLexer().reset(sql);
+        while (lexer.next()) {
+            SqlLexer.TokenType type = lexer.getTokenType();
+            if (type == SqlLexer.TokenType.WHITESPACE) {
+                continue;
+            }
+            String text = lexer.tokenText();
+            if (type == SqlLexer.TokenType.KEYWORD || type == SqlLexer.TokenType.FUNCTION) {
+                text = text.toUpperCase(Locale.ROOT);
+            } else if (type == SqlLexer.TokenType.COMMENT) {
+                text = text.strip();
+            }
+            tokens.add(type + " " + text);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,49 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlLexerTest {
+
+    @Test
+    void numbersKeepTheirExponentAndLeadingDot() {
+        assertEquals(List.of("NUMBER 1e5"), tokens("1e5"));
+        assertEquals(List.of("NUMBER 2.5E-3"), tokens("2.5E-3"));
+        assertEquals(List.of("NUMBER 7E+10"), tokens("7E+10"));
+        assertEquals(List.of("NUMBER .5"), tokens(".5"));
+        assertEquals(List.of("OPERATOR -", "NUMBER .25"), tokens("-.25"));
+    }
+
+    @Test
+    void exponentWithoutDigitsIsNotPartOfTheNumber() {
+        assertEquals(List.of("NUMBER 1", "IDENTIFIER e"), tokens("1e"));
+        assertEquals(List.of("NUMBER 1", "IDENTIFIER e", "OPERATOR -", "IDENTIFIER x"), tokens("1e-x"));
+    }
+
+    @Test
+    void dotAfterAWordQualifiesAName() {
+        assertEquals(List.of("IDENTIFIER t", "PUNCTUATION .", "IDENTIFIER name"), tokens("t.name"));
+        assertEquals(List.of("IDENTIFIER t1", "PUNCTUATION .", "NUMBER 5"), tokens("t1.5"));
+    }
+
+    @Test
+    void twoCharacterOperatorsAreOneToken() {
+        assertEquals(List.of("IDENTIFIER a", "OPERATOR ||", "IDENTIFIER b"), tokens("a||b"));
+        assertEquals(List.of("IDENTIFIER x", "OPERATOR ::", "KEYWORD int"), tokens("x::int"));
+        assertEquals(List.of("OTHER @", "IDENTIFIER v", "OPERATOR :=", "NUMBER 1"), tokens("@v:=1"));
+        assertEquals(List.of("OTHER |", "IDENTIFIER a"), tokens("|a"));
+    }
+
+    private static List<String> tokens(String sql) {
+        List<String> tokens = new ArrayList<>();
+        SqlLexer lexer = new SqlLexer().reset(sql);
+        while (lexer.next()) {
+            tokens.add(lexer.getTokenType() + " " + lexer.tokenText());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,88 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlScriptRunnerTest {
+    private static final String SCRIPT = "INSERT INTO t VALUES (1); INSERT INTO t VALUES (2); "
+            + "INSERT INTO t VALUES (1); INSERT INTO t VALUES (3); INSERT INTO t VALUES (4);";
+
+    private Connection connection;
+    private final SqlScriptRunner runner = new SqlScriptRunner(0, rs -> null);
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:script-runner-test");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void failedBatchStopsAtTheFailingStatementUnderAutocommit() throws SQLException {
+        SqlScriptRunner.Outcome outcome = runner.run(connection, SqlScriptSplitter.split(SCRIPT), new QueryHandle());
+
+        assertNotNull(outcome.getFailure());
+        assertEquals(2, outcome.getFailedIndex());
+        assertEquals(3, outcome.getResults().size());
+        assertEquals(2, outcome.getAffectedRows());
+        assertTrue(connection.getAutoCommit());
+        // Nothing after the duplicate key ran, and what ran before it is committed
+        assertEquals("1,2", ids());
+    }
+
+    @Test
+    void failedBatchKeepsTheCallersTransaction() throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO t VALUES (10)");
+        }
+
+        SqlScriptRunner.Outcome outcome = runner.run(connection, SqlScriptSplitter.split(SCRIPT), new QueryHandle());
+
+        assertEquals(2, outcome.getFailedIndex());
+        assertFalse(connection.getAutoCommit());
+        assertEquals("1,2,10", ids());
+        connection.rollback();
+        assertEquals("", ids());
+    }
+
+    @Test
+    void successfulBatchReportsEveryStatementAsBatched() throws SQLException {
+        SqlScriptRunner.Outcome outcome = runner.run(connection,
+                SqlScriptSplitter.split("INSERT INTO t VALUES (1); INSERT INTO t VALUES (2);"), new QueryHandle());
+
+        assertEquals(-1, outcome.getFailedIndex());
+        assertEquals(2, outcome.getAffectedRows());
+        assertTrue(outcome.getResults().stream().allMatch(DatabaseService.StatementResult::isBatched));
+        assertEquals("1,2", ids());
+    }
+
+    private String ids() throws SQLException {
+        StringBuilder ids = new StringBuilder();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM t ORDER BY id")) {
+            while (rs.next()) {
+                ids.append(ids.length() > 0 ? "," : "").append(rs.getInt(1));
+            }
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The lexer-based splitter against a plain character scanner, the way scripts were split before SqlLexer
+ */
+class SqlScriptSplitterTest {
+    private static final String[] FRAGMENTS = {
+            "SELECT", "insert", "Update", "delete", "create", "with", "values", "name", "price", "abc",
+            " ", "  ", "\n", "\t", ";", ";;", "(", ")", ",", ".", "*", "=", "<>", "-", "/", "+",
+            "'", "''", "'a;b'", "\"", "\"x;y\"", "`", "`q;`", "--", "-- c;\n", "/*", "*/", "/* ; */",
+            "$$", "$$ ; $$", "42", "3.5", "1e5", ".5", "||", "::", ":=", "@v", "e", "E-3"
+    };
+
+    @Test
+    void splitsRandomScriptsLikeACharacterScanner() {
+        Random random = new Random(22);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder script = new StringBuilder();
+            for (int parts = random.nextInt(30); parts > 0; parts--) {
+                script.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String text = script.toString();
+            assertEquals(referenceSplit(text), describe(SqlScriptSplitter.split(text)), text);
+        }
+    }
+
+    @Test
+    void classifiesByTheLeadingKeyword() {
+        List<SqlStatement> statements = SqlScriptSplitter.split(
+                "-- setup\nCREATE TABLE t (v INT);\ninsert into t values (1); (SELECT ';' FROM t); /* only */");
+        assertEquals(List.of("CREATE DDL", "INSERT DML", "SELECT QUERY"),
+                statements.stream().map(s -> s.getKeyword() + " " + s.getKind()).toList());
+    }
+
+    private static List<String> describe(List<SqlStatement> statements) {
+        List<String> described = new ArrayList<>();
+        for (SqlStatement statement : statements) {
+            described.add(statement.getOffset() + " " + statement.getKeyword() + " " + statement.getSql());
+        }
+        return described;
+    }
+
+    private static List<String> referenceSplit(String script) {
+        List<String> statements = new ArrayList<>();
+        int length = script.length();
+        int start = 0;
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(script, i, c);
+            } else if (c == '-' && next == '-') {
+                i = skipLineComment(script, i);
+            } else if (c == '/' && next == '*') {
+                i = skipBlockComment(script, i);
+            } else if (c == '$' && next == '$') {
+                int end = script.indexOf("$$", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == ';') {
+                addStatement(script, start, i, statements);
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+        addStatement(script, start, length, statements);
+        return statements;
+    }
+
+    private static void addStatement(String script, int from, int to, List<String> statements) {
+        int begin = from;
+        int end = to;
+        while (begin < end && Character.isWhitespace(script.charAt(begin))) {
+            begin++;
+        }
+        while (end > begin && Character.isWhitespace(script.charAt(end - 1))) {
+            end--;
+        }
+        // Skip leading comments and parentheses to the first word
+        int i = begin;
+        boolean code = false;
+        while (i < end) {
+            char c = script.charAt(i);
+            char next = i + 1 < end ? script.charAt(i + 1) : '\0';
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && next == '-') {
+                i = Math.min(end, skipLineComment(script, i));
+            } else if (c == '/' && next == '*') {
+                i = Math.min(end, skipBlockComment(script, i));
+            } else if (c == '(') {
+                code = true;
+                i++;
+            } else {
+                code = true;
+                break;
+            }
+        }
+        if (!code) {
+            return;
+        }
+        int wordEnd = i;
+        if (i < end && (Character.isLetter(script.charAt(i)) || script.charAt(i) == '_')) {
+            while (wordEnd < end && (Character.isLetterOrDigit(script.charAt(wordEnd)) || script.charAt(wordEnd) == '_')) {
+                wordEnd++;
+            }
+        }
+        String keyword = script.substring(i, wordEnd).toUpperCase(Locale.ROOT);
+        statements.add(begin + " " + keyword + " " + script.substring(begin, end));
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+        int length = sql.length();
+        i++;
+        while (i < length) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    private static int skipLineComment(String sql, int i) {
+        int end = sql.indexOf('\n', i);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int i) {
+        int end = sql.indexOf("*/", i + 2);
+        return end < 0 ? sql.length() : end + 2;
+    }
+}
@@ -0,0 +1,166 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.fxmisc.richtext.model.EditableStyledDocument;
+import org.fxmisc.richtext.model.ReadOnlyStyledDocument;
+import org.fxmisc.richtext.model.SegmentOps;
+import org.fxmisc.richtext.model.SimpleEditableStyledDocument;
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactfx.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Spans kept up to date edit by edit, or computed in the background, must equal a
+ * full re-highlight of the text.
+ */
+class SqlSyntaxHighlighterTest {
+    private static final String[] FRAGMENTS = {
+            "SELECT ", "FROM ", "WHERE ", "name", "id", " = ", "'text'", "'open", "\"quoted\"", "\"open",
+            "/*", "*/", "/* note */", "-- comment", "\n", "\n\n", " ", ",", "(", ")", ";", "42", "3.5",
+            "COUNT(*)", "e.salary", " AND ", "'", "\"", "*", "-", "/", "x"
+    };
+
+    private final SqlSyntaxHighlighter highlighter = new SqlSyntaxHighlighter();
+
+    @AfterEach
+    void shutdown() {
+        highlighter.shutdown();
+    }
+
+    @Test
+    void incrementalHighlightingMatchesFullHighlightAfterRandomEdits() {
+        EditableStyledDocument<Collection<String>, String, Collection<String>> document =
+                newDocument("SELECT id, name FROM employees;\n/* block\ncomment */\nSELECT 'a';");
+        Subscription subscription = highlighter.attach(document);
+        Random random = new Random(20);
+        for (int edit = 0; edit < 3000; edit++) {
+            randomEdit(document, random);
+            assertEquals(fullHighlight(document.getText()), styles(document), "after edit " + edit);
+        }
+        subscription.unsubscribe();
+    }
+
+    @Test
+    void openingABlockCommentRestylesTheFollowingLines() {
+        EditableStyledDocument<Collection<String>, String, Collection<String>> document =
+                newDocument("SELECT 1;\nSELECT 2;\nSELECT 3;");
+        highlighter.attach(document);
+
+        replace(document, 0, 0, "/*");
+        assertEquals(fullHighlight(document.getText()), styles(document));
+        replace(document, 0, 2, "");
+        assertEquals(fullHighlight(document.getText()), styles(document));
+    }
+
+    @Test
+    void backgroundHighlightingMatchesFullHighlightAndDropsStaleResults() {
+        EditableStyledDocument<Collection<String>, String, Collection<String>> document =
+                newDocument("SELECT id, name FROM employees;\n/* block\ncomment */\nSELECT 'a';");
+        SqlSyntaxHighlighter.IncrementalHighlighting highlighting = highlighter.track(document);
+        assertEquals(fullHighlight(document.getText()), styles(document));
+
+        Random random = new Random(21);
+        int stale = 0;
+        for (int round = 0; round < 1000; round++) {
+            for (int edits = 1 + random.nextInt(3); edits > 0; edits--) {
+                randomEdit(document, random);
+            }
+            if (!highlighting.isDirty()) {
+                continue;
+            }
+            CompletableFuture<SqlSyntaxHighlighter.Job.Result> pending =
+                    highlighting.computeAsync();
+            // Sometimes keep typing while the spans are computed, like the editor does
+            boolean editedMeanwhile = random.nextInt(3) == 0;
+            if (editedMeanwhile) {
+                randomEdit(document, random);
+            }
+            boolean applied = highlighting.apply(pending.join());
+            if (applied) {
+                assertEquals(fullHighlight(document.getText()), styles(document), "after round " + round);
+            } else {
+                stale++;
+                // The discarded range is still dirty, the next job covers it
+                assertTrue(highlighting.isDirty());
+                assertTrue(highlighting.apply(highlighting.computeAsync().join()));
+                assertEquals(fullHighlight(document.getText()), styles(document), "after round " + round);
+            }
+        }
+        assertTrue(stale > 0, "no result was computed against stale text");
+    }
+
+    static EditableStyledDocument<Collection<String>, String, Collection<String>> newDocument(String text) {
+        EditableStyledDocument<Collection<String>, String, Collection<String>> document =
+                new SimpleEditableStyledDocument<>(Collections.emptyList(), Collections.emptyList());
+        replace(document, 0, 0, text);
+        return document;
+    }
+
+    static void replace(EditableStyledDocument<Collection<String>, String, Collection<String>> document,
+                        int start, int end, String text) {
+        document.replace(start, end, ReadOnlyStyledDocument.fromString(text, Collections.emptyList(),
+                Collections.emptyList(), SegmentOps.styledTextOps()));
+    }
+
+    /**
+     * Insert, delete or replace text at a random position, often spanning line breaks
+     */
+    static void randomEdit(EditableStyledDocument<Collection<String>, String, Collection<String>> document,
+                           Random random) {
+        int length = document.length();
+        int start = random.nextInt(length + 1);
+        int end = random.nextInt(3) == 0 ? start : Math.min(length, start + random.nextInt(12));
+        String text = random.nextInt(4) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+        if (length > 4000) {
+            // Keep the document small enough that the full re-highlight stays cheap
+            end = Math.min(length, start + 200);
+            text = "";
+        }
+        replace(document, start, end, text);
+    }
+
+    /**
+     * Style of every character, lexing the whole text line by line from scratch
+     */
+    List<Collection<String>> fullHighlight(String text) {
+        List<Collection<String>> styles = new ArrayList<>();
+        SqlLexer.State state = SqlLexer.State.NORMAL;
+        for (String line : text.split("\n", -1)) {
+            StyleSpansBuilder<Collection<String>> builder = new StyleSpansBuilder<>();
+            state = highlighter.highlightLine(line, state, builder);
+            expand(builder.create(), styles);
+        }
+        return styles;
+    }
+
+    /**
+     * Style of every character of the document, paragraph by paragraph like fullHighlight
+     */
+    static List<Collection<String>> styles(EditableStyledDocument<Collection<String>, String, Collection<String>> document) {
+        List<Collection<String>> styles = new ArrayList<>();
+        for (int p = 0; p < document.getParagraphs().size(); p++) {
+            expand(document.getParagraph(p).getStyleSpans(), styles);
+        }
+        return styles;
+    }
+
+    private static void expand(StyleSpans<Collection<String>> spans, List<Collection<String>> styles) {
+        for (StyleSpan<Collection<String>> span : spans) {
+            for (int i = 0; i < span.getLength(); i++) {
+                styles.add(span.getStyle());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.coffee_and_code.sql_learning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the background startup stages without a window and fails when they take longer
+ * than -Dsqllearning.startup.budgetMs (default 5000).
+ */
+class StartupBudgetTest {
+    private static final long BUDGET_MILLIS = Long.getLong("sqllearning.startup.budgetMs", 5000);
+
+    private StartupPipeline startup;
+
+    @AfterEach
+    void shutdown() {
+        if (startup != null) {
+            startup.getDatabase().thenAccept(DatabaseService::shutdown);
+        }
+    }
+
+    @Test
+    void startupStagesFinishWithinBudget() {
+        StartupTimings timings = new StartupTimings();
+        startup = StartupPipeline.start(timings);
+        startup.whenAllDone().join();
+        timings.finish();
+
+        for (CompletableFuture<?> stage : List.of(startup.getDatabase(), startup.getLearningContent(),
+                startup.getPracticeQuestions())) {
+            assertFalse(stage.isCompletedExceptionally(), timings::toReport);
+        }
+        List<String> phases = timings.getPhases().stream().map(StartupTimings.Phase::getName).toList();
+        assertTrue(phases.containsAll(List.of("Database initialization", "LearningContentService", "PracticeService")),
+                () -> "Missing startup phases in " + phases);
+        assertTrue(timings.getTotalMillis() <= BUDGET_MILLIS,
+                () -> "Over the startup budget of " + BUDGET_MILLIS + "ms\n" + timings.toReport());
+    }
+}
@@ -0,0 +1,17 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultCellFormatterTest {
+
+    @Test
+    void doublesArePrintedWithoutAnExponent() {
+        assertEquals("100000000000000000000", ResultCellFormatter.formatDouble(1e20));
+        assertEquals("0.00000015", ResultCellFormatter.formatDouble(1.5e-7));
+        assertEquals("2.5", ResultCellFormatter.formatDouble(2.5));
+        assertEquals("-3.0", ResultCellFormatter.formatDouble(-3.0));
+        assertEquals("NaN", ResultCellFormatter.formatDouble(Double.NaN));
+    }
+}
@@ -0,0 +1,56 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.DatabaseService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ResultViewBuilderTest {
+
+    @Test
+    void sortsDecimalsBeyondDoublePrecision() throws SQLException {
+        ResultRowList rows = new ResultRowList(query(
+                "SELECT CAST(X AS DECIMAL(30, 2)) AS V FROM (VALUES "
+                        + "(1234567890123456.03), (1234567890123456.01), (1234567890123456.02)) T(X)"));
+
+        assertArrayEquals(new int[]{1, 2, 0}, ResultViewBuilder.build(rows.snapshot(), 0, true, null));
+    }
+
+    @Test
+    void sortsDecimalsWithMixedScales() throws SQLException {
+        ResultRowList rows = new ResultRowList(query(
+                "SELECT X FROM (VALUES (CAST(2.5 AS DECIMAL(10, 1))), (CAST(2.25 AS DECIMAL(10, 2))), "
+                        + "(CAST(12345678901234567890.1 AS DECIMAL(30, 1)))) T(X)"));
+
+        assertArrayEquals(new int[]{1, 0, 2}, ResultViewBuilder.build(rows.snapshot(), 0, true, null));
+    }
+
+    @Test
+    void filtersOnTheDisplayedText() throws SQLException {
+        DatabaseService.QueryResult result = query(
+                "SELECT D, N FROM (VALUES (DATE '2024-03-15', 1E20), (DATE '2023-01-02', 2.5)) T(D, N)");
+        ResultRowList rows = new ResultRowList(result);
+        String shownDate = ResultCellFormatter.format(result, 0, 0);
+
+        assertArrayEquals(new int[]{0}, ResultViewBuilder.build(rows.snapshot(), -1, true, shownDate));
+        assertArrayEquals(new int[]{0}, ResultViewBuilder.build(rows.snapshot(), -1, true, "100000000000000000000"));
+    }
+
+    private static DatabaseService.QueryResult query(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:result-view-builder-test");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            DatabaseService.QueryResult.Builder builder = new DatabaseService.QueryResult.Builder(rs.getMetaData());
+            while (rs.next()) {
+                builder.addRow(rs);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.coffee_and_code.sql_learning.ui;
+
+import com.coffee_and_code.sql_learning.service.CompletionContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlCompletionTest {
+
+    @Test
+    void tablesNamedLikeFunctionsAreRefreshed() {
+        assertEquals(Set.of("POSITION"), SqlCompletion.changedTables("CREATE TABLE position (id INT)"));
+        assertEquals(Set.of("YEAR"), SqlCompletion.changedTables("CREATE TABLE year(id INT)"));
+        assertEquals(Set.of("YEAR", "ORDERS"), SqlCompletion.changedTables("CREATE TABLE year(id INT); DROP TABLE orders"));
+    }
+
+    @Test
+    void findsTheStatementAroundTheCaret() {
+        List<String> lines = new ArrayList<>(List.of(
+                "SELECT 1;",
+                "SELECT ';' AS a, -- ;",
+                "  /* ; */ b FROM t",
+                "WHERE x = 1; SELECT 2"));
+        SqlCompletion.StatementBounds bounds = new SqlCompletion.StatementBounds();
+
+        assertArrayEquals(new int[]{0, 9, 3, 11}, bounds.around(lines::get, lines.size(), 2, 12));
+        assertArrayEquals(new int[]{3, 12, 3, 21}, bounds.around(lines::get, lines.size(), 3, 21));
+        assertArrayEquals(new int[]{0, 0, 0, 8}, bounds.around(lines::get, lines.size(), 0, 3));
+
+        // Opening a string on line 1 hides the separators after it
+        lines.set(1, "SELECT ' ");
+        bounds.invalidateFrom(1);
+        assertArrayEquals(new int[]{0, 9, 3, 21}, bounds.around(lines::get, lines.size(), 3, 21));
+    }
+
+    @Test
+    void contextOfAStatementUsesDocumentOffsets() {
+        String script = "SELECT 1;\nSELECT * FROM ord";
+        int from = script.indexOf('\n');
+        CompletionContext context = CompletionContext.at(script.substring(from), from, script.length());
+
+        assertEquals("ord", context.getPrefix());
+        assertEquals(script.length() - 3, context.getPrefixStart());
+        assertEquals(CompletionContext.Expected.TABLE, context.getExpected());
+    }
+}
@@ -0,0 +1,174 @@
+package com.coffee_and_code.sql_learning.utils;
+
+import com.coffee_and_code.sql_learning.service.SqlLexer;
+import com.coffee_and_code.sql_learning.service.SqlSyntaxHighlighter;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares SqlLexer against the alternation regex the syntax highlighter used before it,
+ * on a generated script. Run from the test classpath with an optional line count, e.g.
+ * {@code SqlLexerBenchmark 3000}; it is not part of the test suite.
+ */
+public class SqlLexerBenchmark {
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    // Results are written here so the measured work is not optimized away
+    private static volatile long sink;
+
+    // The former SqlSyntaxHighlighter keyword lists and PATTERN, copied unchanged so the
+    // comparison is against the regex the lexer replaced, duplicates and all
+    private static final String[] KEYWORDS = {
+        "SELECT", "FROM", "WHERE", "INSERT", "UPDATE", "DELETE", "CREATE", "ALTER", "DROP",
+        "TABLE", "DATABASE", "INDEX", "VIEW", "TRIGGER", "PROCEDURE", "FUNCTION",
+        "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "ON", "AS", "AND", "OR", "NOT",
+        "IN", "EXISTS", "BETWEEN", "LIKE", "IS", "NULL", "ORDER", "BY", "GROUP",
+        "HAVING", "LIMIT", "OFFSET", "UNION", "ALL", "DISTINCT", "TOP", "CASE",
+        "WHEN", "THEN", "ELSE", "END", "IF", "WHILE", "FOR", "LOOP", "BEGIN",
+        "COMMIT", "ROLLBACK", "SAVEPOINT", "GRANT", "REVOKE", "PRIVILEGES",
+        "INT", "VARCHAR", "CHAR", "TEXT", "DECIMAL", "FLOAT", "DOUBLE", "DATE",
+        "TIME", "DATETIME", "TIMESTAMP", "BOOLEAN", "BLOB", "CLOB", "JSON",
+        "PRIMARY", "KEY", "FOREIGN", "REFERENCES", "UNIQUE", "CHECK", "DEFAULT",
+        "NOT", "NULL", "AUTO_INCREMENT", "IDENTITY", "SEQUENCE", "CONSTRAINT",
+        "ASC", "DESC", "COUNT", "SUM", "AVG", "MIN", "MAX", "FIRST", "LAST",
+        "ROW_NUMBER", "RANK", "DENSE_RANK", "LEAD", "LAG", "OVER", "PARTITION",
+        "WINDOW", "ROWS", "RANGE", "UNBOUNDED", "PRECEDING", "FOLLOWING", "CURRENT"
+    };
+
+    // SQL Functions
+    private static final String[] FUNCTIONS = {
+        "ABS", "ACOS", "ASIN", "ATAN", "ATAN2", "CEIL", "COS", "COT", "DEGREES",
+        "EXP", "FLOOR", "LOG", "LOG10", "MOD", "PI", "POWER", "RADIANS", "RAND",
+        "ROUND", "SIGN", "SIN", "SQRT", "TAN", "TRUNCATE", "ASCII", "CHAR",
+        "CHAR_LENGTH", "CONCAT", "CONCAT_WS", "ELT", "FIELD", "FIND_IN_SET",
+        "FORMAT", "INSERT", "INSTR", "LCASE", "LEFT", "LENGTH", "LOCATE", "LOWER",
+        "LPAD", "LTRIM", "MID", "POSITION", "REPEAT", "REPLACE", "REVERSE",
+        "RIGHT", "RPAD", "RTRIM", "SPACE", "STRCMP", "SUBSTRING", "SUBSTRING_INDEX",
+        "TRIM", "UCASE", "UPPER", "ADDDATE", "ADDTIME", "CONVERT_TZ", "CURDATE",
+        "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "CURTIME", "DATE",
+        "DATE_ADD", "DATE_FORMAT", "DATE_SUB", "DATEDIFF", "DAY", "DAYNAME",
+        "DAYOFMONTH", "DAYOFWEEK", "DAYOFYEAR", "EXTRACT", "FROM_DAYS", "FROM_UNIXTIME",
+        "GET_FORMAT", "HOUR", "LAST_DAY", "LOCALTIME", "LOCALTIMESTAMP", "MAKEDATE",
+        "MAKETIME", "MICROSECOND", "MINUTE", "MONTH", "MONTHNAME", "NOW", "PERIOD_ADD",
+        "PERIOD_DIFF", "QUARTER", "SECOND", "SEC_TO_TIME", "STR_TO_DATE", "SUBDATE",
+        "SUBTIME", "SYSDATE", "TIME", "TIME_FORMAT", "TIME_TO_SEC", "TIMEDIFF",
+        "TIMESTAMP", "TIMESTAMPADD", "TIMESTAMPDIFF", "TO_DAYS", "TO_SECONDS",
+        "UNIX_TIMESTAMP", "UTC_DATE", "UTC_TIME", "UTC_TIMESTAMP", "WEEK", "WEEKDAY",
+        "WEEKOFYEAR", "YEAR", "YEARWEEK"
+    };
+
+    // Pattern definitions, verbatim from the baseline highlighter
+    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
+    private static final String FUNCTION_PATTERN = "\\b(" + String.join("|", FUNCTIONS) + ")\\s*\\(";
+    private static final String STRING_PATTERN = "'([^'\\\\]|\\\\.)*'";
+    private static final String NUMBER_PATTERN = "\\b\\d+\\.?\\d*\\b";
+    private static final String COMMENT_PATTERN = "--.*$";
+    private static final String MULTILINE_COMMENT_PATTERN = "/\\*[\\s\\S]*?\\*/";
+    private static final String OPERATOR_PATTERN = "[=<>!]+|[+\\-*/%]";
+
+    private static final Pattern PATTERN = Pattern.compile(
+            "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
+                    + "|(?<FUNCTION>" + FUNCTION_PATTERN + ")"
+                    + "|(?<STRING>" + STRING_PATTERN + ")"
+                    + "|(?<NUMBER>" + NUMBER_PATTERN + ")"
+                    + "|(?:--.*$)"                     // Single-line comment (non-capturing)
+                    + "|(?:/\\*[\\s\\S]*?\\*/)"       // Multi-line comment (non-capturing)
+                    + "|(?<OPERATOR>" + OPERATOR_PATTERN + ")"
+            , Pattern.MULTILINE);
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        String script = generateScript(lines);
+        String[] scriptLines = script.split("\n", -1);
+        SqlSyntaxHighlighter highlighter = new SqlSyntaxHighlighter();
+        SqlLexer lexer = new SqlLexer();
+
+        System.out.printf("Script: %d lines, %d characters%n", lines, script.length());
+        double regexTokens = measure(() -> {
+            Matcher matcher = PATTERN.matcher(script);
+            int matches = 0;
+            while (matcher.find()) {
+                matches++;
+            }
+            return matches;
+        });
+        double lexerTokens = measure(() -> {
+            lexer.reset(script);
+            int tokens = 0;
+            while (lexer.next()) {
+                tokens++;
+            }
+            return tokens;
+        });
+        double regexSpans = measure(() -> regexSpans(script));
+        double lexerSpans = measure(() -> {
+            StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+            SqlLexer.State state = SqlLexer.State.NORMAL;
+            for (int i = 0; i < scriptLines.length; i++) {
+                if (i > 0) {
+                    spans.add(Collections.emptyList(), 1);
+                }
+                state = highlighter.highlightLine(scriptLines[i], state, spans);
+            }
+            return spans.create().getSpanCount();
+        });
+        highlighter.shutdown();
+
+        System.out.printf("Tokenize:  regex %8.2f ms, lexer %8.2f ms, %.1fx faster%n",
+                regexTokens, lexerTokens, regexTokens / lexerTokens);
+        System.out.printf("Highlight: regex %8.2f ms, lexer %8.2f ms, %.1fx faster%n",
+                regexSpans, lexerSpans, regexSpans / lexerSpans);
+    }
+
+    private static int regexSpans(String script) {
+        Matcher matcher = PATTERN.matcher(script);
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        int lastEnd = 0;
+        while (matcher.find()) {
+            spans.add(Collections.emptyList(), matcher.start() - lastEnd);
+            spans.add(Collections.singleton("sql"), matcher.end() - matcher.start());
+            lastEnd = matcher.end();
+        }
+        spans.add(Collections.emptyList(), script.length() - lastEnd);
+        return spans.create().getSpanCount();
+    }
+
+    /**
+     * Average milliseconds per run after warming up
+     */
+    private static double measure(IntSupplier run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += run.getAsInt();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += run.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+
+    private static String generateScript(int lines) {
+        String[] templates = {
+                "SELECT e.first_name, e.last_name, d.department_name, ROUND(e.salary * 1.05, 2) AS raise",
+                "FROM employees e INNER JOIN departments d ON e.department_id = d.department_id",
+                "WHERE e.hire_date >= '2020-01-01' AND e.salary BETWEEN 40000 AND 90000 -- recent hires",
+                "/* quarterly report: totals per department",
+                "   grouped and ordered by revenue */ GROUP BY d.department_name HAVING COUNT(*) > 3",
+                "insert into orders (order_id, customer, amount) values (1001, 'O''Brien', 250.75);",
+                "update products set price = price * 0.9, name = upper(name) where stock < 10;",
+        };
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                script.append('\n');
+            }
+            script.append(templates[i % templates.length]);
+        }
+        return script.toString();
+    }
+}